@@ -0,0 +1,41 @@
+package com.example.attendancemanagement.benchmark;
+
+import com.example.attendancemanagement.auth.AuthenticatedUser;
+import com.example.attendancemanagement.controller.AdminController;
+import com.example.attendancemanagement.controller.StudentController;
+import com.example.attendancemanagement.controller.TeacherController;
+import com.example.attendancemanagement.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+
+// One application context with a freshly generated dataset per benchmark trial
+@State(Scope.Benchmark)
+public class AttendanceState {
+
+    ConfigurableApplicationContext context;
+    SyntheticDataset dataset;
+    AdminController adminController;
+    TeacherController teacherController;
+    StudentController studentController;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("bench-" + UUID.randomUUID());
+        dataset = SyntheticDataset.fromSystemProperties().load(context);
+        adminController = context.getBean(AdminController.class);
+        teacherController = context.getBean(TeacherController.class);
+        studentController = context.getBean(StudentController.class);
+    }
+
+    // Controllers are called directly, so the caller the token filter would pass on is built here
+    AuthenticatedUser caller(long id, User.Role role) {
+        return new AuthenticatedUser(id, role, System.currentTimeMillis(), Long.MAX_VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+}
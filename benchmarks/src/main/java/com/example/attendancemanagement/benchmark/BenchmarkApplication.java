@@ -0,0 +1,37 @@
+package com.example.attendancemanagement.benchmark;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Starts the application against a private in-memory H2 database in MySQL mode
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... extraArgs) {
+        return start(WebApplicationType.NONE, database, extraArgs);
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String database, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + database
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        args.addAll(Arrays.asList(extraArgs));
+
+        return new SpringApplicationBuilder(AttendanceApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.attendancemanagement.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+// Runs the benchmarks with the usual JMH options and always writes the results as JSON
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Maven passes the JMH options as a single argument, split them back up
+        String[] jmhArgs = Arrays.stream(String.join(" ", args).trim().split("\\s+"))
+                .filter(arg -> !arg.isEmpty())
+                .toArray(String[]::new);
+
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(jmhArgs))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", "target/jmh-result.json"))
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.attendancemanagement.benchmark;
+
+import com.example.attendancemanagement.entity.User;
+import com.example.attendancemanagement.service.BulkImportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Semester-start loads: a CSV upload of new students and of their enrollments through the bulk
+// import, against the same students created one addUser call at a time. Every invocation uses
+// usernames that do not exist yet.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BulkImportBenchmark {
+
+    private static final AtomicInteger UPLOADS = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Upload {
+
+        @Param({"1000", "50000"})
+        int rows;
+
+        String prefix;
+        byte[] users;
+        byte[] enrollments;
+
+        @Setup(Level.Invocation)
+        public void generate(AttendanceState state) throws Exception {
+            prefix = "import-" + UPLOADS.incrementAndGet() + "-";
+            StringBuilder usersCsv = new StringBuilder("username,password,role\n");
+            StringBuilder enrollmentsCsv = new StringBuilder("studentUsername,courseId\n");
+            for (int i = 0; i < rows; i++) {
+                usersCsv.append(prefix).append(i).append(",password,Student\n");
+                enrollmentsCsv.append(prefix).append(i).append(',').append(1 + i % state.dataset.courses).append('\n');
+            }
+            users = usersCsv.toString().getBytes(StandardCharsets.UTF_8);
+            enrollments = enrollmentsCsv.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // Students of the enrollment upload, created outside the measurement
+    @State(Scope.Thread)
+    public static class ExistingStudents {
+
+        @Setup(Level.Invocation)
+        public void create(AttendanceState state, Upload upload) throws Exception {
+            state.context.getBean(BulkImportService.class)
+                    .importUsers(new ByteArrayInputStream(upload.users), BulkImportService.TEXT_CSV);
+        }
+    }
+
+    @Benchmark
+    public Object importUsers(AttendanceState state, Upload upload) throws Exception {
+        return state.context.getBean(BulkImportService.class)
+                .importUsers(new ByteArrayInputStream(upload.users), BulkImportService.TEXT_CSV);
+    }
+
+    @Benchmark
+    public Object importEnrollments(AttendanceState state, Upload upload, ExistingStudents students) throws Exception {
+        return state.context.getBean(BulkImportService.class)
+                .importEnrollments(new ByteArrayInputStream(upload.enrollments), BulkImportService.TEXT_CSV);
+    }
+
+    @Benchmark
+    public int addUserOneByOne(AttendanceState state, Upload upload) {
+        int created = 0;
+        for (int i = 0; i < upload.rows; i++) {
+            User user = new User();
+            user.setUsername(upload.prefix + i);
+            user.setPassword("password");
+            user.setRole(User.Role.Student);
+            if (state.adminController.addUser(user).getStatusCode().is2xxSuccessful()) {
+                created++;
+            }
+        }
+        return created;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.attendancemanagement.benchmark;
+
+import java.io.OutputStream;
+
+// Discards streamed response bodies but keeps their size so the work cannot be optimized away
+final class ByteCounter extends OutputStream {
+
+    long count;
+
+    @Override
+    public void write(int b) {
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        count += len;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.attendancemanagement.benchmark;
+
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// The 9 AM rush over HTTP: most clients poll checkRunningAttendance while a few mark attendance
+// for a 1,000-student lecture. Compare the "platform" and "virtual" execution modes on throughput
+// and on the p99/p99.9 of the sample-time run; the virtual mode needs a Java 21+ benchmark JVM.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"platform", "virtual"})
+        String mode;
+
+        // Size of the platform request pool; unused in the virtual mode
+        @Param("200")
+        int tomcatThreads;
+
+        ConfigurableApplicationContext context;
+        SyntheticDataset dataset;
+        HttpClient client;
+        String baseUrl;
+        long lectureCourseId;
+        int lectureSize;
+        // Bearer tokens are issued up front so the client side does not sign on every request
+        Map<Long, String> studentTokens;
+        String lecturerToken;
+
+        @Setup(Level.Trial)
+        public void start() {
+            boolean virtual = mode.equals("virtual");
+            if (virtual && Runtime.version().feature() < 21) {
+                throw new IllegalStateException("The virtual mode needs Java 21+, this JVM is " + Runtime.version());
+            }
+            context = BenchmarkApplication.start(WebApplicationType.SERVLET, "http-" + UUID.randomUUID(),
+                    "--server.port=0",
+                    "--management.server.port=-1",
+                    "--spring.threads.virtual.enabled=" + virtual,
+                    "--server.tomcat.threads.max=" + tomcatThreads);
+            dataset = SyntheticDataset.fromSystemProperties().load(context);
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            lectureSize = SyntheticDataset.LECTURE_SIZES[SyntheticDataset.LECTURE_SIZES.length - 1];
+            lectureCourseId = dataset.lectureCourseIds.get(lectureSize);
+            TokenService tokens = context.getBean(TokenService.class);
+            studentTokens = new HashMap<>();
+            dataset.studentIds.forEach(id -> studentTokens.put(id, "Bearer " + tokens.issue(id, User.Role.Student)));
+            lecturerToken = "Bearer " + tokens.issue(dataset.lectureTeacherId, User.Role.Teacher);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+
+        int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+            return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+    }
+
+    @Benchmark
+    @Group("rush")
+    @GroupThreads(56)
+    public int checkRunningAttendance(Server server) throws Exception {
+        long[] enrollment = server.dataset.enrollment(ThreadLocalRandom.current().nextInt());
+        return server.send(HttpRequest.newBuilder(URI.create(
+                server.baseUrl + "/api/student/checkRunningAttendance/" + enrollment[0] + "/" + enrollment[1]))
+                .header("Authorization", server.studentTokens.get(enrollment[0])));
+    }
+
+    // Each student can be marked once per day, so after the first pass this exercises the
+    // validation queries and the "already marked" answer of the same endpoint
+    @Benchmark
+    @Group("rush")
+    @GroupThreads(8)
+    public int markAttendance(Server server) throws Exception {
+        int index = ThreadLocalRandom.current().nextInt(Math.min(server.lectureSize, server.dataset.studentIds.size()));
+        String payload = "[{\"teacherId\":" + server.dataset.lectureTeacherId
+                + ",\"courseId\":" + server.lectureCourseId
+                + ",\"studentId\":" + server.dataset.studentIds.get(index)
+                + ",\"status\":\"Present\"}]";
+        return server.send(HttpRequest.newBuilder(URI.create(server.baseUrl + "/api/teacher/markAttendance"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", server.lecturerToken)
+                .POST(HttpRequest.BodyPublishers.ofString(payload)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.attendancemanagement.benchmark;
+
+import com.example.attendancemanagement.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Single-record lookups polled by the dashboards
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmarks {
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public Object checkRunningAttendance(AttendanceState state, Cursor cursor) {
+        long[] enrollment = state.dataset.enrollment(cursor.next++);
+        return state.studentController.checkRunningAttendance(enrollment[0], enrollment[1],
+                state.caller(enrollment[0], User.Role.Student));
+    }
+
+    @Benchmark
+    public Object attendanceSummary(AttendanceState state, Cursor cursor) {
+        long[] enrollment = state.dataset.enrollment(cursor.next++);
+        return state.studentController.getAttendanceSummary(enrollment[0], enrollment[1],
+                state.caller(enrollment[0], User.Role.Student));
+    }
+
+    @Benchmark
+    public Object viewCourses(AttendanceState state) {
+        return state.adminController.viewCourses(null);
+    }
+
+    // A dashboard poll that already holds the current ETag
+    @Benchmark
+    public Object viewCoursesNotModified(AttendanceState state, Poller poller) {
+        return state.adminController.viewCourses(poller.etag);
+    }
+
+    @State(Scope.Thread)
+    public static class Poller {
+        String etag;
+
+        @Setup
+        public void setUp(AttendanceState state) {
+            etag = state.adminController.viewCourses(null).getHeaders().getETag();
+        }
+    }
+}
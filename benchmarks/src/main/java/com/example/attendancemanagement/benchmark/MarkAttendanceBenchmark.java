@@ -0,0 +1,57 @@
+package com.example.attendancemanagement.benchmark;
+
+import com.example.attendancemanagement.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// markAttendance for a whole lecture; today's rows of the course are removed before every call
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarkAttendanceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Lecture {
+
+        @Param({"50", "300", "1000"})
+        int students;
+
+        long courseId;
+        JdbcTemplate jdbcTemplate;
+        List<Map<String, Object>> payload;
+
+        @Setup(Level.Trial)
+        public void prepare(AttendanceState state) {
+            courseId = state.dataset.lectureCourseIds.get(students);
+            jdbcTemplate = state.context.getBean(JdbcTemplate.class);
+            payload = new ArrayList<>();
+            for (int i = 0; i < Math.min(students, state.dataset.studentIds.size()); i++) {
+                payload.add(Map.of(
+                        "teacherId", state.dataset.lectureTeacherId,
+                        "courseId", courseId,
+                        "studentId", state.dataset.studentIds.get(i),
+                        "status", i % 7 == 0 ? "Absent" : "Present"));
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void clearToday() {
+            jdbcTemplate.update("delete from attendance where course_id = ? and date = ?", courseId, Date.valueOf(LocalDate.now()));
+        }
+    }
+
+    @Benchmark
+    public Object markAttendance(AttendanceState state, Lecture lecture) {
+        return state.teacherController.markAttendance(lecture.payload,
+                state.caller(state.dataset.lectureTeacherId, User.Role.Teacher));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.attendancemanagement.benchmark;
+
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Grouped-by-date reports of the admin, teacher and student controllers, plus the teacher record and roster lists
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmarks {
+
+    @Benchmark
+    public long adminGroupedByDate(AttendanceState state) throws IOException {
+        ByteCounter out = new ByteCounter();
+        state.adminController.getAttendanceGroupedByDate(ListFilter.none()).getBody().writeTo(out);
+        return out.count;
+    }
+
+    // The same report narrowed to the last 30 days in SQL
+    @Benchmark
+    public long adminGroupedByDateLastMonth(AttendanceState state) throws IOException {
+        ByteCounter out = new ByteCounter();
+        ListFilter lastMonth = new ListFilter(LocalDate.now().minusDays(30), null, null, null, null, null, null);
+        state.adminController.getAttendanceGroupedByDate(lastMonth).getBody().writeTo(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public Object teacherGroupedByDate(AttendanceState state) throws Exception {
+        return await(state.teacherController.getAttendanceGroupedByDate(state.dataset.reportTeacherId, ListFilter.none(),
+                state.caller(state.dataset.reportTeacherId, User.Role.Teacher)));
+    }
+
+    @Benchmark
+    public Object studentGroupedByDate(AttendanceState state) {
+        return state.studentController.getAttendanceGroupedByDate(state.dataset.studentIds.get(0), ListFilter.none(),
+                state.caller(state.dataset.studentIds.get(0), User.Role.Student));
+    }
+
+    @Benchmark
+    public Object teacherAttendanceRecords(AttendanceState state) throws Exception {
+        return await(state.teacherController.getAttendanceRecords(state.dataset.reportTeacherId, ListFilter.none(),
+                state.caller(state.dataset.reportTeacherId, User.Role.Teacher)));
+    }
+
+    // Roster of the largest lecture course
+    @Benchmark
+    public Object teacherEnrolledStudents(AttendanceState state) {
+        long courseId = state.dataset.lectureCourseIds.get(SyntheticDataset.LECTURE_SIZES[SyntheticDataset.LECTURE_SIZES.length - 1]);
+        return state.teacherController.listEnrolledStudents(courseId,
+                state.caller(state.dataset.lectureTeacherId, User.Role.Teacher));
+    }
+
+    // The teacher reports complete on their own pool; wait for the response like the servlet container would
+    private static Object await(DeferredResult<?> result) throws Exception {
+        CompletableFuture<Object> response = new CompletableFuture<>();
+        result.setResultHandler(response::complete);
+        return response.get(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.attendancemanagement.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// A rolling restart of one node: time from launching a new JVM with the application to the first
+// 200 of an authenticated GET /api/admin/courses. "default" starts with the plain configuration,
+// "prod" with the prod profile, and "prod-appcds" adds a class data sharing archive recorded by a
+// training run in the trial setup.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String SECRET = "startup-benchmark";
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+    @State(Scope.Benchmark)
+    public static class Node {
+
+        @Param({"default", "prod", "prod-appcds"})
+        String mode;
+
+        Path directory;
+        String classPath;
+        Path archive;
+        HttpClient client;
+
+        Process process;
+        int port;
+        int run;
+
+        @Setup(Level.Trial)
+        public void prepare() throws Exception {
+            directory = Files.createTempDirectory("startup-benchmark");
+            // Only the jars: class data sharing refuses a class path with non-empty directories, and
+            // the application classes are in its jar
+            classPath = String.join(File.pathSeparator, Arrays.stream(System.getProperty("java.class.path")
+                    .split(File.pathSeparator)).filter(entry -> entry.endsWith(".jar")).toList());
+            client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+            if (mode.equals("prod-appcds")) {
+                // Same as the appcds Maven profile: the archive covers what loads until the context is refreshed
+                archive = directory.resolve("application.jsa");
+                List<String> command = new ArrayList<>(List.of("-XX:ArchiveClassesAtExit=" + archive, "-Xlog:cds=off",
+                        "-Dspring.context.exit=onRefresh"));
+                command.addAll(applicationArgs("training", 0));
+                command.addAll(List.of("--spring.main.lazy-initialization=false", "--spring.flyway.enabled=false"));
+                Process training = launch(command, "training");
+                if (!training.waitFor(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS) || training.exitValue() != 0 || !Files.exists(archive)) {
+                    training.destroyForcibly();
+                    throw new IllegalStateException("The training run did not record " + archive + ", see " + directory);
+                }
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void pickPort() {
+            run++;
+            port = ThreadLocalRandom.current().nextInt(20_000, 30_000);
+        }
+
+        @TearDown(Level.Invocation)
+        public void stop() throws InterruptedException {
+            if (process != null) {
+                process.destroy();
+                if (!process.waitFor(1, TimeUnit.MINUTES)) {
+                    process.destroyForcibly().waitFor();
+                }
+                process = null;
+            }
+        }
+
+        Process start() throws IOException {
+            List<String> command = new ArrayList<>();
+            if (archive != null) {
+                command.addAll(List.of("-XX:SharedArchiveFile=" + archive, "-Xlog:cds=off"));
+            }
+            command.addAll(applicationArgs("run-" + run, port));
+            process = launch(command, "run-" + run);
+            return process;
+        }
+
+        // Each process gets its own H2 database, which is empty like the node's caches after a restart.
+        // The prod profile names the MySQL dialect, so the H2 one is given for the benchmark.
+        private List<String> applicationArgs(String name, int serverPort) {
+            Path data = directory.resolve(name);
+            List<String> args = new ArrayList<>(List.of("-cp", classPath, "com.example.attendancemanagement.AttendanceApplication",
+                    "--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                    "--server.port=" + serverPort,
+                    "--management.server.port=-1",
+                    "--attendance.auth.secret=" + SECRET,
+                    "--attendance.archive.directory=" + data.resolve("archive"),
+                    "--attendance.snapshot.directory=" + data.resolve("snapshot"),
+                    "--logging.level.root=WARN"));
+            if (!mode.equals("default")) {
+                args.add("--spring.profiles.active=prod");
+            }
+            return args;
+        }
+
+        private Process launch(List<String> args, String name) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(args);
+            return new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(directory.resolve(name + ".log").toFile())
+                    .start();
+        }
+    }
+
+    @Benchmark
+    public int firstRequest(Node node) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + node.port + "/api/admin/courses"))
+                .header("Authorization", "Bearer " + adminToken())
+                .build();
+        Process process = node.start();
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with " + process.exitValue() + ", see " + node.directory);
+            }
+            try {
+                int status = node.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status == 200) {
+                    return status;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("No successful request within " + TIMEOUT + ", see " + node.directory);
+    }
+
+    // Signed like TokenService does, with the secret the process is started with
+    private static String adminToken() throws Exception {
+        long issuedAt = System.currentTimeMillis();
+        byte[] payload = ("1.Admin." + issuedAt + "." + (issuedAt + TIMEOUT.toMillis())).getBytes(StandardCharsets.UTF_8);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(mac.doFinal(payload));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.attendancemanagement.benchmark;
+
+import com.example.attendancemanagement.service.AttendanceCounterService;
+import com.example.attendancemanagement.service.AttendanceLedgerService;
+import com.example.attendancemanagement.service.AttendanceRollupService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+// Deterministic dataset: the same settings and seed always produce the same rows.
+// Sizes come from -Ddataset.students, -Ddataset.courses, -Ddataset.years and -Ddataset.seed.
+final class SyntheticDataset {
+
+    static final int[] LECTURE_SIZES = {50, 300, 1000};
+
+    private static final int COURSES_PER_STUDENT = 5;
+    private static final int LECTURE_DAYS_PER_YEAR = 60;
+    private static final double PRESENT_RATE = 0.85;
+    private static final int BATCH_SIZE = 1000;
+
+    final int students;
+    final int courses;
+    final int years;
+    final long seed;
+
+    // Teacher that owns the regular courses used by the report benchmarks
+    long reportTeacherId;
+    // Teacher that owns the lecture courses used by the marking benchmark
+    long lectureTeacherId;
+    final List<Long> studentIds = new ArrayList<>();
+    final List<long[]> enrollments = new ArrayList<>();
+    final Map<Integer, Long> lectureCourseIds = new HashMap<>();
+    long attendanceRows;
+
+    private SyntheticDataset(int students, int courses, int years, long seed) {
+        this.students = students;
+        this.courses = courses;
+        this.years = years;
+        this.seed = seed;
+    }
+
+    static SyntheticDataset fromSystemProperties() {
+        return new SyntheticDataset(
+                Integer.getInteger("dataset.students", 1000),
+                Integer.getInteger("dataset.courses", 40),
+                Integer.getInteger("dataset.years", 1),
+                Long.getLong("dataset.seed", 42L));
+    }
+
+    SyntheticDataset load(ApplicationContext context) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Random random = new Random(seed);
+        int teachers = Math.max(1, courses / 4);
+
+        // Users: ids are assigned here so the other tables can reference them directly
+        List<Object[]> users = new ArrayList<>();
+        long nextUserId = 1;
+        users.add(new Object[]{nextUserId++, "admin", "admin", "Admin"});
+        List<Long> teacherIds = new ArrayList<>();
+        for (int i = 0; i < teachers; i++) {
+            teacherIds.add(nextUserId);
+            users.add(new Object[]{nextUserId++, "teacher-" + i, "password", "Teacher"});
+        }
+        lectureTeacherId = nextUserId;
+        users.add(new Object[]{nextUserId++, "lecturer", "password", "Teacher"});
+        for (int i = 0; i < students; i++) {
+            studentIds.add(nextUserId);
+            users.add(new Object[]{nextUserId++, "student-" + i, "password", "Student"});
+        }
+        jdbc.batchUpdate("insert into user (id, username, password, role) values (?, ?, ?, ?)", users);
+        reportTeacherId = teacherIds.get(0);
+
+        // Regular courses round-robin over the teachers, plus one lecture course per marking size
+        List<Object[]> courseRows = new ArrayList<>();
+        long nextCourseId = 1;
+        for (int i = 0; i < courses; i++) {
+            courseRows.add(new Object[]{nextCourseId++, "course-" + i, teacherIds.get(i % teachers)});
+        }
+        for (int size : LECTURE_SIZES) {
+            lectureCourseIds.put(size, nextCourseId);
+            courseRows.add(new Object[]{nextCourseId++, "lecture-" + size, lectureTeacherId});
+        }
+        jdbc.batchUpdate("insert into course (id, name, teacher_id) values (?, ?, ?)", courseRows);
+
+        // Each student takes a few random regular courses; lecture courses take the first N students
+        Map<Long, List<Long>> rosters = new LinkedHashMap<>();
+        for (long studentId : studentIds) {
+            Set<Long> picked = new LinkedHashSet<>();
+            while (picked.size() < Math.min(COURSES_PER_STUDENT, courses)) {
+                picked.add(1L + random.nextInt(courses));
+            }
+            for (long courseId : picked) {
+                enrollments.add(new long[]{studentId, courseId});
+                rosters.computeIfAbsent(courseId, id -> new ArrayList<>()).add(studentId);
+            }
+        }
+        List<long[]> allEnrollments = new ArrayList<>(enrollments);
+        lectureCourseIds.forEach((size, courseId) -> studentIds.stream().limit(size)
+                .forEach(studentId -> allEnrollments.add(new long[]{studentId, courseId})));
+        jdbc.batchUpdate("insert into enrollment (student_id, course_id) values (?, ?)", allEnrollments, BATCH_SIZE,
+                (ps, enrollment) -> {
+                    ps.setLong(1, enrollment[0]);
+                    ps.setLong(2, enrollment[1]);
+                });
+
+        // Attendance history of the regular courses, ending yesterday
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        int lectureDays = LECTURE_DAYS_PER_YEAR * years;
+        int daysBetweenLectures = Math.max(1, 365 / LECTURE_DAYS_PER_YEAR);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (Map.Entry<Long, List<Long>> roster : rosters.entrySet()) {
+            for (int day = 0; day < lectureDays; day++) {
+                Date date = Date.valueOf(yesterday.minusDays((long) day * daysBetweenLectures));
+                for (long studentId : roster.getValue()) {
+                    String status = random.nextDouble() < PRESENT_RATE ? "Present" : "Absent";
+                    batch.add(new Object[]{roster.getKey(), studentId, date, status});
+                    if (batch.size() == BATCH_SIZE) {
+                        attendanceRows += flushAttendance(jdbc, batch);
+                    }
+                }
+            }
+        }
+        attendanceRows += flushAttendance(jdbc, batch);
+
+        // Identity columns do not move past explicit ids in H2
+        jdbc.execute("alter table user alter column id restart with " + nextUserId);
+        jdbc.execute("alter table course alter column id restart with " + nextCourseId);
+
+        context.getBean(AttendanceCounterService.class).rebuild();
+        context.getBean(AttendanceLedgerService.class).rebuild();
+        // The history ends yesterday, which is all the reconciliation covers
+        context.getBean(AttendanceRollupService.class).reconcile();
+        return this;
+    }
+
+    long[] enrollment(int index) {
+        return enrollments.get(Math.floorMod(index, enrollments.size()));
+    }
+
+    private static int flushAttendance(JdbcTemplate jdbc, List<Object[]> batch) {
+        int rows = batch.size();
+        if (rows > 0) {
+            jdbc.batchUpdate("insert into attendance (course_id, student_id, date, status) values (?, ?, ?, ?)", batch);
+            batch.clear();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.attendancemanagement.archive;
+
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.entity.Attendance;
+import com.example.attendancemanagement.entity.Course;
+import com.example.attendancemanagement.entity.User;
+
+import java.time.LocalDate;
+
+// An attendance row as it is kept in a segment, with the id it had in the attendance table
+public record ArchivedAttendance(long id, long courseId, long studentId, LocalDate date, String status) {
+
+    public MarkedAttendance toMarked() {
+        return new MarkedAttendance(courseId, studentId, date, status);
+    }
+
+    // A detached entity shaped like the row it was in the attendance table, for responses that list entities
+    public Attendance toAttendance(Course course, User student) {
+        Attendance attendance = new Attendance();
+        attendance.setId(id);
+        attendance.setCourse(course);
+        attendance.setStudent(student);
+        attendance.setDate(date);
+        attendance.setStatus(status);
+        return attendance;
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.attendancemanagement.archive;
+
+import com.example.attendancemanagement.ledger.AttendanceTerm;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+// The cold tier of the attendance table: one segment file per archived term in a local directory.
+// Every term before hotFrom() is served from here and no longer from the attendance table. Which
+// terms are archived is recorded in the attendance_archive_segment table, shared by all instances
+// like the attendance table the rows were deleted from; a read that needs a catalogued term whose
+// segment is not in this instance's directory fails instead of leaving its rows out.
+// Decoded blocks read for one course or student are kept in a cache bounded by their row count;
+// report scans over whole months read around it so they do not push those out.
+@Component
+public class AttendanceArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceArchive.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String PARTIAL_SUFFIX = ".partial";
+
+    private static final String CATALOGUED_TERMS = "select term_start from attendance_archive_segment order by term_start";
+
+    private static final String LAST_CATALOGUED_DAY = "select max(term_end) from attendance_archive_segment";
+
+    private static final String IS_CATALOGUED = "select count(*) from attendance_archive_segment where term_start = ?";
+
+    private static final String CATALOGUE_SEGMENT =
+            "insert into attendance_archive_segment (term_start, term_end, max_id, row_count) values (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${attendance.archive.directory:data/attendance-archive}")
+    private Path directory;
+
+    @Value("${attendance.archive.block-cache-rows:500000}")
+    private long blockCacheRows;
+
+    // By first day of the term
+    private final ConcurrentSkipListMap<LocalDate, AttendanceSegment> segments = new ConcurrentSkipListMap<>();
+
+    private record BlockKey(LocalDate term, int index) {
+    }
+
+    private Cache<BlockKey, AttendanceSegment.Block> blocks;
+
+    @PostConstruct
+    void init() throws IOException {
+        blocks = Caffeine.newBuilder()
+                .maximumWeight(blockCacheRows)
+                .weigher((BlockKey key, AttendanceSegment.Block block) -> block.rows())
+                .recordStats()
+                .build();
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(PARTIAL_SUFFIX)) {
+                    // Left behind by an archive run that stopped before publishing it; its rows are still hot
+                    Files.delete(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    AttendanceSegment segment = AttendanceSegment.open(file);
+                    segments.put(segment.term().start(), segment);
+                }
+            }
+        }
+        if (!segments.isEmpty()) {
+            log.info("Found {} archived terms in {}", segments.size(), directory);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        for (AttendanceSegment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    // First day still read from the attendance table, or null when nothing is archived. From the
+    // catalog, not the local segments: another instance may have archived a term this one has no file for.
+    public LocalDate hotFrom() {
+        Date last = jdbcTemplate.queryForObject(LAST_CATALOGUED_DAY, Date.class);
+        return last == null ? null : last.toLocalDate().plusDays(1);
+    }
+
+    // The term's segment in this instance's directory, catalogued or not
+    public Optional<AttendanceSegment> segment(AttendanceTerm term) {
+        return Optional.ofNullable(segments.get(term.start()));
+    }
+
+    public boolean isCatalogued(AttendanceTerm term) {
+        return jdbcTemplate.queryForObject(IS_CATALOGUED, Long.class, Date.valueOf(term.start())) > 0;
+    }
+
+    // Records a published segment in the catalog, which moves hotFrom past its term on every instance
+    public void catalogue(AttendanceSegment segment) {
+        jdbcTemplate.update(CATALOGUE_SEGMENT, Date.valueOf(segment.term().start()), Date.valueOf(segment.term().end()),
+                segment.maxId(), segment.rows());
+    }
+
+    public Collection<AttendanceSegment> segments() {
+        return Collections.unmodifiableCollection(segments.values());
+    }
+
+    // Where a segment is written before publish() makes it visible
+    public Path partialFile(AttendanceTerm term) {
+        return directory.resolve(fileName(term) + PARTIAL_SUFFIX);
+    }
+
+    // Renames the finished file into place and catalogues it, from when on the term is served from it
+    public AttendanceSegment publish(AttendanceTerm term, Path partial) throws IOException {
+        Path file = Files.move(partial, directory.resolve(fileName(term) + SEGMENT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        AttendanceSegment segment = AttendanceSegment.open(file);
+        segments.put(term.start(), segment);
+        catalogue(segment);
+        return segment;
+    }
+
+    // Archived rows of one course within the dates (null bounds are not applied), by term and month
+    public List<ArchivedAttendance> courseRows(long courseId, LocalDate from, LocalDate to) {
+        List<ArchivedAttendance> rows = new ArrayList<>();
+        for (AttendanceSegment segment : overlapping(from, to)) {
+            for (AttendanceSegment.BlockRef ref : segment.blocks()) {
+                if (ref.courseId() == courseId && overlaps(ref.month(), from, to)) {
+                    collect(block(segment, ref, true), from, to, null, rows);
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Archived rows of one student within the dates, optionally of one course only. Only the blocks of
+    // the courses the student has rows in are read.
+    public List<ArchivedAttendance> studentRows(long studentId, LocalDate from, LocalDate to, Long courseId) {
+        List<ArchivedAttendance> rows = new ArrayList<>();
+        for (AttendanceSegment segment : overlapping(from, to)) {
+            long[] courseIds = segment.coursesOf(studentId);
+            if (courseIds.length == 0) {
+                continue;
+            }
+            Set<Long> courses = new HashSet<>();
+            for (long id : courseIds) {
+                courses.add(id);
+            }
+            for (AttendanceSegment.BlockRef ref : segment.blocks()) {
+                if (courses.contains(ref.courseId()) && (courseId == null || ref.courseId() == courseId)
+                        && overlaps(ref.month(), from, to)) {
+                    collect(block(segment, ref, true), from, to, studentId, rows);
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Archived rows within the dates, optionally of one course, one month at a time in date order.
+    // Each month's rows are sorted by date and id; only the month being consumed is in memory.
+    public Stream<List<ArchivedAttendance>> monthsOf(LocalDate from, LocalDate to, Long courseId) {
+        return overlapping(from, to).stream().flatMap(segment -> {
+            Map<YearMonth, List<AttendanceSegment.BlockRef>> months = new TreeMap<>();
+            for (AttendanceSegment.BlockRef ref : segment.blocks()) {
+                if ((courseId == null || ref.courseId() == courseId) && overlaps(ref.month(), from, to)) {
+                    months.computeIfAbsent(ref.month(), month -> new ArrayList<>()).add(ref);
+                }
+            }
+            return months.values().stream().map(refs -> {
+                List<ArchivedAttendance> rows = new ArrayList<>();
+                for (AttendanceSegment.BlockRef ref : refs) {
+                    collect(block(segment, ref, false), from, to, null, rows);
+                }
+                rows.sort(Comparator.comparing(ArchivedAttendance::date).thenComparingLong(ArchivedAttendance::id));
+                return rows;
+            });
+        });
+    }
+
+    // Every archived row, one term and course at a time, sorted by student, date and id. For rebuilds
+    // of the derived tables; reads around the block cache like the month scans.
+    public Stream<List<ArchivedAttendance>> courseTerms() {
+        return overlapping(null, null).stream().flatMap(segment -> {
+            Map<Long, List<AttendanceSegment.BlockRef>> courses = new TreeMap<>();
+            for (AttendanceSegment.BlockRef ref : segment.blocks()) {
+                courses.computeIfAbsent(ref.courseId(), id -> new ArrayList<>()).add(ref);
+            }
+            return courses.values().stream().map(refs -> {
+                List<ArchivedAttendance> rows = new ArrayList<>();
+                for (AttendanceSegment.BlockRef ref : refs) {
+                    collect(block(segment, ref, false), null, null, null, rows);
+                }
+                rows.sort(Comparator.comparingLong(ArchivedAttendance::studentId)
+                        .thenComparing(ArchivedAttendance::date).thenComparingLong(ArchivedAttendance::id));
+                return rows;
+            });
+        });
+    }
+
+    public boolean isEmpty() {
+        return hotFrom() == null;
+    }
+
+    public Map<String, Object> stats() {
+        List<Map<String, Object>> terms = new ArrayList<>();
+        long rows = 0;
+        long bytes = 0;
+        for (AttendanceSegment segment : segments.values()) {
+            long size = size(segment);
+            Map<String, Object> term = new LinkedHashMap<>();
+            term.put("termStart", segment.term().start());
+            term.put("rows", segment.rows());
+            term.put("bytes", size);
+            term.put("blocks", segment.blocks().size());
+            term.put("students", segment.students());
+            terms.add(term);
+            rows += segment.rows();
+            bytes += size;
+        }
+        CacheStats cacheStats = blocks.stats();
+        Map<String, Object> cache = new LinkedHashMap<>();
+        cache.put("rows", blocks.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+        cache.put("hits", cacheStats.hitCount());
+        cache.put("misses", cacheStats.missCount());
+        cache.put("hitRate", cacheStats.hitRate());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hotFrom", hotFrom());
+        stats.put("missingTerms", cataloguedTerms().stream().filter(term -> !segments.containsKey(term.start()))
+                .map(AttendanceTerm::start).toList());
+        stats.put("rows", rows);
+        stats.put("bytes", bytes);
+        stats.put("terms", terms);
+        stats.put("blockCache", cache);
+        return stats;
+    }
+
+    // The catalogued terms within the dates, each of which has to have its segment here
+    private List<AttendanceSegment> overlapping(LocalDate from, LocalDate to) {
+        List<AttendanceSegment> overlapping = new ArrayList<>();
+        for (AttendanceTerm term : cataloguedTerms()) {
+            if ((from == null || !term.end().isBefore(from)) && (to == null || !term.start().isAfter(to))) {
+                AttendanceSegment segment = segments.get(term.start());
+                if (segment == null) {
+                    throw new IllegalStateException("The attendance of the term starting " + term.start()
+                            + " is archived, but its segment is not in " + directory + " on this instance.");
+                }
+                overlapping.add(segment);
+            }
+        }
+        return overlapping;
+    }
+
+    private List<AttendanceTerm> cataloguedTerms() {
+        return jdbcTemplate.queryForList(CATALOGUED_TERMS, Date.class).stream()
+                .map(start -> AttendanceTerm.of(start.toLocalDate()))
+                .toList();
+    }
+
+    private static boolean overlaps(YearMonth month, LocalDate from, LocalDate to) {
+        return (from == null || !month.atEndOfMonth().isBefore(from)) && (to == null || !month.atDay(1).isAfter(to));
+    }
+
+    private static void collect(AttendanceSegment.Block block, LocalDate from, LocalDate to, Long studentId,
+                                List<ArchivedAttendance> rows) {
+        for (int i = 0; i < block.rows(); i++) {
+            LocalDate date = block.dates()[i];
+            if ((from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to))
+                    && (studentId == null || block.studentIds()[i] == studentId)) {
+                rows.add(block.row(i));
+            }
+        }
+    }
+
+    private AttendanceSegment.Block block(AttendanceSegment segment, AttendanceSegment.BlockRef ref, boolean cached) {
+        if (!cached) {
+            AttendanceSegment.Block block = blocks.getIfPresent(new BlockKey(segment.term().start(), ref.index()));
+            return block != null ? block : read(segment, ref);
+        }
+        return blocks.get(new BlockKey(segment.term().start(), ref.index()), key -> read(segment, ref));
+    }
+
+    private static AttendanceSegment.Block read(AttendanceSegment segment, AttendanceSegment.BlockRef ref) {
+        try {
+            return segment.read(ref);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + segment.path(), e);
+        }
+    }
+
+    private static long size(AttendanceSegment segment) {
+        try {
+            return segment.bytes();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static String fileName(AttendanceTerm term) {
+        return "attendance-" + term.start();
+    }
+}
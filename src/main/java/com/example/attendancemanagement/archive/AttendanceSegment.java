@@ -0,0 +1,373 @@
+package com.example.attendancemanagement.archive;
+
+import com.example.attendancemanagement.ledger.AttendanceTerm;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.ToLongFunction;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Immutable file holding the archived attendance of one term, column by column and deflated.
+// Rows are cut into blocks of one course and one month, sorted by date and id inside a block:
+//   header   magic, version, first day of the term
+//   blocks   row count, then the columns: day of month, status (index into the segment's
+//            dictionary), student id and attendance id (both as zigzag varint deltas)
+//   footer   max id, row count, status dictionary, block directory (course, month, offset,
+//            length, rows) and, per student, the courses the student has rows in
+//   trailer  footer offset and length, magic
+// The footer is read once when the segment is opened; blocks are read on demand.
+public final class AttendanceSegment implements Closeable {
+
+    private static final int MAGIC = 0x41545347;
+    private static final int VERSION = 1;
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private final Path path;
+    private final AttendanceTerm term;
+    private final FileChannel channel;
+    private final long maxId;
+    private final long rows;
+    private final String[] statuses;
+    private final List<BlockRef> blocks;
+    private final Map<Long, long[]> coursesByStudent;
+
+    private AttendanceSegment(Path path, AttendanceTerm term, FileChannel channel, long maxId, long rows,
+                              String[] statuses, List<BlockRef> blocks, Map<Long, long[]> coursesByStudent) {
+        this.path = path;
+        this.term = term;
+        this.channel = channel;
+        this.maxId = maxId;
+        this.rows = rows;
+        this.statuses = statuses;
+        this.blocks = blocks;
+        this.coursesByStudent = coursesByStudent;
+    }
+
+    // Where one block sits in the file
+    public record BlockRef(int index, long courseId, YearMonth month, long offset, int length, int rows) {
+    }
+
+    // A decoded block; dates and statuses point into shared per-block and per-segment tables
+    public record Block(long courseId, long[] ids, long[] studentIds, LocalDate[] dates, String[] statuses) {
+
+        public int rows() {
+            return ids.length;
+        }
+
+        public ArchivedAttendance row(int i) {
+            return new ArchivedAttendance(ids[i], courseId, studentIds[i], dates[i], statuses[i]);
+        }
+    }
+
+    public static AttendanceSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(read(channel, 0, 16)));
+            if (size < 16 + TRAILER_BYTES || header.readInt() != MAGIC || header.readInt() != VERSION) {
+                throw new IOException(path + " is not an attendance segment");
+            }
+            AttendanceTerm term = new AttendanceTerm(LocalDate.ofEpochDay(header.readLong()));
+
+            DataInputStream trailer = new DataInputStream(new ByteArrayInputStream(read(channel, size - TRAILER_BYTES, TRAILER_BYTES)));
+            long footerOffset = trailer.readLong();
+            int footerLength = trailer.readInt();
+            if (trailer.readInt() != MAGIC) {
+                throw new IOException(path + " was not written to the end");
+            }
+
+            try (DataInputStream footer = inflate(read(channel, footerOffset, footerLength))) {
+                long maxId = footer.readLong();
+                long rows = footer.readLong();
+                String[] statuses = new String[footer.readInt()];
+                for (int i = 0; i < statuses.length; i++) {
+                    statuses[i] = footer.readBoolean() ? footer.readUTF() : null;
+                }
+                int blockCount = footer.readInt();
+                List<BlockRef> blocks = new ArrayList<>(blockCount);
+                for (int i = 0; i < blockCount; i++) {
+                    blocks.add(new BlockRef(i, footer.readLong(), YearMonth.of(footer.readInt(), footer.readInt()),
+                            footer.readLong(), footer.readInt(), footer.readInt()));
+                }
+                int studentCount = footer.readInt();
+                Map<Long, long[]> coursesByStudent = new HashMap<>(studentCount * 2);
+                for (int i = 0; i < studentCount; i++) {
+                    long studentId = footer.readLong();
+                    long[] courseIds = new long[footer.readInt()];
+                    for (int c = 0; c < courseIds.length; c++) {
+                        courseIds[c] = footer.readLong();
+                    }
+                    coursesByStudent.put(studentId, courseIds);
+                }
+                return new AttendanceSegment(path, term, channel, maxId, rows, statuses, List.copyOf(blocks), coursesByStudent);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public AttendanceTerm term() {
+        return term;
+    }
+
+    // Highest attendance id archived here; rows of the term above it were not part of the archive run
+    public long maxId() {
+        return maxId;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public long bytes() throws IOException {
+        return channel.size();
+    }
+
+    public List<BlockRef> blocks() {
+        return blocks;
+    }
+
+    public int students() {
+        return coursesByStudent.size();
+    }
+
+    public long[] coursesOf(long studentId) {
+        return coursesByStudent.getOrDefault(studentId, new long[0]);
+    }
+
+    public Block read(BlockRef ref) throws IOException {
+        try (DataInputStream in = inflate(read(channel, ref.offset(), ref.length()))) {
+            int count = in.readInt();
+            LocalDate[] days = new LocalDate[ref.month().lengthOfMonth() + 1];
+            LocalDate[] dates = new LocalDate[count];
+            for (int i = 0; i < count; i++) {
+                int day = in.readUnsignedByte();
+                if (days[day] == null) {
+                    days[day] = ref.month().atDay(day);
+                }
+                dates[i] = days[day];
+            }
+            String[] rowStatuses = new String[count];
+            for (int i = 0; i < count; i++) {
+                rowStatuses[i] = statuses[(int) readVarLong(in)];
+            }
+            long[] studentIds = readDeltas(in, count);
+            long[] ids = readDeltas(in, count);
+            return new Block(ref.courseId(), ids, studentIds, dates, rowStatuses);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Attendance segment ends before byte " + (position + length));
+            }
+        }
+        return buffer.array();
+    }
+
+    private static DataInputStream inflate(byte[] bytes) {
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    private static long[] readDeltas(DataInputStream in, int count) throws IOException {
+        long[] values = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = readVarLong(in);
+            previous += (delta >>> 1) ^ -(delta & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    // Writes a new segment file. Rows have to come ordered by course, date and id, all within the term.
+    public static final class Writer implements Closeable {
+
+        private final AttendanceTerm term;
+        private final FileOutputStream file;
+        private final OutputStream out;
+        private long position;
+
+        private final Map<String, Integer> statusIndexes = new LinkedHashMap<>();
+        private final List<BlockRef> blocks = new ArrayList<>();
+        private final Map<Long, Set<Long>> coursesByStudent = new TreeMap<>();
+        private final List<ArchivedAttendance> block = new ArrayList<>();
+        private long maxId;
+        private long rows;
+
+        public Writer(Path path, AttendanceTerm term) throws IOException {
+            this.term = term;
+            this.file = new FileOutputStream(path.toFile());
+            this.out = new BufferedOutputStream(file, 1 << 16);
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(header);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeLong(term.start().toEpochDay());
+            write(header.toByteArray());
+        }
+
+        public void add(ArchivedAttendance row) throws IOException {
+            if (row.date().isBefore(term.start()) || row.date().isAfter(term.end())) {
+                throw new IllegalArgumentException(row.date() + " is not in the term starting " + term.start());
+            }
+            if (!block.isEmpty()) {
+                ArchivedAttendance last = block.get(block.size() - 1);
+                if (last.courseId() != row.courseId() || !YearMonth.from(last.date()).equals(YearMonth.from(row.date()))) {
+                    flushBlock();
+                }
+            }
+            block.add(row);
+            coursesByStudent.computeIfAbsent(row.studentId(), id -> new LinkedHashSet<>()).add(row.courseId());
+            maxId = Math.max(maxId, row.id());
+            rows++;
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        // Writes the footer and syncs the file; the segment can be opened afterwards
+        public void finish() throws IOException {
+            flushBlock();
+            Deflated deflated = new Deflated();
+            DataOutputStream footer = deflated.out;
+            footer.writeLong(maxId);
+            footer.writeLong(rows);
+            footer.writeInt(statusIndexes.size());
+            for (String status : statusIndexes.keySet()) {
+                // The status column is nullable
+                footer.writeBoolean(status != null);
+                if (status != null) {
+                    footer.writeUTF(status);
+                }
+            }
+            footer.writeInt(blocks.size());
+            for (BlockRef ref : blocks) {
+                footer.writeLong(ref.courseId());
+                footer.writeInt(ref.month().getYear());
+                footer.writeInt(ref.month().getMonthValue());
+                footer.writeLong(ref.offset());
+                footer.writeInt(ref.length());
+                footer.writeInt(ref.rows());
+            }
+            footer.writeInt(coursesByStudent.size());
+            for (Map.Entry<Long, Set<Long>> student : coursesByStudent.entrySet()) {
+                footer.writeLong(student.getKey());
+                footer.writeInt(student.getValue().size());
+                for (Long courseId : student.getValue()) {
+                    footer.writeLong(courseId);
+                }
+            }
+            long footerOffset = position;
+            byte[] footerBytes = deflated.finish();
+            write(footerBytes);
+
+            ByteArrayOutputStream trailer = new ByteArrayOutputStream(TRAILER_BYTES);
+            DataOutputStream data = new DataOutputStream(trailer);
+            data.writeLong(footerOffset);
+            data.writeInt(footerBytes.length);
+            data.writeInt(MAGIC);
+            write(trailer.toByteArray());
+            out.flush();
+            file.getFD().sync();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void flushBlock() throws IOException {
+            if (block.isEmpty()) {
+                return;
+            }
+            block.sort(Comparator.comparing(ArchivedAttendance::date).thenComparingLong(ArchivedAttendance::id));
+            Deflated deflated = new Deflated();
+            DataOutputStream data = deflated.out;
+            data.writeInt(block.size());
+            for (ArchivedAttendance row : block) {
+                data.writeByte(row.date().getDayOfMonth());
+            }
+            for (ArchivedAttendance row : block) {
+                writeVarLong(data, statusIndexes.computeIfAbsent(row.status(), status -> statusIndexes.size()));
+            }
+            writeDeltas(data, block, ArchivedAttendance::studentId);
+            writeDeltas(data, block, ArchivedAttendance::id);
+
+            byte[] bytes = deflated.finish();
+            ArchivedAttendance first = block.get(0);
+            blocks.add(new BlockRef(blocks.size(), first.courseId(), YearMonth.from(first.date()), position, bytes.length, block.size()));
+            write(bytes);
+            block.clear();
+        }
+
+        private static void writeDeltas(DataOutputStream data, List<ArchivedAttendance> rows,
+                                        ToLongFunction<ArchivedAttendance> column) throws IOException {
+            long previous = 0;
+            for (ArchivedAttendance row : rows) {
+                long value = column.applyAsLong(row);
+                long delta = value - previous;
+                writeVarLong(data, (delta << 1) ^ (delta >> 63));
+                previous = value;
+            }
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+            position += bytes.length;
+        }
+    }
+
+    // One block or footer being deflated in memory
+    private static final class Deflated {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater));
+
+        byte[] finish() throws IOException {
+            out.close();
+            deflater.end();
+            return bytes.toByteArray();
+        }
+    }
+}
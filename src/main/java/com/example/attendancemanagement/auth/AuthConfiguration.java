@@ -0,0 +1,19 @@
+package com.example.attendancemanagement.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AuthConfiguration {
+
+    @Bean
+    FilterRegistrationBean<TokenAuthenticationFilter> tokenAuthenticationFilter(
+            TokenService tokenService, @Value("${attendance.auth.allowed-origin:http://127.0.0.1:5500}") String allowedOrigin) {
+        FilterRegistrationBean<TokenAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(new TokenAuthenticationFilter(tokenService, allowedOrigin));
+        registration.addUrlPatterns("/api/admin/*", "/api/teacher/*", "/api/student/*");
+        return registration;
+    }
+}
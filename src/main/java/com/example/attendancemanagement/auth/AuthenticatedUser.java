@@ -0,0 +1,9 @@
+package com.example.attendancemanagement.auth;
+
+import com.example.attendancemanagement.entity.User;
+
+// Caller identity taken from a verified token, available to handlers as a request attribute
+public record AuthenticatedUser(Long id, User.Role role, long issuedAt, long expiresAt) {
+
+    public static final String ATTRIBUTE = "attendance.authenticatedUser";
+}
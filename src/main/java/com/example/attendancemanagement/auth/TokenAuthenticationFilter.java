@@ -0,0 +1,102 @@
+package com.example.attendancemanagement.auth;
+
+import com.example.attendancemanagement.entity.User;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+// Verifies the bearer token of every /api/admin, /api/teacher and /api/student request and checks
+// that its role matches the path. The caller is passed on as the AuthenticatedUser request attribute.
+// The attendance feeds also accept a feed token in the feedToken query parameter, because the
+// browser's EventSource cannot send an Authorization header.
+class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private static final String FEED_TOKEN_PARAMETER = "feedToken";
+    private static final String FEED_SUFFIX = "/attendanceFeed";
+
+    private static final Map<String, User.Role> ROLE_BY_PREFIX = Map.of(
+            "/api/admin/", User.Role.Admin,
+            "/api/teacher/", User.Role.Teacher,
+            "/api/student/", User.Role.Student);
+
+    private final TokenService tokenService;
+    private final String allowedOrigin;
+
+    TokenAuthenticationFilter(TokenService tokenService, String allowedOrigin) {
+        this.tokenService = tokenService;
+        this.allowedOrigin = allowedOrigin;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // CORS preflight requests never carry the token
+        return HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        User.Role required = requiredRole(path);
+        if (required == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        Optional<AuthenticatedUser> user;
+        if (header != null && header.startsWith(BEARER)) {
+            user = tokenService.verify(header.substring(BEARER.length()).trim());
+        } else if (header == null && HttpMethod.GET.matches(request.getMethod()) && path.endsWith(FEED_SUFFIX)) {
+            user = tokenService.verifyFeed(request.getParameter(FEED_TOKEN_PARAMETER));
+        } else {
+            user = Optional.empty();
+        }
+        if (user.isEmpty()) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            reject(request, response, HttpStatus.UNAUTHORIZED, "Missing, invalid or expired token.");
+            return;
+        }
+        if (user.get().role() != required) {
+            reject(request, response, HttpStatus.FORBIDDEN, "This endpoint is not available to " + user.get().role() + " users.");
+            return;
+        }
+
+        request.setAttribute(AuthenticatedUser.ATTRIBUTE, user.get());
+        chain.doFilter(request, response);
+    }
+
+    private static User.Role requiredRole(String path) {
+        for (Map.Entry<String, User.Role> entry : ROLE_BY_PREFIX.entrySet()) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    // The handlers' @CrossOrigin does not run for rejected requests, so let the frontend read the error
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        if (allowedOrigin.equals(request.getHeader(HttpHeaders.ORIGIN))) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, allowedOrigin);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ORIGIN);
+        }
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(message);
+    }
+}
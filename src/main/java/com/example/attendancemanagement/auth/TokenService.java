@@ -0,0 +1,144 @@
+package com.example.attendancemanagement.auth;
+
+import com.example.attendancemanagement.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+// Issues and verifies compact signed tokens: base64url("id.role.issuedAt.expiresAt") + "." + base64url(HMAC-SHA256).
+// Verification needs no database access. Feed tokens carry a fifth "feed" field; they are short-lived,
+// only accepted on the attendance feeds, and a session token is never accepted in their place or vice versa. Revocation is per user and in memory: tokens issued
+// before the user was changed or deleted are refused until they would have expired anyway.
+@Service
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final String FEED_SCOPE = "feed";
+
+    @Value("${attendance.auth.secret:}")
+    private String secret;
+
+    @Value("${attendance.auth.token-ttl:PT12H}")
+    private Duration tokenTtl;
+
+    @Value("${attendance.auth.feed-token-ttl:PT1M}")
+    private Duration feedTokenTtl;
+
+    private Mac prototype;
+
+    // User id -> time before which that user's tokens are refused; an entry is only needed for one token lifetime
+    private Cache<Long, Long> revokedBefore;
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            log.warn("attendance.auth.secret is not set; using a random key, so tokens will not survive a restart");
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        prototype = Mac.getInstance(ALGORITHM);
+        prototype.init(new SecretKeySpec(key, ALGORITHM));
+        revokedBefore = Caffeine.newBuilder().expireAfterWrite(tokenTtl).build();
+    }
+
+    public String issue(Long userId, User.Role role) {
+        return issue(userId, role, tokenTtl, null);
+    }
+
+    // For the attendance feeds, which browsers open with EventSource and so cannot send a header:
+    // the token goes in the feed URL, where it can end up in logs, hence the short lifetime
+    public String issueFeed(Long userId, User.Role role) {
+        return issue(userId, role, feedTokenTtl, FEED_SCOPE);
+    }
+
+    public Duration feedTokenTtl() {
+        return feedTokenTtl;
+    }
+
+    public Optional<AuthenticatedUser> verify(String token) {
+        return verify(token, null);
+    }
+
+    public Optional<AuthenticatedUser> verifyFeed(String token) {
+        return verify(token, FEED_SCOPE);
+    }
+
+    private String issue(Long userId, User.Role role, Duration ttl, String scope) {
+        long issuedAt = System.currentTimeMillis();
+        String payload = userId + "." + role.name() + "." + issuedAt + "." + (issuedAt + ttl.toMillis())
+                + (scope == null ? "" : "." + scope);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    private Optional<AuthenticatedUser> verify(String token, String scope) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot < 1 || dot != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payloadBytes))) {
+                return Optional.empty();
+            }
+
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\.");
+            if (scope == null ? fields.length != 4 : fields.length != 5 || !fields[4].equals(scope)) {
+                return Optional.empty();
+            }
+            AuthenticatedUser user = new AuthenticatedUser(Long.valueOf(fields[0]), User.Role.valueOf(fields[1]),
+                    Long.parseLong(fields[2]), Long.parseLong(fields[3]));
+            if (user.expiresAt() <= System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            Long revoked = revokedBefore.getIfPresent(user.id());
+            if (revoked != null && user.issuedAt() <= revoked) {
+                return Optional.empty();
+            }
+            return Optional.of(user);
+        } catch (IllegalArgumentException e) {
+            // Not base64, not a number or not a role
+            return Optional.empty();
+        }
+    }
+
+    // Refuses every token the user holds now; tokens issued by a later login are accepted
+    public void revoke(Long userId) {
+        revokedBefore.put(userId, System.currentTimeMillis());
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            // A Mac is not thread safe, a clone of the initialised prototype is cheap
+            return ((Mac) prototype.clone()).doFinal(payload);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " cannot be cloned", e);
+        }
+    }
+}
@@ -1,24 +1,60 @@
 package com.example.attendancemanagement.controller;
 
-import com.example.attendancemanagement.entity.Attendance;
+import com.example.attendancemanagement.auth.AuthenticatedUser;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.dto.CourseAttendanceTotals;
+import com.example.attendancemanagement.dto.CourseSummary;
+import com.example.attendancemanagement.dto.DailyAttendanceTotals;
+import com.example.attendancemanagement.dto.DeletionJob;
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.dto.UserSummary;
 import com.example.attendancemanagement.entity.Course;
 import com.example.attendancemanagement.entity.Enrollment;
 import com.example.attendancemanagement.entity.User;
 import com.example.attendancemanagement.repository.AttendanceRepository;
 import com.example.attendancemanagement.repository.CourseRepository;
 import com.example.attendancemanagement.repository.EnrollmentRepository;
+import com.example.attendancemanagement.repository.ListSpecifications;
 import com.example.attendancemanagement.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.example.attendancemanagement.routing.ReadsFromPrimary;
+import com.example.attendancemanagement.service.AttendanceArchiveService;
+import com.example.attendancemanagement.service.AttendanceCounterService;
+import com.example.attendancemanagement.service.AttendanceFeedService;
+import com.example.attendancemanagement.service.AttendanceLedgerService;
+import com.example.attendancemanagement.service.AttendanceReportService;
+import com.example.attendancemanagement.service.AttendanceRollupService;
+import com.example.attendancemanagement.service.BulkImportService;
+import com.example.attendancemanagement.service.CascadeDeletionService;
+import com.example.attendancemanagement.service.EntityCacheService;
+import com.example.attendancemanagement.service.MarkedStudentsIndex;
+import com.example.attendancemanagement.service.NameCache;
+import com.example.attendancemanagement.service.NdjsonExportService;
+import com.example.attendancemanagement.service.RosterSnapshotService;
+import com.example.attendancemanagement.service.TableVersions;
+import com.example.attendancemanagement.service.TableVersions.Table;
+import com.example.attendancemanagement.snapshot.RosterSnapshot;
 import org.antlr.v4.runtime.tree.pattern.ParseTreePattern;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 
 @RestController
@@ -36,6 +72,54 @@ public class AdminController {
     @Autowired
     private AttendanceRepository attendanceRepository;
 
+    @Autowired
+    private AttendanceReportService attendanceReportService;
+
+    @Autowired
+    private AttendanceCounterService attendanceCounterService;
+
+    @Autowired
+    private AttendanceLedgerService attendanceLedgerService;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private NdjsonExportService ndjsonExportService;
+
+    @Autowired
+    private NameCache nameCache;
+
+    @Autowired
+    private MarkedStudentsIndex markedStudentsIndex;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private CascadeDeletionService cascadeDeletionService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private AttendanceFeedService attendanceFeedService;
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private RosterSnapshotService rosterSnapshotService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @PostMapping("/users")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
     public ResponseEntity<?> addUser(@RequestBody User user) {
@@ -51,7 +135,7 @@ public class AdminController {
 
         try {
             // Save the user
-            User savedUser = userRepository.save(user);
+            User savedUser = write(() -> userRepository.save(user), Table.USERS);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error saving the user.");
@@ -60,31 +144,15 @@ public class AdminController {
 
     @DeleteMapping("/users/{id}")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    @Transactional  // Ensure this method is executed within a transaction context
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
         Optional<User> user = userRepository.findById(id);
         if (!user.isPresent()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "User not found."));
         }
 
-        User.Role role = user.get().getRole();
-
-        // Handle deletion based on user role
-        if (role == User.Role.Student) {
-            // Remove all enrollments for the student
-            enrollmentRepository.deleteByStudentId(id);  // Ensure this is also within a transaction
-        } else if (role == User.Role.Teacher) {
-            // Unassign teacher from all courses
-            List<Course> courses = courseRepository.findByTeacherId(id);
-            for (Course course : courses) {
-                course.setTeacherId(null);
-                courseRepository.save(course);
-            }
-        }
-
-        // Delete the user
-        userRepository.deleteById(id);
-        return ResponseEntity.ok(Map.of("message", "User deleted successfully."));
+        // Students take their attendance and enrollments with them, teachers are unassigned from their courses
+        return deletion(() -> cascadeDeletionService.deleteUser(user.get()),
+                Map.of("message", "User deleted successfully."), Map.of("message", "Error deleting the user."));
     }
 
     @PutMapping("/users/{id}")
@@ -114,7 +182,9 @@ public class AdminController {
         updatedUser.setRole(user.getRole());
 
         try {
-            User savedUser = userRepository.save(updatedUser);
+            User savedUser = write(() -> userRepository.save(updatedUser), Table.USERS);
+            nameCache.evictUser(id);
+            tokenService.revoke(id);  // Tokens carry the old role, the user has to log in again
             return ResponseEntity.ok(savedUser);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error updating the user.");
@@ -122,10 +192,41 @@ public class AdminController {
     }
 
 
+    // One page of users in id order, optionally of one ?role=. Unchanged since the client's ETag -> 304 after the version read.
     @GetMapping("/users")
+    @CrossOrigin(origins = "http://127.0.0.1:5500", exposedHeaders = PagedResponses.NEXT_PAGE_TOKEN)
+    @ReadsFromPrimary
+    public ResponseEntity<?> viewUsers(ListFilter filter,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String invalid = filter.validate();
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body(invalid);
+        }
+        String etag = tableVersions.etag(Table.USERS);
+        if (ConditionalResponses.matches(ifNoneMatch, etag)) {
+            return ConditionalResponses.notModified(etag);
+        }
+        return PagedResponses.ok(ListSpecifications.page(userRepository, ListSpecifications.users(filter), filter), filter, User::getId, etag);
+    }
+
+    // Create users from a text/csv (header: username,password,role) or application/x-ndjson upload.
+    // Answers with one result per data line; accepted lines are saved even when others are rejected.
+    @PostMapping(value = "/import/users", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public List<User> viewUsers() {
-        return userRepository.findAll();
+    public ResponseEntity<?> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream upload) throws IOException {
+        return ResponseEntity.ok(bulkImportService.importUsers(upload, contentType));
+    }
+
+    // Stream users as NDJSON, resumable with ?after=<last id>&limit=
+    @GetMapping("/export/users")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "0") Long after,
+                                                             @RequestParam(required = false) Integer limit) {
+        if (limit != null && limit < 1) {
+            return StreamingResponses.text(HttpStatus.BAD_REQUEST, "limit must be positive.");
+        }
+        return StreamingResponses.ndjson(out -> ndjsonExportService.write(
+                () -> userRepository.findByIdGreaterThanOrderByIdAsc(after, NdjsonExportService.limit(limit)), out));
     }
 
     @PostMapping("/courses")
@@ -166,7 +267,7 @@ public class AdminController {
         course.setTeacherId(teacherId);
 
         try {
-            Course newCourse = courseRepository.save(course);
+            Course newCourse = write(() -> courseRepository.save(course), Table.COURSES);
             return ResponseEntity.status(HttpStatus.CREATED).body(newCourse);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error creating the course.");
@@ -177,19 +278,68 @@ public class AdminController {
 
     @DeleteMapping("/courses/{id}")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    @Transactional
     public ResponseEntity<?> deleteCourse(@PathVariable Long id) {
         Optional<Course> course = courseRepository.findById(id);
         if (!course.isPresent()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Course not found.");
         }
 
-        // Remove all enrollments for the course
-        enrollmentRepository.deleteByCourseId(id);
+        // Attendance, enrollments and the derived totals go with the course
+        return deletion(() -> cascadeDeletionService.deleteCourse(id),
+                "Course deleted successfully.", "Error deleting the course.");
+    }
+
+    // Live updates of every course while attendance is marked; see TeacherController.attendanceFeed
+    @GetMapping("/attendanceFeed")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<SseEmitter> attendanceFeed() {
+        return attendanceFeedService.subscribe(null)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    // Token for opening the feed with EventSource; see TeacherController.attendanceFeedToken
+    @GetMapping("/attendanceFeed/token")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<Map<String, Object>> attendanceFeedToken(@RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(Map.of(
+                "feedToken", tokenService.issueFeed(caller.id(), caller.role()),
+                "expiresIn", tokenService.feedTokenTtl().toSeconds()));
+    }
+
+    @GetMapping("/deletions/{jobId}")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<?> getDeletion(@PathVariable String jobId) {
+        return cascadeDeletionService.job(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Deletion job not found.")));
+    }
+
+    // Saves and bumps the versions of the written tables in one transaction, so a committed write
+    // can never leave them behind
+    private <T> T write(Supplier<T> save, Table... tables) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            T saved = save.get();
+            tableVersions.bump(tables);
+            return saved;
+        });
+    }
 
-        // Delete the course
-        courseRepository.deleteById(id);
-        return ResponseEntity.ok("Course deleted successfully.");
+    // 200 with the usual body when the deletion ran here, 202 pointing at the job when it runs in the background
+    private static ResponseEntity<?> deletion(Supplier<DeletionJob> start, Object deleted, Object failed) {
+        DeletionJob job;
+        try {
+            job = start.get();
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", "Too many deletions are queued."));
+        }
+        return switch (job.status()) {
+            case completed -> ResponseEntity.ok(deleted);
+            case failed -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(failed);
+            case running -> ResponseEntity.accepted()
+                    .location(URI.create("/api/admin/deletions/" + job.id()))
+                    .body(job);
+        };
     }
 
     @PutMapping("/courses/{id}")
@@ -231,7 +381,8 @@ public class AdminController {
 
         // Save and return the updated course
         try {
-            Course updatedCourse = courseRepository.save(existingCourse);
+            Course updatedCourse = write(() -> courseRepository.save(existingCourse), Table.COURSES);
+            nameCache.evictCourse(id);
             return ResponseEntity.ok(updatedCourse);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error updating the course.");
@@ -275,7 +426,7 @@ public class AdminController {
             enrollment.setStudent(student);
             enrollment.setCourse(course);
 
-            enrollmentRepository.save(enrollment);
+            write(() -> enrollmentRepository.save(enrollment), Table.ENROLLMENTS);
 
             response.put("success", true);
             response.put("message", "Student successfully enrolled.");
@@ -299,22 +450,45 @@ public class AdminController {
 
     }
 
+    // Stream the course table as NDJSON, resumable with ?after=<last id>&limit=
+    @GetMapping("/export/courses")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<StreamingResponseBody> exportCourses(@RequestParam(defaultValue = "0") Long after,
+                                                               @RequestParam(required = false) Integer limit) {
+        if (limit != null && limit < 1) {
+            return StreamingResponses.text(HttpStatus.BAD_REQUEST, "limit must be positive.");
+        }
+        return StreamingResponses.ndjson(out -> ndjsonExportService.write(
+                () -> courseRepository.findByIdGreaterThanOrderByIdAsc(after, NdjsonExportService.limit(limit)), out));
+    }
+
 
 
+    // Courses with their teacher names. Unchanged since the client's ETag -> 304 after the version read.
     @GetMapping("/courses")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public List<Map<String, Object>> viewCourses() {
+    @ReadsFromPrimary
+    public ResponseEntity<List<Map<String, Object>>> viewCourses(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Teacher names come from the users table
+        String etag = tableVersions.etag(Table.COURSES, Table.USERS);
+        if (ConditionalResponses.matches(ifNoneMatch, etag)) {
+            return ConditionalResponses.notModified(etag);
+        }
         List<Map<String, Object>> coursesWithTeachers = new ArrayList<>();
 
-        List<Course> courses = courseRepository.findAll();
-        for (Course course : courses) {
+        // From the roster snapshot while it is current
+        List<CourseSummary> courses = rosterSnapshotService.current().map(RosterSnapshot::courses)
+                .orElseGet(() -> courseRepository.findAll().stream()
+                        .map(course -> new CourseSummary(course.getId(), course.getName(), course.getTeacherId()))
+                        .toList());
+        for (CourseSummary course : courses) {
             Map<String, Object> courseData = new HashMap<>();
-            courseData.put("id", course.getId());
-            courseData.put("name", course.getName());
+            courseData.put("id", course.id());
+            courseData.put("name", course.name());
 
-            if (course.getTeacherId() != null) {
-                Optional<User> optionalTeacher = userRepository.findById(course.getTeacherId());
-                courseData.put("teacherName", optionalTeacher.map(User::getUsername).orElse("None"));
+            if (course.teacherId() != null) {
+                courseData.put("teacherName", nameCache.user(course.teacherId()).map(UserSummary::username).orElse("None"));
             } else {
                 courseData.put("teacherName", "None");
             }
@@ -322,7 +496,7 @@ public class AdminController {
             coursesWithTeachers.add(courseData);
         }
 
-        return coursesWithTeachers;
+        return ResponseEntity.ok().eTag(etag).body(coursesWithTeachers);
     }
 
 
@@ -355,17 +529,50 @@ public class AdminController {
         course.setTeacherId(teacherId);
 
         // Save the updated course
-        courseRepository.save(course);
+        write(() -> courseRepository.save(course), Table.COURSES);
+        nameCache.evictCourse(courseId);
 
         return ResponseEntity.ok("Teacher assigned to course successfully.");
     }
 
 
-    // View all enrollments for students
+    // View enrollments for students, one page in id order, optionally of one ?course=
     @GetMapping("/enrollments")
+    @CrossOrigin(origins = "http://127.0.0.1:5500", exposedHeaders = PagedResponses.NEXT_PAGE_TOKEN)
+    @ReadsFromPrimary
+    public ResponseEntity<?> getEnrollments(ListFilter filter,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String invalid = filter.validate();
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body(invalid);
+        }
+        // Enrollments embed the student and course rows
+        String etag = tableVersions.etag(Table.ENROLLMENTS, Table.USERS, Table.COURSES);
+        if (ConditionalResponses.matches(ifNoneMatch, etag)) {
+            return ConditionalResponses.notModified(etag);
+        }
+        return PagedResponses.ok(ListSpecifications.page(enrollmentRepository, ListSpecifications.enrollments(filter), filter, "student", "course"),
+                filter, Enrollment::getId, etag);
+    }
+
+    // Enroll students from a text/csv or application/x-ndjson upload. Each line names the student by
+    // studentId or studentUsername and the course by courseId or courseName; one result per data line.
+    @PostMapping(value = "/import/enrollments", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<?> importEnrollments(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream upload) throws IOException {
+        return ResponseEntity.ok(bulkImportService.importEnrollments(upload, contentType));
+    }
+
+    // Stream enrollments as NDJSON, resumable with ?after=<last id>&limit=
+    @GetMapping("/export/enrollments")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public List<Enrollment> getEnrollments() {
-        return enrollmentRepository.findAll();
+    public ResponseEntity<StreamingResponseBody> exportEnrollments(@RequestParam(defaultValue = "0") Long after,
+                                                                   @RequestParam(required = false) Integer limit) {
+        if (limit != null && limit < 1) {
+            return StreamingResponses.text(HttpStatus.BAD_REQUEST, "limit must be positive.");
+        }
+        return StreamingResponses.ndjson(out -> ndjsonExportService.write(
+                () -> enrollmentRepository.findByIdGreaterThanOrderByIdAsc(after, NdjsonExportService.limit(limit)), out));
     }
 
 
@@ -400,60 +607,114 @@ public class AdminController {
 
     @GetMapping("/attendanceGroupedByDate")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<?> getAttendanceGroupedByDate() {
+    public ResponseEntity<StreamingResponseBody> getAttendanceGroupedByDate(ListFilter filter) {
+        String invalid = filter.validate();
+        if (invalid != null) {
+            return StreamingResponses.text(HttpStatus.BAD_REQUEST, invalid);
+        }
         try {
-            // Fetch all attendance records
-
-            List<Attendance> attendanceRecords = attendanceRepository.findAll();
-
-            if (attendanceRecords.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No attendance records found.");
+            if (!attendanceReportService.hasAttendance()) {
+                return StreamingResponses.text(HttpStatus.NOT_FOUND, "No attendance records found.");
             }
 
-            // Group attendance records by date
-            Map<LocalDate, Map<String, Object>> groupedByDate = attendanceRecords.stream()
-                    .collect(Collectors.groupingBy(
-                            Attendance::getDate,
-                            Collectors.collectingAndThen(Collectors.toList(), recordsByDate -> {
-                                // Further group by course name
-                                Map<String, Object> groupedByCourse = new HashMap<>();
-
-                                Map<String, List<Map<String, String>>> courses = recordsByDate.stream()
-                                        .collect(Collectors.groupingBy(
-                                                record -> record.getCourse().getName(),
-                                                Collectors.mapping(record -> {
-                                                    Map<String, String> attendanceDetails = new HashMap<>();
-                                                    attendanceDetails.put("studentName", record.getStudent().getUsername());
-                                                    Long teacherId = record.getCourse().getTeacherId();
-                                                    String teacherName = teacherId != null ? userRepository.findById(teacherId).map(User::getUsername).orElse("Unknown") : "None";
-                                                    attendanceDetails.put("teacherName", teacherName);
-                                                    attendanceDetails.put("status", record.getStatus());
-                                                    return attendanceDetails;
-                                                }, Collectors.toList())
-                                        ));
-
-                                // Count total present and absent for the date
-                                long totalPresent = recordsByDate.stream()
-                                        .filter(record -> "Present".equalsIgnoreCase(record.getStatus()))
-                                        .count();
-                                long totalAbsent = recordsByDate.stream()
-                                        .filter(record -> "Absent".equalsIgnoreCase(record.getStatus()))
-                                        .count();
-
-                                groupedByCourse.put("courses", courses);
-                                groupedByCourse.put("totalPresent", totalPresent);
-                                groupedByCourse.put("totalAbsent", totalAbsent);
-
-                                return groupedByCourse;
-                            })
-                    ));
-
-            return ResponseEntity.ok(groupedByDate);
+            // Rows are streamed from the database, filtered by ?from=&to=&course=&status=, and grouped by date while the response is written
+            return StreamingResponses.json(out -> attendanceReportService.writeGroupedByDate(filter, out));
         } catch (Exception ex) {
-            return ResponseEntity.internalServerError().body("Error fetching grouped attendance: " + ex.getMessage());
+            return StreamingResponses.text(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching grouped attendance: " + ex.getMessage());
         }
     }
 
+    // Hit, miss and eviction counters of the user/course name cache
+    @GetMapping("/cache/names")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public Map<String, Object> nameCacheStats() {
+        return nameCache.stats();
+    }
+
+    // Size and stamp of the memory-mapped roster snapshot, and whether it currently matches the database
+    @GetMapping("/cache/roster")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public Map<String, Object> rosterSnapshotStats() {
+        return rosterSnapshotService.stats();
+    }
+
+    // Hit and miss counters of the Hibernate second-level cache of users, courses and their queries
+    @GetMapping("/cache/entities")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public Map<String, Object> entityCacheStats() {
+        return entityCacheService.stats();
+    }
+
+    // Move the attendance of terms before ?before= (default: all but the hot terms) into the archive.
+    // Runs on the request; the scheduled run does the same when attendance.archive.enabled is set.
+    @PostMapping("/archive")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<?> archiveAttendance(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+        try {
+            return ResponseEntity.ok(attendanceArchiveService.archiveBefore(before != null ? before : attendanceArchiveService.defaultCutoff()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Archived terms with their row counts and file sizes, and the block cache counters
+    @GetMapping("/archive")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public Map<String, Object> archiveStats() {
+        return attendanceArchiveService.stats();
+    }
+
+    // Recompute the per-(student, course) attendance counters from the raw attendance table
+    @PostMapping("/attendanceCounters/rebuild")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<?> rebuildAttendanceCounters() {
+        int counters = attendanceCounterService.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Attendance counters rebuilt.", "counters", counters));
+    }
+
+    // Compare the counters with the raw attendance table without changing them
+    @GetMapping("/attendanceCounters/verify")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<?> verifyAttendanceCounters() {
+        List<Map<String, Object>> mismatches = attendanceCounterService.verify();
+        return ResponseEntity.ok(Map.of("consistent", mismatches.isEmpty(), "mismatches", mismatches));
+    }
+
+    // Recompute the bit-packed attendance ledgers from the raw attendance table
+    @PostMapping("/attendanceLedgers/rebuild")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<?> rebuildAttendanceLedgers() {
+        int ledgers = attendanceLedgerService.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Attendance ledgers rebuilt.", "ledgers", ledgers));
+    }
+
+    // Present, absent and marked totals per date, read from the daily rollup, optionally within ?from=&to= and of one ?course=
+    @GetMapping("/attendanceTotals/byDate")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<?> attendanceTotalsByDate(ListFilter filter) {
+        String invalid = filter.validate();
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body(invalid);
+        }
+        List<DailyAttendanceTotals> totals = attendanceRollupService.totalsByDate(filter.from(), filter.to(), filter.course());
+        return ResponseEntity.ok(totals);
+    }
+
+    // Present, absent and marked totals per course, read from the daily rollup
+    @GetMapping("/attendanceTotals/byCourse")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public List<CourseAttendanceTotals> attendanceTotalsByCourse() {
+        return attendanceRollupService.totalsByCourse();
+    }
+
+    // Repair rollup rows of past days that disagree with the raw attendance table
+    @PostMapping("/attendanceRollups/reconcile")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<?> reconcileAttendanceRollups() {
+        int repaired = attendanceRollupService.reconcile();
+        return ResponseEntity.ok(Map.of("message", "Attendance rollups reconciled.", "repaired", repaired));
+    }
+
 
 
 }
@@ -1,5 +1,6 @@
 package com.example.attendancemanagement.controller;
 
+import com.example.attendancemanagement.auth.TokenService;
 import com.example.attendancemanagement.entity.User;
 import com.example.attendancemanagement.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,9 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TokenService tokenService;
+
     @PostMapping("/login")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
     public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
@@ -25,8 +29,9 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
         }
 
-        // Return the user role and id in the response
-        return ResponseEntity.ok(new LoginResponse(user.getId(), user.getRole().toString()));
+        // Return the user role and id, plus the signed token the other endpoints expect as "Authorization: Bearer"
+        return ResponseEntity.ok(new LoginResponse(user.getId(), user.getRole().toString(),
+                tokenService.issue(user.getId(), user.getRole())));
     }
 
     // Inner static class to handle login request data
@@ -52,15 +57,17 @@ public class AuthController {
         }
     }
 
-    // Inner static class to handle login response data (role and id)
+    // Inner static class to handle login response data (role, id and token)
     public static class LoginResponse {
         private Long id;
         private String role;
+        private String token;
 
         // Constructor
-        public LoginResponse(Long id, String role) {
+        public LoginResponse(Long id, String role, String token) {
             this.id = id;
             this.role = role;
+            this.token = token;
         }
 
         // Getters
@@ -72,6 +79,10 @@ public class AuthController {
             return role;
         }
 
+        public String getToken() {
+            return token;
+        }
+
         // Setters
         public void setId(Long id) {
             this.id = id;
@@ -80,5 +91,9 @@ public class AuthController {
         public void setRole(String role) {
             this.role = role;
         }
+
+        public void setToken(String token) {
+            this.token = token;
+        }
     }
 }
@@ -0,0 +1,34 @@
+package com.example.attendancemanagement.controller;
+
+import com.example.attendancemanagement.dto.ListFilter;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Helpers for list endpoints that answer one keyset page at a time
+final class PagedResponses {
+
+    static final String NEXT_PAGE_TOKEN = "X-Next-Page-Token";
+
+    private PagedResponses() {
+    }
+
+    // Rows come from ListSpecifications.page: one row past the page means there is a next page
+    static <T> ResponseEntity<List<T>> ok(List<T> rows, ListFilter filter, Function<T, Long> id) {
+        return ok(rows, filter, id, null);
+    }
+
+    // Same, with the ETag the rows were read under
+    static <T> ResponseEntity<List<T>> ok(List<T> rows, ListFilter filter, Function<T, Long> id, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        if (rows.size() <= filter.pageSize()) {
+            return response.body(rows);
+        }
+        List<T> page = rows.subList(0, filter.pageSize());
+        return response.header(NEXT_PAGE_TOKEN, ListFilter.pageToken(id.apply(page.get(page.size() - 1)))).body(page);
+    }
+}
@@ -1,125 +1,179 @@
 package com.example.attendancemanagement.controller;
 
+import com.example.attendancemanagement.auth.AuthenticatedUser;
+import com.example.attendancemanagement.dto.CourseSummary;
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.dto.StudentAttendanceRow;
+import com.example.attendancemanagement.dto.UserSummary;
 import com.example.attendancemanagement.entity.Attendance;
-import com.example.attendancemanagement.entity.Course;
-import com.example.attendancemanagement.entity.User;
+import com.example.attendancemanagement.entity.AttendanceCounter;
+import com.example.attendancemanagement.repository.AttendanceHistoryRepository;
 import com.example.attendancemanagement.repository.AttendanceRepository;
 import com.example.attendancemanagement.repository.CourseRepository;
-import com.example.attendancemanagement.repository.UserRepository;
+import com.example.attendancemanagement.service.AttendanceCounterService;
+import com.example.attendancemanagement.service.AttendanceLedgerService;
+import com.example.attendancemanagement.service.NameCache;
+import com.example.attendancemanagement.service.NdjsonExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/student")
 public class StudentController {
 
+    private static final String FORBIDDEN = "Students can only view their own attendance.";
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private AttendanceHistoryRepository attendanceHistoryRepository;
 
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private AttendanceCounterService attendanceCounterService;
+
+    @Autowired
+    private AttendanceLedgerService attendanceLedgerService;
+
+    @Autowired
+    private NdjsonExportService ndjsonExportService;
+
+    @Autowired
+    private NameCache nameCache;
+
 
+    // One page of the student's attendance in id order, filtered by ?from=&to=&course=&status=, from
+    // the attendance table and the archive
     @GetMapping("/attendance/{studentId}")
-    @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<?> viewAttendance(@PathVariable Long studentId) {
-        // Validate user existence and role
-        User user = userRepository.findById(studentId).orElse(null);
-        if (user == null || user.getRole() != User.Role.Student) {
-            return ResponseEntity.badRequest().body("Invalid student ID or user is not a student.");
+    @CrossOrigin(origins = "http://127.0.0.1:5500", exposedHeaders = PagedResponses.NEXT_PAGE_TOKEN)
+    public ResponseEntity<?> viewAttendance(@PathVariable Long studentId, ListFilter filter,
+                                            @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        // The token already proved who is asking; students only see their own records
+        if (!caller.id().equals(studentId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN);
+        }
+        String invalid = filter.validate();
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body(invalid);
         }
 
         // Retrieve attendance records
-        List<Attendance> attendanceRecords = attendanceRepository.findByStudentId(studentId);
-        if (attendanceRecords.isEmpty()) {
+        List<Attendance> attendanceRecords = attendanceHistoryRepository.findStudentAttendancePage(studentId, filter);
+        if (attendanceRecords.isEmpty() && filter.after() == null) {
             return ResponseEntity.ok("No attendance records found for this student.");
         }
 
-        return ResponseEntity.ok(attendanceRecords);
+        return PagedResponses.ok(attendanceRecords, filter, Attendance::getId);
+    }
+
+    // Stream the student's attendance as NDJSON, resumable with ?after=<last id>&limit=
+    @GetMapping("/export/attendance/{studentId}")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<StreamingResponseBody> exportAttendance(@PathVariable Long studentId,
+                                                                  @RequestParam(defaultValue = "0") Long after,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        // The token already proved who is asking; students only see their own records
+        if (!caller.id().equals(studentId)) {
+            return StreamingResponses.text(HttpStatus.FORBIDDEN, FORBIDDEN);
+        }
+        if (limit != null && limit < 1) {
+            return StreamingResponses.text(HttpStatus.BAD_REQUEST, "limit must be positive.");
+        }
+
+        return StreamingResponses.ndjson(out -> ndjsonExportService.write(
+                () -> attendanceRepository.findByStudentIdAndIdGreaterThanOrderByIdAsc(studentId, after, NdjsonExportService.limit(limit)), out));
     }
 
 
     @GetMapping("/checkRunningAttendance/{studentId}/{courseId}")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<?> checkRunningAttendance(@PathVariable Long studentId, @PathVariable Long courseId) {
-        // Validate student existence and role
-        User student = userRepository.findById(studentId).orElse(null);
-        if (student == null || student.getRole() != User.Role.Student) {
-            return ResponseEntity.badRequest().body("Invalid student ID or user is not a student.");
+    public ResponseEntity<?> checkRunningAttendance(@PathVariable Long studentId, @PathVariable Long courseId,
+                                                    @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        // The token already proved who is asking; students only see their own records
+        if (!caller.id().equals(studentId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN);
         }
 
         // Validate course existence
-        Course course = courseRepository.findById(courseId).orElse(null);
+        CourseSummary course = nameCache.course(courseId).orElse(null);
         if (course == null) {
             return ResponseEntity.badRequest().body("Invalid course ID.");
         }
 
-        // Fetch attendance records for the student in the course
-        List<Attendance> attendanceRecords = attendanceRepository.findByStudentId(studentId)
-                .stream()
-                .filter(attendance -> attendance.getCourse().getId().equals(courseId))
-                .toList();
-
-        // Calculate running attendance
-        long totalConducted = attendanceRecords.size(); // Total attendance days conducted
-        long daysPresent = attendanceRecords.stream()
-                .filter(attendance -> "Present".equalsIgnoreCase(attendance.getStatus()))
-                .count(); // Total days the student was present
-
-        if (totalConducted == 0) {
+        // Read the maintained counters instead of scanning the student's attendance history
+        AttendanceCounter counter = attendanceCounterService.find(studentId, courseId).orElse(null);
+        if (counter == null || counter.getConducted() == 0) {
             return ResponseEntity.ok("No attendance conducted for this course yet.");
         }
 
-        double runningAttendance = ((double) daysPresent / totalConducted) * 100;
+        double runningAttendance = ((double) counter.getPresent() / counter.getConducted()) * 100;
 
         // Return the response
         return ResponseEntity.ok(
                 String.format("Running attendance for student: %-20s | Course: %-20s | Attendance: %-6.2f%%",
-                        student.getUsername(), course.getName(), runningAttendance)
+                        nameCache.user(studentId).map(UserSummary::username).orElse("Unknown"), course.name(), runningAttendance)
 //                String.format("Running attendance for student    :   %s   in course   :   %s :        %.2f%%", student.getUsername(), course.getName(), runningAttendance)
         );
     }
 
 
+    // Attendance percentage and Present streaks of a course, computed from the packed ledger
+    @GetMapping("/attendanceSummary/{studentId}/{courseId}")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<?> getAttendanceSummary(@PathVariable Long studentId, @PathVariable Long courseId,
+                                                  @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        // The token already proved who is asking; students only see their own records
+        if (!caller.id().equals(studentId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN);
+        }
+
+        // Validate course existence
+        if (nameCache.course(courseId).isEmpty()) {
+            return ResponseEntity.badRequest().body("Invalid course ID.");
+        }
+
+        return ResponseEntity.ok(attendanceLedgerService.summarize(studentId, courseId));
+    }
+
+
     @GetMapping("/attendanceGroupedByDate/{studentId}")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<?> getAttendanceGroupedByDate(@PathVariable Long studentId) {
-        // Validate student existence and role
-        User student = userRepository.findById(studentId).orElse(null);
-        if (student == null || student.getRole() != User.Role.Student) {
-            return ResponseEntity.badRequest().body("Invalid student ID or user is not a student.");
+    public ResponseEntity<?> getAttendanceGroupedByDate(@PathVariable Long studentId, ListFilter filter,
+                                                        @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        // The token already proved who is asking; students only see their own records
+        if (!caller.id().equals(studentId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN);
+        }
+        String invalid = filter.validate();
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body(invalid);
         }
 
-        // Fetch all attendance records for the student
-        List<Attendance> attendanceRecords = attendanceRepository.findByStudentId(studentId);
-        if (attendanceRecords.isEmpty()) {
+        // Fetch the student's attendance rows within ?from=&to=&course=&status=, newest first, as projections
+        List<StudentAttendanceRow> attendanceRows = attendanceHistoryRepository.findStudentAttendanceRows(
+                studentId, filter.from(), filter.to(), filter.course(), filter.normalizedStatus());
+        if (attendanceRows.isEmpty()) {
             return ResponseEntity.ok("No attendance records found for this student.");
         }
 
         // Group attendance records by date and map the data to include teacher name and course name
-        Map<String, List<Map<String, Object>>> groupedByDate = attendanceRecords.stream()
-                .collect(Collectors.groupingBy(
-                        attendance -> attendance.getDate().toString(),
-                        Collectors.mapping(attendance -> {
-                            Map<String, Object> record = new HashMap<>();
-                            record.put("courseName", attendance.getCourse().getName());
-                            record.put("teacherName", getTeacherName(attendance.getCourse().getTeacherId()));
-                           // record.put("date", attendance.getDate().toString());
-                            record.put("status", attendance.getStatus());
-                            return record;
-                        }, Collectors.toList())
-                ));
-
-        // Sort the grouped records by date in descending order
         Map<String, List<Map<String, Object>>> sortedGroupedByDate = new TreeMap<>(Collections.reverseOrder());
-        sortedGroupedByDate.putAll(groupedByDate);
+        for (StudentAttendanceRow row : attendanceRows) {
+            Map<String, Object> record = new HashMap<>();
+            record.put("courseName", row.courseName());
+            record.put("teacherName", getTeacherName(row.teacherId()));
+            record.put("status", row.status());
+            sortedGroupedByDate.computeIfAbsent(row.date().toString(), date -> new ArrayList<>()).add(record);
+        }
 
         // Return the grouped records
         return ResponseEntity.ok(sortedGroupedByDate);
@@ -127,11 +181,7 @@ public class StudentController {
 
     // Helper method to get the teacher's name from the teacherId
     private String getTeacherName(Long teacherId) {
-        User teacher = userRepository.findById(teacherId).orElse(null);
-        if (teacher != null && teacher.getRole() == User.Role.Teacher) {
-            return teacher.getUsername();  // Assuming teacher's name is stored in the 'username' field
-        }
-        return "Unknown Teacher";  // Default if no teacher is found
+        return nameCache.teacherName(teacherId, "Unknown Teacher");  // Default if no teacher is found
     }
 
 }
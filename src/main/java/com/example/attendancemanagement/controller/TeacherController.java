@@ -1,27 +1,51 @@
 package com.example.attendancemanagement.controller;
 
-import com.example.attendancemanagement.entity.Attendance;
+import com.example.attendancemanagement.auth.AuthenticatedUser;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.dto.CourseAttendanceRow;
+import com.example.attendancemanagement.dto.EnrolledStudent;
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.dto.MarkingResult;
+import com.example.attendancemanagement.dto.UserSummary;
 import com.example.attendancemanagement.entity.Course;
-import com.example.attendancemanagement.entity.Enrollment;
-import com.example.attendancemanagement.entity.User;
 import com.example.attendancemanagement.repository.AttendanceRepository;
 import com.example.attendancemanagement.repository.CourseRepository;
 import com.example.attendancemanagement.repository.EnrollmentRepository;
-import com.example.attendancemanagement.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.example.attendancemanagement.routing.ReadsFromPrimary;
+import com.example.attendancemanagement.service.AttendanceFeedService;
+import com.example.attendancemanagement.service.AttendanceMarkingService;
+import com.example.attendancemanagement.service.AttendanceRollupService;
+import com.example.attendancemanagement.service.MarkedStudentsIndex;
+import com.example.attendancemanagement.service.NameCache;
+import com.example.attendancemanagement.service.RosterSnapshotService;
+import com.example.attendancemanagement.service.TableVersions;
+import com.example.attendancemanagement.service.TableVersions.Table;
+import com.example.attendancemanagement.service.TeacherReportService;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
 
 @RestController
 @RequestMapping("/api/teacher")
 public class TeacherController {
 
+    private static final String FORBIDDEN = "Teachers can only access their own courses.";
+
     @Autowired
     private CourseRepository courseRepository;
 
@@ -29,14 +53,49 @@ public class TeacherController {
     private AttendanceRepository attendanceRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private EnrollmentRepository enrollmentRepository;
 
     @Autowired
-    private EnrollmentRepository enrollmentRepository;
+    private AttendanceMarkingService attendanceMarkingService;
+
+    @Autowired
+    private NameCache nameCache;
+
+    @Autowired
+    private MarkedStudentsIndex markedStudentsIndex;
+
+    @Autowired
+    private TeacherReportService teacherReportService;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private AttendanceFeedService attendanceFeedService;
 
+    @Autowired
+    private RosterSnapshotService rosterSnapshotService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    // Unchanged since the client's ETag -> 304 after the version read
     @GetMapping("/courses/{teacherId}")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<?> listCoursesWithIds(@PathVariable Long teacherId) {
+    @ReadsFromPrimary
+    public ResponseEntity<?> listCoursesWithIds(@PathVariable Long teacherId,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        if (!caller.id().equals(teacherId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN);
+        }
+        String etag = tableVersions.etag(Table.COURSES);
+        if (ConditionalResponses.matches(ifNoneMatch, etag)) {
+            return ConditionalResponses.notModified(etag);
+        }
         try {
             List<Course> courses = courseRepository.findAllByTeacherId(teacherId);
 
@@ -51,7 +110,7 @@ public class TeacherController {
                 return data;
             }).toList();
 
-            return ResponseEntity.ok(courseData);
+            return ResponseEntity.ok().eTag(etag).body(courseData);
         } catch (Exception ex) {
             return ResponseEntity.internalServerError().body("Error fetching courses: " + ex.getMessage());
         }
@@ -60,54 +119,74 @@ public class TeacherController {
 
 
     @PostMapping("/markAttendance")
-    @Transactional
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<Map<String, String>> markAttendance(@RequestBody List<Map<String, Object>> attendanceDataList) {
-        Map<String, String> response = new HashMap<>();
-
-        for (Map<String, Object> attendanceData : attendanceDataList) {
-            Long teacherId = Long.valueOf((Integer) attendanceData.get("teacherId"));
-            Long courseId = Long.valueOf((Integer) attendanceData.get("courseId"));
-            Long studentId = Long.valueOf((Integer) attendanceData.get("studentId"));
-            String status = (String) attendanceData.get("status");
-
-            // Perform validations and save attendance for each entry
-            Course course = courseRepository.findById(courseId).orElseThrow(() -> new IllegalArgumentException("Invalid course ID."));
-            if (!course.getTeacherId().equals(teacherId)) {
-                response.put("message", "You are not authorized to mark attendance for this course.");
-                return ResponseEntity.status(403).body(response);  // 403 Forbidden
-            }
+    public ResponseEntity<Map<String, Object>> markAttendance(@RequestBody List<Map<String, Object>> attendanceDataList,
+                                                              @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        Map<String, Object> response = new HashMap<>();
 
-            Enrollment enrollment = enrollmentRepository.findByStudent_IdAndCourse_Id(studentId, courseId);
-            if (enrollment == null) {
-                response.put("message", "Student is not enrolled in this course.");
-                return ResponseEntity.status(400).body(response);  // 400 Bad Request
-            }
-
-            Optional<Attendance> existingAttendance = attendanceRepository.findByCourseIdAndStudentIdAndDate(courseId, studentId, LocalDate.now());
-            if (existingAttendance.isPresent()) {
-                response.put("message", "Attendance has already been marked for this student today.");
-                return ResponseEntity.status(400).body(response);  // 400 Bad Request
-            }
+        // Validate and insert the whole list at once, failures are reported per student
+        MarkingResult result;
+        try {
+            result = attendanceMarkingService.markToday(caller.id(), attendanceDataList);
+        } catch (DuplicateKeyException e) {
+            // A row for one of the students was written past the already-marked check and nothing was
+            // saved. The second attempt sees that row and reports those students as already marked.
+            result = attendanceMarkingService.markToday(caller.id(), attendanceDataList);
+        }
+        response.put("marked", result.marked().size());
+        response.put("failures", result.failures());
 
-            Attendance attendance = new Attendance();
-            attendance.setCourse(course);
-            attendance.setStudent(userRepository.findById(studentId).orElseThrow(() -> new IllegalArgumentException("Invalid student ID.")));
-            attendance.setDate(LocalDate.now());
-            attendance.setStatus(status);
+        if (!result.hasFailures()) {
+            response.put("message", "Attendance marked successfully.");
+            return ResponseEntity.ok(response);  // 200 OK
+        }
 
-            attendanceRepository.save(attendance);
+        if (result.marked().isEmpty()) {
+            boolean forbidden = result.failures().stream()
+                    .allMatch(failure -> AttendanceMarkingService.NOT_AUTHORIZED.equals(failure.message()));
+            response.put("message", "No attendance was marked.");
+            return ResponseEntity.status(forbidden ? 403 : 400).body(response);  // 403 Forbidden / 400 Bad Request
         }
 
-        response.put("message", "Attendance marked successfully.");
+        response.put("message", "Attendance marked for " + result.marked().size() + " of "
+                + attendanceDataList.size() + " students.");
         return ResponseEntity.ok(response);  // 200 OK
     }
 
+    // Live updates of one course while its attendance is marked. Subscribe before loading the
+    // report, so no batch falls in between; a "resync" event means updates were dropped.
+    // Typed as SseEmitter so the emitter is streamed rather than serialized; errors go without a body.
+    @GetMapping("/courses/{courseId}/attendanceFeed")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<SseEmitter> attendanceFeed(@PathVariable Long courseId,
+                                                     @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        if (!ownsCourse(caller, courseId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return attendanceFeedService.subscribe(courseId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    // Token for opening the feeds with EventSource, which cannot send the Authorization header:
+    // .../attendanceFeed?feedToken=. It expires after expiresIn seconds; fetch a new one to reconnect.
+    @GetMapping("/attendanceFeed/token")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public ResponseEntity<Map<String, Object>> attendanceFeedToken(@RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(Map.of(
+                "feedToken", tokenService.issueFeed(caller.id(), caller.role()),
+                "expiresIn", tokenService.feedTokenTtl().toSeconds()));
+    }
+
     @GetMapping("/courses/{courseId}/students")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<?> listEnrolledStudents(@PathVariable Long courseId) {
+    public ResponseEntity<?> listEnrolledStudents(@PathVariable Long courseId,
+                                                  @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        if (!ownsCourse(caller, courseId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN);
+        }
         try {
-            List<Enrollment> enrollments = enrollmentRepository.findAllByCourseId(courseId);
+            List<EnrolledStudent> enrollments = roster(courseId);
 
             if (enrollments.isEmpty()) {
                 Map<String, String> errorResponse = new HashMap<>();
@@ -117,8 +196,8 @@ public class TeacherController {
 
             List<Map<String, Object>> studentData = enrollments.stream().map(enrollment -> {
                 Map<String, Object> data = new HashMap<>();
-                data.put("studentId", enrollment.getStudent().getId());
-                data.put("studentName", enrollment.getStudent().getUsername());
+                data.put("studentId", enrollment.studentId());
+                data.put("studentName", enrollment.studentName());
                 return data;
             }).toList();
 
@@ -131,9 +210,13 @@ public class TeacherController {
 
     @GetMapping("/courses/{courseId}/studentsNotMarkedToday")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<?> listStudentsNotMarkedToday(@PathVariable Long courseId) {
+    public ResponseEntity<?> listStudentsNotMarkedToday(@PathVariable Long courseId,
+                                                        @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        if (!ownsCourse(caller, courseId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN);
+        }
         try {
-            List<Enrollment> enrollments = enrollmentRepository.findAllByCourseId(courseId);
+            List<EnrolledStudent> enrollments = roster(courseId);
 
             if (enrollments.isEmpty()) {
                 Map<String, String> errorResponse = new HashMap<>();
@@ -141,16 +224,16 @@ public class TeacherController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
             }
 
-            List<Map<String, Object>> studentData = new ArrayList<>();
-            for (Enrollment enrollment : enrollments) {
-                Map<String, Object> data = new HashMap<>();
-                data.put("studentId", enrollment.getStudent().getId());
-                data.put("studentName", enrollment.getStudent().getUsername());
+            // Roster minus the students already marked today, answered from the per-course bitmap
+            List<Long> roster = enrollments.stream().map(EnrolledStudent::studentId).toList();
+            Roaring64Bitmap notMarked = markedStudentsIndex.notMarked(courseId, LocalDate.now(), roster);
 
-                // Check if attendance is already marked for today
-                Optional<Attendance> attendance = attendanceRepository.findByCourseIdAndStudentIdAndDate(courseId, enrollment.getStudent().getId(), LocalDate.now());
-
-                if (!attendance.isPresent()) {
+            List<Map<String, Object>> studentData = new ArrayList<>();
+            for (EnrolledStudent enrollment : enrollments) {
+                if (notMarked.contains(enrollment.studentId())) {
+                    Map<String, Object> data = new HashMap<>();
+                    data.put("studentId", enrollment.studentId());
+                    data.put("studentName", enrollment.studentName());
                     studentData.add(data); // Add student to list if attendance not marked
                 }
             }
@@ -163,95 +246,135 @@ public class TeacherController {
 
 
 
-    @GetMapping("/attendanceRecords/{teacherId}")
+    // Present, absent and marked totals of one course per date, read from the daily rollup
+    @GetMapping("/courses/{courseId}/attendanceTotals")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<?> getAttendanceRecords(@PathVariable Long teacherId) {
-        try {
-            // Step 1: Fetch courses taught by the teacher
-            List<Course> courses = courseRepository.findAllByTeacherId(teacherId);
-
-            if (courses.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No courses found for this teacher.");
-            }
+    public ResponseEntity<?> getCourseAttendanceTotals(@PathVariable Long courseId,
+                                                       @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        if (!ownsCourse(caller, courseId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN);
+        }
+        return ResponseEntity.ok(attendanceRollupService.courseTotalsByDate(courseId));
+    }
 
-            // Step 2: Extract course IDs
-            List<Long> courseIds = courses.stream().map(Course::getId).toList();
 
-            // Step 3: Fetch attendance records for these courses
-            List<Attendance> attendanceRecords = attendanceRepository.findAllByCourseIdIn(courseIds);
 
-            if (attendanceRecords.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No attendance records found.");
-            }
+    @GetMapping("/attendanceRecords/{teacherId}")
+    @CrossOrigin(origins = "http://127.0.0.1:5500")
+    public DeferredResult<ResponseEntity<?>> getAttendanceRecords(@PathVariable Long teacherId, ListFilter filter,
+                                                                  @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        return report(caller, teacherId, filter, "Error fetching attendance records: ", (courses, cancellation) -> {
+            String teacherName = nameCache.user(teacherId).map(UserSummary::username).orElse("Unknown");
 
-            // Step 4: Construct the response with necessary details
-            List<Map<String, Object>> response = attendanceRecords.stream().map(record -> {
+            // Each course task builds its own rows; they are concatenated in course order
+            return teacherReportService.forEachCourse(courses, filter, cancellation, (course, rows) -> rows.stream().map(row -> {
                 Map<String, Object> data = new HashMap<>();
-                data.put("teacherName", userRepository.findById(teacherId).map(User::getUsername).orElse("Unknown"));
-                data.put("studentName", record.getStudent().getUsername());
-                data.put("courseName", record.getCourse().getName());
-                data.put("date", record.getDate());
-                data.put("status", record.getStatus());
+                data.put("teacherName", teacherName);
+                data.put("studentName", row.studentName());
+                data.put("courseName", course.getName());
+                data.put("date", row.date());
+                data.put("status", row.status());
                 return data;
-            }).toList();
-
-            return ResponseEntity.ok(response);
-        } catch (Exception ex) {
-            return ResponseEntity.internalServerError().body("Error fetching attendance records: " + ex.getMessage());
-        }
+            }).toList()).thenApply(perCourse -> {
+                List<Map<String, Object>> response = perCourse.stream().flatMap(List::stream).toList();
+                if (response.isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No attendance records found.");
+                }
+                return ResponseEntity.ok(response);
+            });
+        });
     }
 
 
     @GetMapping("/attendanceGroupedByDate/{teacherId}")
     @CrossOrigin(origins = "http://127.0.0.1:5500")
-    public ResponseEntity<?> getAttendanceGroupedByDate(@PathVariable Long teacherId) {
-        try {
-            // Fetch all courses taught by the teacher
-            List<Course> courses = courseRepository.findAllByTeacherId(teacherId);
-
-            if (courses.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No courses found for this teacher.");
-            }
-
-            // Extract course IDs
-            List<Long> courseIds = courses.stream().map(Course::getId).toList();
-
-            // Fetch attendance records for these courses
-            List<Attendance> attendanceRecords = attendanceRepository.findAllByCourseIdIn(courseIds);
-
-            if (attendanceRecords.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No attendance records found.");
-            }
+    public DeferredResult<ResponseEntity<?>> getAttendanceGroupedByDate(@PathVariable Long teacherId, ListFilter filter,
+                                                                        @RequestAttribute(AuthenticatedUser.ATTRIBUTE) AuthenticatedUser caller) {
+        return report(caller, teacherId, filter, "Error fetching grouped attendance: ", (courses, cancellation) -> {
+            String teacherName = nameCache.user(teacherId).map(UserSummary::username).orElse("Unknown");
+
+            // Each course task groups its own rows by date; the groups are merged afterwards
+            return teacherReportService.forEachCourse(courses, filter, cancellation, (course, rows) -> {
+                Map<LocalDate, List<Map<String, String>>> groupedByDate = new LinkedHashMap<>();
+                for (CourseAttendanceRow row : rows) {
+                    Map<String, String> attendanceDetails = new HashMap<>();
+                    attendanceDetails.put("teacherName", teacherName);
+                    attendanceDetails.put("studentName", row.studentName());
+                    attendanceDetails.put("courseName", course.getName());
+                    attendanceDetails.put("status", row.status());
+                    groupedByDate.computeIfAbsent(row.date(), date -> new ArrayList<>()).add(attendanceDetails);
+                }
+                return groupedByDate;
+            }).thenApply(perCourse -> {
+                // Sort the grouped records by date in descending order
+                Map<LocalDate, List<Map<String, String>>> sortedGroupedByDate = new TreeMap<>(Collections.reverseOrder());
+                perCourse.forEach(groups -> groups.forEach((date, records) ->
+                        sortedGroupedByDate.computeIfAbsent(date, key -> new ArrayList<>()).addAll(records)));
+                if (sortedGroupedByDate.isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No attendance records found.");
+                }
+                return ResponseEntity.ok(sortedGroupedByDate);
+            });
+        });
+    }
 
-            // Fetch teacher's name from UserRepository
-            String teacherName = userRepository.findById(teacherId)
-                    .map(User::getUsername)
-                    .orElse("Unknown");
-
-            // Group attendance records by date
-            Map<LocalDate, List<Map<String, String>>> groupedByDate = attendanceRecords.stream()
-                    .collect(Collectors.groupingBy(
-                            Attendance::getDate,
-                            Collectors.mapping(record -> {
-                                Map<String, String> attendanceDetails = new HashMap<>();
-                                attendanceDetails.put("teacherName", teacherName);
-                                attendanceDetails.put("studentName", record.getStudent().getUsername());
-                                attendanceDetails.put("courseName", record.getCourse().getName());
-                                attendanceDetails.put("status", record.getStatus());
-                                return attendanceDetails;
-                            }, Collectors.toList())
-                    ));
-
-            // Sort the grouped records by date in descending order
-            Map<LocalDate, List<Map<String, String>>> sortedGroupedByDate = new TreeMap<>(Collections.reverseOrder());
-            sortedGroupedByDate.putAll(groupedByDate);
-
-            return ResponseEntity.ok(sortedGroupedByDate);
-        } catch (Exception ex) {
-            return ResponseEntity.internalServerError().body("Error fetching grouped attendance: " + ex.getMessage());
+    // Runs a teacher report off the servlet thread. The response is released when the course tasks
+    // finish, when the report timeout passes or when the request fails (for example the client went
+    // away), and in the last two cases whatever is still queued is cancelled.
+    // A ?course= filter narrows the report to that one of the teacher's courses.
+    private DeferredResult<ResponseEntity<?>> report(AuthenticatedUser caller, Long teacherId, ListFilter filter, String errorPrefix,
+            BiFunction<List<Course>, TeacherReportService.Cancellation, CompletableFuture<ResponseEntity<?>>> build) {
+        TeacherReportService.Cancellation cancellation = new TeacherReportService.Cancellation();
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(teacherReportService.timeout().toMillis(),
+                () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Attendance report timed out."));
+        if (!caller.id().equals(teacherId)) {
+            result.setResult(ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN));
+            return result;
         }
+        String invalid = filter.validate();
+        if (invalid != null) {
+            result.setResult(ResponseEntity.badRequest().body(invalid));
+            return result;
+        }
+        result.onCompletion(cancellation::cancel);
+
+        teacherReportService.courses(teacherId, cancellation)
+                .thenApply(courses -> filter.course() == null ? courses
+                        : courses.stream().filter(course -> course.getId().equals(filter.course())).toList())
+                .thenCompose(courses -> courses.isEmpty()
+                        ? CompletableFuture.<ResponseEntity<?>>completedFuture(
+                                ResponseEntity.status(HttpStatus.NOT_FOUND).body("No courses found for this teacher."))
+                        : build.apply(courses, cancellation))
+                .whenComplete((response, error) -> {
+                    if (error == null) {
+                        result.setResult(response);
+                        return;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof CancellationException) {
+                        // Already answered by the timeout, or nobody is listening anymore
+                        return;
+                    }
+                    if (cause instanceof TaskRejectedException) {
+                        result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .body("Too many reports are being prepared, try again later."));
+                    } else {
+                        result.setResult(ResponseEntity.internalServerError().body(errorPrefix + cause.getMessage()));
+                    }
+                });
+        return result;
     }
 
+    // From the roster snapshot while it is current
+    private List<EnrolledStudent> roster(Long courseId) {
+        return rosterSnapshotService.current()
+                .map(snapshot -> snapshot.roster(courseId))
+                .orElseGet(() -> enrollmentRepository.findEnrolledStudents(courseId));
+    }
 
-
-}
\ No newline at end of file
+    // Asked of the database every time: the name cache and the roster snapshot may still show a
+    // teacher who was taken off the course, on this instance or another one
+    private boolean ownsCourse(AuthenticatedUser caller, Long courseId) {
+        return courseRepository.existsByIdAndTeacherId(courseId, caller.id());
+    }
+}
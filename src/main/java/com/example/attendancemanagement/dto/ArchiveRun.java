@@ -0,0 +1,8 @@
+package com.example.attendancemanagement.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Result of one archive run: the terms written to segments and the rows moved out of the attendance table
+public record ArchiveRun(LocalDate before, List<LocalDate> termsArchived, long rowsArchived, long rowsDeleted) {
+}
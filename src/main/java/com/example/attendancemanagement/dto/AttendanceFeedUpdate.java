@@ -0,0 +1,11 @@
+package com.example.attendancemanagement.dto;
+
+import java.util.List;
+
+// One committed marking batch of one course, pushed to the live attendance feeds: the students
+// marked in it and the course's totals for the day right after the commit
+public record AttendanceFeedUpdate(Long courseId, List<MarkedStudent> marked, DailyAttendanceTotals totals) {
+
+    public record MarkedStudent(Long studentId, String status) {
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.attendancemanagement.dto;
+
+// Totals and Present streaks of one student in one course, computed from the attendance ledger
+public record AttendanceLedgerSummary(Long studentId, Long courseId, int conducted, int present, int absent,
+                                      int other, double percentage, int currentStreak, int longestStreak) {
+}
@@ -0,0 +1,12 @@
+package com.example.attendancemanagement.dto;
+
+import java.time.LocalDate;
+
+// Flat row of the admin attendance report, filled by a single joined query
+public record AttendanceReportRow(LocalDate date,
+                                  String courseName,
+                                  String studentName,
+                                  Long teacherId,
+                                  String teacherName,
+                                  String status) {
+}
@@ -0,0 +1,7 @@
+package com.example.attendancemanagement.dto;
+
+import java.time.LocalDate;
+
+// One attendance row of a course, projected without loading the Attendance entity graph
+public record CourseAttendanceRow(LocalDate date, String studentName, String status) {
+}
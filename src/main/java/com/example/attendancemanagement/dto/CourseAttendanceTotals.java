@@ -0,0 +1,5 @@
+package com.example.attendancemanagement.dto;
+
+// All attendance ever marked in one course, read from the daily rollup
+public record CourseAttendanceTotals(Long courseId, String courseName, long present, long absent, long marked) {
+}
@@ -0,0 +1,4 @@
+package com.example.attendancemanagement.dto;
+
+public record CourseSummary(Long id, String name, Long teacherId) {
+}
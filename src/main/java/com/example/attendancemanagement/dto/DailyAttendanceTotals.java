@@ -0,0 +1,7 @@
+package com.example.attendancemanagement.dto;
+
+import java.time.LocalDate;
+
+// Attendance marked on one date, read from the daily rollup
+public record DailyAttendanceTotals(LocalDate date, long present, long absent, long marked) {
+}
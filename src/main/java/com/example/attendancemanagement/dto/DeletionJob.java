@@ -0,0 +1,19 @@
+package com.example.attendancemanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+// Progress of a course or user deletion; the error is only set once a job has failed
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DeletionJob(String id, Target target, Long targetId, Status status, long attendanceDeleted,
+                          Instant startedAt, Instant finishedAt, String error) {
+
+    public enum Target {
+        course, user
+    }
+
+    public enum Status {
+        running, completed, failed
+    }
+}
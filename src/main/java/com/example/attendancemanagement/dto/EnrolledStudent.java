@@ -0,0 +1,5 @@
+package com.example.attendancemanagement.dto;
+
+// One student of a course roster, projected without loading the Enrollment and User entities
+public record EnrolledStudent(Long studentId, String studentName) {
+}
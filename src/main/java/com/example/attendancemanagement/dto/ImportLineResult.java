@@ -0,0 +1,20 @@
+package com.example.attendancemanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Outcome of one line of a bulk import; the message says why a line was rejected
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportLineResult(long line, Status status, String message) {
+
+    public enum Status {
+        created, rejected
+    }
+
+    public static ImportLineResult created(long line) {
+        return new ImportLineResult(line, Status.created, null);
+    }
+
+    public static ImportLineResult rejected(long line, String message) {
+        return new ImportLineResult(line, Status.rejected, message);
+    }
+}
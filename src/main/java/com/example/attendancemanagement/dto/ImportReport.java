@@ -0,0 +1,7 @@
+package com.example.attendancemanagement.dto;
+
+import java.util.List;
+
+// Result of a bulk import: totals plus one entry per data line, in line order
+public record ImportReport(int created, int rejected, List<ImportLineResult> lines) {
+}
@@ -0,0 +1,69 @@
+package com.example.attendancemanagement.dto;
+
+import com.example.attendancemanagement.entity.User;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+// Query parameters shared by the list endpoints: ?from=&to= (ISO dates, inclusive), ?course=,
+// ?status= (case-insensitive), ?role=, ?limit= and ?pageToken=. Each endpoint applies the ones
+// that make sense for what it lists. Pages are keyset pages in id order; the token of the next
+// page is returned in the X-Next-Page-Token header.
+public record ListFilter(@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                         Long course, String status, User.Role role, Integer limit, String pageToken) {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String TOKEN_PREFIX = "id:";
+
+    public static ListFilter none() {
+        return new ListFilter(null, null, null, null, null, null, null);
+    }
+
+    // Message for a filter that cannot be applied, or null when it is fine
+    public String validate() {
+        if (from != null && to != null && from.isAfter(to)) {
+            return "from must not be after to.";
+        }
+        if (limit != null && limit < 1) {
+            return "limit must be positive.";
+        }
+        if (pageToken != null) {
+            try {
+                after();
+            } catch (IllegalArgumentException e) {
+                return "Invalid page token.";
+            }
+        }
+        return null;
+    }
+
+    public int pageSize() {
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    public String normalizedStatus() {
+        return status == null || status.isBlank() ? null : status.trim().toLowerCase();
+    }
+
+    // Id after which the requested page starts, or null for the first page
+    public Long after() {
+        if (pageToken == null || pageToken.isBlank()) {
+            return null;
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+        if (!decoded.startsWith(TOKEN_PREFIX)) {
+            throw new IllegalArgumentException("Not a page token: " + pageToken);
+        }
+        return Long.valueOf(decoded.substring(TOKEN_PREFIX.length()));
+    }
+
+    public static String pageToken(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((TOKEN_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+}
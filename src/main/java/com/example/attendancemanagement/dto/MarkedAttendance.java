@@ -0,0 +1,7 @@
+package com.example.attendancemanagement.dto;
+
+import java.time.LocalDate;
+
+// An attendance row written by the batch marking path
+public record MarkedAttendance(Long courseId, Long studentId, LocalDate date, String status) {
+}
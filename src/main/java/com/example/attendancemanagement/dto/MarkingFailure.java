@@ -0,0 +1,5 @@
+package com.example.attendancemanagement.dto;
+
+// A payload entry that was rejected by the batch marking path
+public record MarkingFailure(Long studentId, Long courseId, String message) {
+}
@@ -0,0 +1,10 @@
+package com.example.attendancemanagement.dto;
+
+import java.util.List;
+
+public record MarkingResult(List<MarkedAttendance> marked, List<MarkingFailure> failures) {
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.attendancemanagement.dto;
+
+import java.time.LocalDate;
+
+// One attendance row of a student, projected without loading the Attendance entity graph
+public record StudentAttendanceRow(LocalDate date, String courseName, Long teacherId, String status) {
+}
@@ -0,0 +1,6 @@
+package com.example.attendancemanagement.dto;
+
+import com.example.attendancemanagement.entity.User;
+
+public record UserSummary(Long id, String username, User.Role role) {
+}
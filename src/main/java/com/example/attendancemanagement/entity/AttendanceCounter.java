@@ -0,0 +1,73 @@
+package com.example.attendancemanagement.entity;
+
+import jakarta.persistence.*;
+
+// Running attendance totals of one student in one course, kept up to date by the marking path
+@Entity
+@Table(name = "attendance_counter",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "course_id"}))
+public class AttendanceCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    private long conducted;
+    private long present;
+    private long absent;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public long getConducted() {
+        return conducted;
+    }
+
+    public void setConducted(long conducted) {
+        this.conducted = conducted;
+    }
+
+    public long getPresent() {
+        return present;
+    }
+
+    public void setPresent(long present) {
+        this.present = present;
+    }
+
+    public long getAbsent() {
+        return absent;
+    }
+
+    public void setAbsent(long absent) {
+        this.absent = absent;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.attendancemanagement.entity;
+
+import com.example.attendancemanagement.ledger.AttendanceTerm;
+import com.example.attendancemanagement.ledger.StatusLedger;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+// Attendance of one student in one course for one term, one 2-bit status per day
+@Entity
+@Table(name = "attendance_ledger",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "course_id", "term_start"}))
+public class AttendanceLedger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "term_start", nullable = false)
+    private LocalDate termStart;
+
+    @Column(nullable = false, length = StatusLedger.ENCODED_BYTES)
+    private byte[] statuses;
+
+    public AttendanceTerm term() {
+        return new AttendanceTerm(termStart);
+    }
+
+    public StatusLedger ledger() {
+        return StatusLedger.decode(statuses);
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public LocalDate getTermStart() {
+        return termStart;
+    }
+
+    public void setTermStart(LocalDate termStart) {
+        this.termStart = termStart;
+    }
+
+    public byte[] getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(byte[] statuses) {
+        this.statuses = statuses;
+    }
+}
@@ -1,8 +1,16 @@
 package com.example.attendancemanagement.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+// A lazy reference that was never loaded serializes without the proxy internals
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
+// Read on nearly every request and rarely written; bounds are in application.conf
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "courses")
 public class Course {
 
     @Id
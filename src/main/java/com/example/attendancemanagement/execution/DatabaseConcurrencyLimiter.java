@@ -0,0 +1,68 @@
+package com.example.attendancemanagement.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Fair semaphore bounding how many connections are in use at once. With virtual threads every
+// request can reach JDBC at the same time, so callers wait here for a bounded time instead of
+// piling up inside the connection pool.
+public class DatabaseConcurrencyLimiter implements MeterBinder {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final Duration acquireTimeout;
+    private Counter rejected;
+
+    public DatabaseConcurrencyLimiter(int maxConcurrent, Duration acquireTimeout) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("At least one concurrent connection is required");
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                if (rejected != null) {
+                    rejected.increment();
+                }
+                throw new SQLTransientConnectionException(
+                        "All " + maxConcurrent + " database permits are in use, gave up after " + acquireTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    public int available() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("attendance.datasource.permits.available", permits, Semaphore::availablePermits)
+                .description("Database permits not currently held")
+                .register(registry);
+        Gauge.builder("attendance.datasource.permits.waiting", permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a database permit")
+                .register(registry);
+        rejected = Counter.builder("attendance.datasource.permits.rejected")
+                .description("Connection requests that timed out waiting for a permit")
+                .register(registry);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.attendancemanagement.execution;
+
+import com.example.attendancemanagement.monitoring.RequestSqlStats;
+import com.example.attendancemanagement.routing.DataSourceRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+// Request execution mode: spring.threads.virtual.enabled moves Tomcat request handling and the
+// MVC async executor onto virtual threads on Java 21+. Either way, database work goes through
+// the concurrency limiter so the connection pool is never oversubscribed.
+@Configuration
+public class ExecutionModeConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionModeConfiguration.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean
+    DatabaseConcurrencyLimiter databaseConcurrencyLimiter(
+            @Value("${attendance.datasource.max-concurrent-connections:10}") int maxConcurrent,
+            @Value("${attendance.datasource.acquire-timeout:PT5S}") Duration acquireTimeout) {
+        return new DatabaseConcurrencyLimiter(maxConcurrent, acquireTimeout);
+    }
+
+    @Bean
+    static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(ObjectProvider<DatabaseConcurrencyLimiter> limiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitingDataSource)) {
+                    return new ConcurrencyLimitingDataSource(dataSource, limiter.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Streamed bodies run on the MVC async executor, which Spring Boot builds with this decorator, and
+    // the report pool uses it too. Boot only applies a decorator when there is exactly one, so the
+    // per-request SQL stats and data source route are carried over by a single composite.
+    @Bean
+    TaskDecorator requestContextTaskDecorator() {
+        return new CompositeTaskDecorator(List.of(RequestSqlStats::propagate, DataSourceRouting::propagate));
+    }
+
+    // Spring Boot silently ignores the switch on older runtimes, so say so once at startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportExecutionMode() {
+        int feature = Runtime.version().feature();
+        if (virtualThreads && feature < 21) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; "
+                    + "requests run on the platform thread pool", feature);
+        } else {
+            log.info("Requests run on {} threads", virtualThreads ? "virtual" : "platform");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.attendancemanagement.ledger;
+
+// Status of one student on one lecture day, stored as a 2-bit code in the attendance ledger.
+// Code 0 means no attendance was taken that day.
+public enum AttendanceStatus {
+    NOT_MARKED(0, null),
+    PRESENT(1, "Present"),
+    ABSENT(2, "Absent"),
+    // Any other free-form status the marking endpoint accepted (late, excused, ...)
+    OTHER(3, "Other");
+
+    private final int code;
+    private final String label;
+
+    AttendanceStatus(int code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static AttendanceStatus fromCode(int code) {
+        return switch (code & 0b11) {
+            case 1 -> PRESENT;
+            case 2 -> ABSENT;
+            case 3 -> OTHER;
+            default -> NOT_MARKED;
+        };
+    }
+
+    // Maps the String statuses of the attendance table, compared case-insensitively like the rest of the app
+    public static AttendanceStatus fromLabel(String label) {
+        if (label == null || label.isBlank()) {
+            return NOT_MARKED;
+        }
+        if (label.trim().equalsIgnoreCase("Present")) {
+            return PRESENT;
+        }
+        if (label.trim().equalsIgnoreCase("Absent")) {
+            return ABSENT;
+        }
+        return OTHER;
+    }
+}
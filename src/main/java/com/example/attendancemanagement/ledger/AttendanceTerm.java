@@ -0,0 +1,32 @@
+package com.example.attendancemanagement.ledger;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.ChronoUnit;
+
+// Half-year term a ledger covers: January to June or July to December
+public record AttendanceTerm(LocalDate start) {
+
+    // Longest term is July to December
+    public static final int MAX_DAYS = 184;
+
+    public static AttendanceTerm of(LocalDate date) {
+        Month first = date.getMonthValue() <= 6 ? Month.JANUARY : Month.JULY;
+        return new AttendanceTerm(LocalDate.of(date.getYear(), first, 1));
+    }
+
+    public LocalDate end() {
+        return start.plusMonths(6).minusDays(1);
+    }
+
+    public int dayIndex(LocalDate date) {
+        if (date.isBefore(start) || date.isAfter(end())) {
+            throw new IllegalArgumentException(date + " is not in the term starting " + start);
+        }
+        return (int) ChronoUnit.DAYS.between(start, date);
+    }
+
+    public LocalDate date(int dayIndex) {
+        return start.plusDays(dayIndex);
+    }
+}
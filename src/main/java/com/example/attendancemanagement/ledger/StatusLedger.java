@@ -0,0 +1,143 @@
+package com.example.attendancemanagement.ledger;
+
+import java.util.Arrays;
+
+// Daily statuses of one student in one course for one term, packed as 2-bit codes:
+// day d lives in bits 2*(d % 32) .. 2*(d % 32) + 1 of word d / 32.
+// Counts and streaks are computed with word-wide masks and bit counts instead of per-day loops.
+public final class StatusLedger {
+
+    static final int WORDS = (AttendanceTerm.MAX_DAYS * 2 + Long.SIZE - 1) / Long.SIZE;
+    // Byte length of the encoded form stored in attendance_ledger.statuses
+    public static final int ENCODED_BYTES = WORDS * Long.BYTES;
+
+    // Low bit of every 2-bit slot
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    private final long[] words;
+
+    public StatusLedger() {
+        this(new long[WORDS]);
+    }
+
+    private StatusLedger(long[] words) {
+        this.words = words;
+    }
+
+    public AttendanceStatus get(int day) {
+        checkDay(day);
+        return AttendanceStatus.fromCode((int) (words[day >>> 5] >>> shift(day)));
+    }
+
+    public void set(int day, AttendanceStatus status) {
+        checkDay(day);
+        int word = day >>> 5;
+        words[word] = (words[word] & ~(0b11L << shift(day))) | ((long) status.code() << shift(day));
+    }
+
+    // Little-endian words so the stored bytes read as days in order, 4 per byte
+    public byte[] encode() {
+        byte[] bytes = new byte[ENCODED_BYTES];
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            for (int b = 0; b < Long.BYTES; b++) {
+                bytes[i * Long.BYTES + b] = (byte) (word >>> (b * 8));
+            }
+        }
+        return bytes;
+    }
+
+    public static StatusLedger decode(byte[] bytes) {
+        long[] words = new long[WORDS];
+        if (bytes != null) {
+            for (int i = 0; i < Math.min(bytes.length, ENCODED_BYTES); i++) {
+                words[i / Long.BYTES] |= (bytes[i] & 0xFFL) << ((i % Long.BYTES) * 8);
+            }
+        }
+        return new StatusLedger(words);
+    }
+
+    public int conducted() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(marked(word));
+        }
+        return count;
+    }
+
+    public int count(AttendanceStatus status) {
+        if (status == AttendanceStatus.NOT_MARKED) {
+            // The last word has slots past the end of the term
+            return AttendanceTerm.MAX_DAYS - conducted();
+        }
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(matching(word, status));
+        }
+        return count;
+    }
+
+    // Longest and trailing run of consecutive Present lecture days, continuing a run carried over
+    // from the previous term. Days without attendance do not break a run.
+    public PresentRuns presentRuns(int carriedRun) {
+        int longest = carriedRun;
+        int run = carriedRun;
+        for (long word : words) {
+            long present = matching(word, AttendanceStatus.PRESENT);
+            long marked = marked(word);
+            if (marked == present) {
+                // Nothing breaks the run in these 32 days
+                run += Long.bitCount(present);
+                longest = Math.max(longest, run);
+                continue;
+            }
+            while (marked != 0) {
+                long slot = Long.lowestOneBit(marked);
+                run = (present & slot) != 0 ? run + 1 : 0;
+                longest = Math.max(longest, run);
+                marked &= marked - 1;
+            }
+        }
+        return new PresentRuns(longest, run);
+    }
+
+    public record PresentRuns(int longest, int trailing) {
+    }
+
+    // Low bit set for every slot with any status
+    private static long marked(long word) {
+        return (word | (word >>> 1)) & LOW_BITS;
+    }
+
+    // Low bit set for every slot holding exactly this status
+    private static long matching(long word, AttendanceStatus status) {
+        long low = word & LOW_BITS;
+        long high = (word >>> 1) & LOW_BITS;
+        return switch (status) {
+            case PRESENT -> low & ~high;
+            case ABSENT -> high & ~low;
+            case OTHER -> low & high;
+            case NOT_MARKED -> ~(low | high) & LOW_BITS;
+        };
+    }
+
+    private static int shift(int day) {
+        return (day & 31) << 1;
+    }
+
+    private static void checkDay(int day) {
+        if (day < 0 || day >= AttendanceTerm.MAX_DAYS) {
+            throw new IndexOutOfBoundsException("Day " + day + " is outside of a term");
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof StatusLedger ledger && Arrays.equals(words, ledger.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
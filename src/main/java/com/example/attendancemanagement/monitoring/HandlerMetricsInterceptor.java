@@ -0,0 +1,96 @@
+package com.example.attendancemanagement.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+// Records latency, statement count and fetched rows per controller method and warns when one
+// request runs the same statement shape more often than the configured threshold (an N+1).
+// Streamed responses are recorded once their async part has finished.
+class HandlerMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(HandlerMetricsInterceptor.class);
+
+    private static final String START_ATTRIBUTE = HandlerMetricsInterceptor.class.getName() + ".start";
+    private static final String STATS_ATTRIBUTE = HandlerMetricsInterceptor.class.getName() + ".stats";
+
+    private final MeterRegistry registry;
+    private final int repeatedStatementThreshold;
+
+    HandlerMetricsInterceptor(MeterRegistry registry, int repeatedStatementThreshold) {
+        this.registry = registry;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            // The async dispatch of a streamed response continues the stats of the original request
+            RequestSqlStats stats = (RequestSqlStats) request.getAttribute(STATS_ATTRIBUTE);
+            if (stats == null) {
+                stats = new RequestSqlStats();
+                request.setAttribute(STATS_ATTRIBUTE, stats);
+                request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            }
+            RequestSqlStats.bind(stats);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestSqlStats.bind(null);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+        RequestSqlStats.bind(null);
+        RequestSqlStats stats = (RequestSqlStats) request.getAttribute(STATS_ATTRIBUTE);
+        Long start = (Long) request.getAttribute(START_ATTRIBUTE);
+        if (stats == null || start == null) {
+            return;
+        }
+
+        String name = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        Timer.builder("attendance.handler.latency")
+                .description("Time spent serving a request, per controller method")
+                .tag("handler", name)
+                .tag("status", String.valueOf(response.getStatus()))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("attendance.handler.sql.statements")
+                .description("JDBC statements executed by one request")
+                .tag("handler", name)
+                .register(registry)
+                .record(stats.statements());
+        DistributionSummary.builder("attendance.handler.sql.rows")
+                .description("Rows fetched from JDBC result sets by one request")
+                .tag("handler", name)
+                .register(registry)
+                .record(stats.rows());
+
+        stats.executionsByShape().forEach((shape, executions) -> {
+            if (executions > repeatedStatementThreshold) {
+                log.warn("{} ran the same statement {} times in one request: {}", name, executions, shape);
+                Counter.builder("attendance.handler.sql.repeated")
+                        .description("Requests that repeated one statement shape more often than the threshold")
+                        .tag("handler", name)
+                        .register(registry)
+                        .increment();
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.attendancemanagement.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class MonitoringConfiguration implements WebMvcConfigurer {
+
+    private final MeterRegistry registry;
+    private final int repeatedStatementThreshold;
+
+    public MonitoringConfiguration(MeterRegistry registry,
+                                   @Value("${attendance.monitoring.repeated-statement-threshold:20}") int repeatedStatementThreshold) {
+        this.registry = registry;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(new HandlerMetricsInterceptor(registry, repeatedStatementThreshold));
+    }
+
+    // Wraps the connection pool so every statement and result set row can be counted
+    @Bean
+    static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    RequestSqlListener listener = new RequestSqlListener();
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(listener)
+                            .methodListener(listener)
+                            .proxyResultSet()
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.attendancemanagement.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+// JDBC statements and rows of one request. The instance is bound to the thread serving the request
+// and handed to the async thread when the request streams its body.
+public final class RequestSqlStats {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicLong rows = new AtomicLong();
+    private final Map<String, AtomicInteger> executionsBySql = new ConcurrentHashMap<>();
+
+    public static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    static void bind(RequestSqlStats stats) {
+        if (stats == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(stats);
+        }
+    }
+
+    // Carries the stats of the submitting thread over to a task run on another thread
+    public static Runnable propagate(Runnable task) {
+        RequestSqlStats stats = current();
+        return () -> {
+            RequestSqlStats previous = current();
+            bind(stats);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    void statement(String sql) {
+        statements.incrementAndGet();
+        executionsBySql.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    void row() {
+        rows.incrementAndGet();
+    }
+
+    public int statements() {
+        return statements.get();
+    }
+
+    public long rows() {
+        return rows.get();
+    }
+
+    // Executions per statement shape: literals and parameter lists are folded so that
+    // "where id = 1" and "where id = 2" or "in (?, ?)" and "in (?, ?, ?)" count as the same statement
+    public Map<String, Integer> executionsByShape() {
+        Map<String, Integer> shapes = new LinkedHashMap<>();
+        executionsBySql.forEach((sql, executions) -> shapes.merge(shape(sql), executions.get(), Integer::sum));
+        return shapes;
+    }
+
+    static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
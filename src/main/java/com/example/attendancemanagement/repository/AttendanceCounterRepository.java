@@ -0,0 +1,10 @@
+package com.example.attendancemanagement.repository;
+
+import com.example.attendancemanagement.entity.AttendanceCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface AttendanceCounterRepository extends JpaRepository<AttendanceCounter, Long> {
+    Optional<AttendanceCounter> findByStudentIdAndCourseId(Long studentId, Long courseId);
+}
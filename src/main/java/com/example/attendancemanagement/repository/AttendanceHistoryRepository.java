@@ -0,0 +1,204 @@
+package com.example.attendancemanagement.repository;
+
+import com.example.attendancemanagement.archive.ArchivedAttendance;
+import com.example.attendancemanagement.archive.AttendanceArchive;
+import com.example.attendancemanagement.dto.AttendanceReportRow;
+import com.example.attendancemanagement.dto.CourseAttendanceRow;
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.dto.StudentAttendanceRow;
+import com.example.attendancemanagement.entity.Attendance;
+import com.example.attendancemanagement.entity.Course;
+import com.example.attendancemanagement.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// The report reads of AttendanceRepository over both tiers: the attendance table from the archive's
+// hotFrom() on, the archive segments before it. Same parameters, row order and join semantics as the
+// queries: rows whose course or student no longer exists are left out, names are looked up in bulk.
+@Repository
+public class AttendanceHistoryRepository {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceArchive attendanceArchive;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    // Archived rows come first: they were all inserted before any row still in the table
+    public List<CourseAttendanceRow> findCourseAttendanceRows(Long courseId, LocalDate from, LocalDate to, String status) {
+        Range range = Range.of(attendanceArchive.hotFrom(), from, to);
+        List<CourseAttendanceRow> rows = new ArrayList<>();
+        if (range.cold()) {
+            List<ArchivedAttendance> archived = withStatus(attendanceArchive.courseRows(courseId, from, range.coldTo()), status);
+            archived.sort(Comparator.comparingLong(ArchivedAttendance::id));
+            Map<Long, User> students = byId(userRepository.findAllById(ids(archived, ArchivedAttendance::studentId)), User::getId);
+            for (ArchivedAttendance row : archived) {
+                User student = students.get(row.studentId());
+                if (student != null) {
+                    rows.add(new CourseAttendanceRow(row.date(), student.getUsername(), row.status()));
+                }
+            }
+        }
+        if (range.hot()) {
+            rows.addAll(attendanceRepository.findCourseAttendanceRows(courseId, range.hotFrom(), to, status));
+        }
+        return rows;
+    }
+
+    // Newest first, so the table's rows come before the archived ones
+    public List<StudentAttendanceRow> findStudentAttendanceRows(Long studentId, LocalDate from, LocalDate to, Long courseId,
+                                                                String status) {
+        Range range = Range.of(attendanceArchive.hotFrom(), from, to);
+        List<StudentAttendanceRow> rows = new ArrayList<>();
+        if (range.hot()) {
+            rows.addAll(attendanceRepository.findStudentAttendanceRows(studentId, range.hotFrom(), to, courseId, status));
+        }
+        if (range.cold()) {
+            List<ArchivedAttendance> archived = withStatus(attendanceArchive.studentRows(studentId, from, range.coldTo(), courseId), status);
+            archived.sort(Comparator.comparing(ArchivedAttendance::date).reversed().thenComparingLong(ArchivedAttendance::id));
+            Map<Long, Course> courses = byId(courseRepository.findAllById(ids(archived, ArchivedAttendance::courseId)), Course::getId);
+            for (ArchivedAttendance row : archived) {
+                Course course = courses.get(row.courseId());
+                if (course != null) {
+                    rows.add(new StudentAttendanceRow(row.date(), course.getName(), course.getTeacherId(), row.status()));
+                }
+            }
+        }
+        return rows;
+    }
+
+    // One keyset page of the student's attendance in id order, filtered like ListSpecifications.attendance
+    // and with page size + 1 rows like ListSpecifications.page. The page is merged by id from both tiers,
+    // as a row of an old term can have been inserted after rows of a later one.
+    public List<Attendance> findStudentAttendancePage(Long studentId, ListFilter filter) {
+        Range range = Range.of(attendanceArchive.hotFrom(), filter.from(), filter.to());
+        Long after = filter.after();
+        int rows = filter.pageSize() + 1;
+        List<Attendance> page = new ArrayList<>();
+        if (range.cold()) {
+            List<ArchivedAttendance> archived = withStatus(
+                    attendanceArchive.studentRows(studentId, filter.from(), range.coldTo(), filter.course()), filter.normalizedStatus());
+            archived.removeIf(row -> after != null && row.id() <= after);
+            archived.sort(Comparator.comparingLong(ArchivedAttendance::id));
+            archived = archived.subList(0, Math.min(archived.size(), rows));
+            User student = archived.isEmpty() ? null : userRepository.findById(studentId).orElse(null);
+            Map<Long, Course> courses = byId(courseRepository.findAllById(ids(archived, ArchivedAttendance::courseId)), Course::getId);
+            for (ArchivedAttendance row : archived) {
+                Course course = courses.get(row.courseId());
+                if (course != null && student != null) {
+                    page.add(row.toAttendance(course, student));
+                }
+            }
+        }
+        if (range.hot()) {
+            ListFilter hot = new ListFilter(range.hotFrom(), filter.to(), filter.course(), filter.status(), filter.role(),
+                    filter.limit(), filter.pageToken());
+            page.addAll(ListSpecifications.page(attendanceRepository, ListSpecifications.attendanceOfStudent(studentId, hot), hot,
+                    "course", "student"));
+        }
+        page.sort(Comparator.comparing(Attendance::getId));
+        return page.size() > rows ? new ArrayList<>(page.subList(0, rows)) : page;
+    }
+
+    // Ordered by date: the archive month by month, then the table's cursor. Names already looked up
+    // for an earlier month are reused.
+    public Stream<AttendanceReportRow> streamReportRows(LocalDate from, LocalDate to, Long courseId, String status) {
+        Range range = Range.of(attendanceArchive.hotFrom(), from, to);
+        Stream<AttendanceReportRow> cold = Stream.empty();
+        if (range.cold()) {
+            Map<Long, Optional<Course>> courses = new HashMap<>();
+            Map<Long, Optional<User>> users = new HashMap<>();
+            cold = attendanceArchive.monthsOf(from, range.coldTo(), courseId)
+                    .flatMap(month -> reportRows(withStatus(month, status), courses, users).stream());
+        }
+        if (!range.hot()) {
+            return cold;
+        }
+        // The cursor is opened once the archived months have been consumed
+        return Stream.concat(cold, Stream.of(range.hotFrom()).flatMap(hotFrom ->
+                attendanceRepository.streamReportRows(hotFrom, to, courseId, status)));
+    }
+
+    public boolean existsByIdNotNull() {
+        return attendanceRepository.existsByIdNotNull() || !attendanceArchive.isEmpty();
+    }
+
+    private List<AttendanceReportRow> reportRows(List<ArchivedAttendance> month, Map<Long, Optional<Course>> courses,
+                                                 Map<Long, Optional<User>> users) {
+        load(courses, ids(month, ArchivedAttendance::courseId), courseRepository::findAllById, Course::getId);
+        Set<Long> userIds = new HashSet<>(ids(month, ArchivedAttendance::studentId));
+        courses.values().forEach(course -> course.map(Course::getTeacherId).ifPresent(userIds::add));
+        load(users, userIds, userRepository::findAllById, User::getId);
+
+        List<AttendanceReportRow> rows = new ArrayList<>(month.size());
+        for (ArchivedAttendance row : month) {
+            Course course = courses.get(row.courseId()).orElse(null);
+            User student = users.get(row.studentId()).orElse(null);
+            if (course == null || student == null) {
+                continue;
+            }
+            String teacherName = course.getTeacherId() == null ? null
+                    : users.get(course.getTeacherId()).map(User::getUsername).orElse(null);
+            rows.add(new AttendanceReportRow(row.date(), course.getName(), student.getUsername(),
+                    course.getTeacherId(), teacherName, row.status()));
+        }
+        return rows;
+    }
+
+    // Fetches the ids not looked up yet; ids that do not exist are remembered as empty
+    private static <T> void load(Map<Long, Optional<T>> known, Collection<Long> ids,
+                                 Function<Collection<Long>, List<T>> fetch, Function<T, Long> id) {
+        List<Long> missing = ids.stream().filter(key -> !known.containsKey(key)).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Long, T> found = byId(fetch.apply(missing), id);
+        missing.forEach(key -> known.put(key, Optional.ofNullable(found.get(key))));
+    }
+
+    // Same comparison as "lower(a.status) = :status"; the status is already normalized
+    private static List<ArchivedAttendance> withStatus(List<ArchivedAttendance> rows, String status) {
+        if (status != null) {
+            rows.removeIf(row -> row.status() == null || !row.status().toLowerCase().equals(status));
+        }
+        return rows;
+    }
+
+    private static Set<Long> ids(List<ArchivedAttendance> rows, Function<ArchivedAttendance, Long> column) {
+        Set<Long> ids = new HashSet<>();
+        rows.forEach(row -> ids.add(column.apply(row)));
+        return ids;
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        Map<Long, T> byId = new HashMap<>();
+        entities.forEach(entity -> byId.put(id.apply(entity), entity));
+        return byId;
+    }
+
+    // Which tiers a date range touches. The table part is clamped to hotFrom, the archive part ends the day before.
+    private record Range(boolean cold, LocalDate coldTo, boolean hot, LocalDate hotFrom) {
+
+        static Range of(LocalDate archivedUntil, LocalDate from, LocalDate to) {
+            if (archivedUntil == null) {
+                return new Range(false, null, true, from);
+            }
+            boolean cold = from == null || from.isBefore(archivedUntil);
+            boolean hot = to == null || !to.isBefore(archivedUntil);
+            LocalDate lastArchived = archivedUntil.minusDays(1);
+            return new Range(cold, to == null || to.isAfter(lastArchived) ? lastArchived : to,
+                    hot, from == null || from.isBefore(archivedUntil) ? archivedUntil : from);
+        }
+    }
+}
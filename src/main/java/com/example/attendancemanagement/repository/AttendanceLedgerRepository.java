@@ -0,0 +1,10 @@
+package com.example.attendancemanagement.repository;
+
+import com.example.attendancemanagement.entity.AttendanceLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface AttendanceLedgerRepository extends JpaRepository<AttendanceLedger, Long> {
+    List<AttendanceLedger> findByStudentIdAndCourseIdOrderByTermStartAsc(Long studentId, Long courseId);
+}
@@ -0,0 +1,24 @@
+package com.example.attendancemanagement.repository;
+
+import com.example.attendancemanagement.dto.AttendanceReportRow;
+import com.example.attendancemanagement.dto.CourseAttendanceRow;
+import com.example.attendancemanagement.dto.StudentAttendanceRow;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+// The report reads of AttendanceRepository. Null bounds, course and status are not applied: only the
+// filters that are set become predicates (see AttendanceReportQueriesImpl).
+public interface AttendanceReportQueries {
+
+    // Rows of one course for the teacher reports, one query per course
+    List<CourseAttendanceRow> findCourseAttendanceRows(Long courseId, LocalDate from, LocalDate to, String status);
+
+    // Rows of one student for the grouped report, newest first
+    List<StudentAttendanceRow> findStudentAttendanceRows(Long studentId, LocalDate from, LocalDate to, Long courseId,
+                                                         String status);
+
+    // One joined, projected query for the admin report; rows come back ordered by date so they can be grouped in a single pass
+    Stream<AttendanceReportRow> streamReportRows(LocalDate from, LocalDate to, Long courseId, String status);
+}
@@ -0,0 +1,75 @@
+package com.example.attendancemanagement.repository;
+
+import com.example.attendancemanagement.dto.AttendanceReportRow;
+import com.example.attendancemanagement.dto.CourseAttendanceRow;
+import com.example.attendancemanagement.dto.StudentAttendanceRow;
+import com.example.attendancemanagement.entity.Attendance;
+import com.example.attendancemanagement.entity.Course;
+import com.example.attendancemanagement.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.JpaEntityJoin;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.sqm.tree.SqmJoinType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+// Criteria versions of the report reads, filtered by ListSpecifications.attendance. A catch-all
+// "(:from is null or a.date >= :from)" predicate keeps the planner from using the date and status
+// columns of the indexes; here every combination of filters gets a statement with only its own.
+class AttendanceReportQueriesImpl implements AttendanceReportQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CourseAttendanceRow> findCourseAttendanceRows(Long courseId, LocalDate from, LocalDate to, String status) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CourseAttendanceRow> query = cb.createQuery(CourseAttendanceRow.class);
+        Root<Attendance> attendance = query.from(Attendance.class);
+        Join<Attendance, User> student = attendance.join("student");
+        query.select(cb.construct(CourseAttendanceRow.class, attendance.get("date"), student.get("username"), attendance.get("status")))
+                .where(ListSpecifications.attendance(from, to, courseId, status).toPredicate(attendance, query, cb))
+                .orderBy(cb.asc(attendance.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<StudentAttendanceRow> findStudentAttendanceRows(Long studentId, LocalDate from, LocalDate to, Long courseId,
+                                                                String status) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<StudentAttendanceRow> query = cb.createQuery(StudentAttendanceRow.class);
+        Root<Attendance> attendance = query.from(Attendance.class);
+        Join<Attendance, Course> course = attendance.join("course");
+        query.select(cb.construct(StudentAttendanceRow.class,
+                        attendance.get("date"), course.get("name"), course.get("teacherId"), attendance.get("status")))
+                .where(ListSpecifications.attendanceOfStudent(studentId, from, to, courseId, status).toPredicate(attendance, query, cb))
+                .orderBy(cb.desc(attendance.get("date")), cb.asc(attendance.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public Stream<AttendanceReportRow> streamReportRows(LocalDate from, LocalDate to, Long courseId, String status) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AttendanceReportRow> query = cb.createQuery(AttendanceReportRow.class);
+        Root<Attendance> attendance = query.from(Attendance.class);
+        Join<Attendance, Course> course = attendance.join("course");
+        Join<Attendance, User> student = attendance.join("student");
+        // Course has no teacher association, only the id: an entity join like the JPQL "left join User t on ..."
+        JpaEntityJoin<User> teacher = ((JpaRoot<Attendance>) attendance).join(User.class, SqmJoinType.LEFT);
+        teacher.on(cb.equal(teacher.get("id"), course.get("teacherId")));
+        query.select(cb.construct(AttendanceReportRow.class, attendance.get("date"), course.get("name"), student.get("username"),
+                        course.get("teacherId"), teacher.get("username"), attendance.get("status")))
+                .where(ListSpecifications.attendance(from, to, courseId, status).toPredicate(attendance, query, cb))
+                .orderBy(cb.asc(attendance.get("date")));
+        return entityManager.createQuery(query).setHint(HINT_FETCH_SIZE, 1000).getResultStream();
+    }
+}
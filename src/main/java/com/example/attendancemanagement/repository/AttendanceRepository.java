@@ -2,25 +2,44 @@ package com.example.attendancemanagement.repository;
 
 
 import com.example.attendancemanagement.entity.Attendance;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface AttendanceRepository extends JpaRepository<Attendance, Long>, JpaSpecificationExecutor<Attendance>,
+        AttendanceReportQueries {
     List<Attendance> findByStudentId(Long studentId);
     List<Attendance> findByCourseId(Long courseId);
-    @Transactional
-    void deleteByCourseId(Long courseId);
 
     Optional<Attendance> findByCourseIdAndStudentIdAndDate(Long courseId, Long studentId, LocalDate date);
 
     Collection<Object> findByCourseIdAndDate(Long courseId, LocalDate today);
-    List<Long> findStudentIdsByCourseIdAndDate(Long courseId, LocalDate today);
+    @Query("select a.student.id from Attendance a where a.course.id = :courseId and a.date = :date")
+    List<Long> findStudentIdsByCourseIdAndDate(@Param("courseId") Long courseId, @Param("date") LocalDate today);
 
     List<Attendance> findAllByCourseIdIn(List<Long> courseIds);
+
+    boolean existsByIdNotNull();
+
+    @Query("select a.student.id from Attendance a where a.course.id = :courseId and a.date = :date and a.student.id in :studentIds")
+    Set<Long> findMarkedStudentIds(@Param("courseId") Long courseId, @Param("date") LocalDate date, @Param("studentIds") Collection<Long> studentIds);
+
+    // Keyset export of one student's attendance, with course and student fetched in the same query
+    @EntityGraph(attributePaths = {"course", "student"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Attendance> findByStudentIdAndIdGreaterThanOrderByIdAsc(Long studentId, Long after, Limit limit);
 }
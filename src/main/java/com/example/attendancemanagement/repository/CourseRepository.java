@@ -1,15 +1,38 @@
 package com.example.attendancemanagement.repository;
 
+import com.example.attendancemanagement.dto.CourseSummary;
 import com.example.attendancemanagement.entity.Course;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
     List<Course> findByTeacherId(Long teacherId); // Find all courses assigned to a teacher
 
     Optional<Course> findByName(String name);
 
+    // Not cached on purpose: authorization checks must see reassignments made on any instance
+    boolean existsByIdAndTeacherId(Long id, Long teacherId);
+
+    // Every teacher endpoint starts here; answered from the query cache
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Course> findAllByTeacherId(Long teacherId);
+
+    // Keyset export: rows after the given id, in id order
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Course> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    // For NameCache, past the second-level cache like UserRepository.findSummaryById
+    @Query("select new com.example.attendancemanagement.dto.CourseSummary(c.id, c.name, c.teacherId) from Course c where c.id = :id")
+    Optional<CourseSummary> findSummaryById(@Param("id") Long id);
 }
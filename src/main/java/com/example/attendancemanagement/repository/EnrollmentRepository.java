@@ -1,26 +1,43 @@
 package com.example.attendancemanagement.repository;
 
+import com.example.attendancemanagement.dto.EnrolledStudent;
 import com.example.attendancemanagement.entity.Enrollment;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface EnrollmentRepository extends JpaRepository<Enrollment, Long>, JpaSpecificationExecutor<Enrollment> {
     Enrollment findByStudent_IdAndCourse_Id(Long studentId, Long courseId);
-    @Transactional
-    void deleteByCourseId(Long courseId);
 
     // Corrected method to fetch enrollments by student ID
     List<Enrollment> findByStudent_Id(Long studentId);
 
-    //@Transactional // Ensure transactional consistency
-    default void deleteByStudentId(Long studentId) {
-        List<Enrollment> enrollments = findByStudent_Id(studentId); // Corrected query method
-        deleteAll(enrollments); // Delete all fetched enrollments
-    }
-
     List<Enrollment> findAllByCourseId(Long courseId);
 
     List<Enrollment> findByCourse_Id(Long courseId);
+
+    // Roster of one course in enrollment order: student id and username only
+    @Query("select new com.example.attendancemanagement.dto.EnrolledStudent(s.id, s.username) " +
+            "from Enrollment e join e.student s where e.course.id = :courseId order by e.id")
+    List<EnrolledStudent> findEnrolledStudents(@Param("courseId") Long courseId);
+
+    @Query("select e.student.id from Enrollment e where e.course.id = :courseId and e.student.id in :studentIds")
+    Set<Long> findEnrolledStudentIds(@Param("courseId") Long courseId, @Param("studentIds") Collection<Long> studentIds);
+
+    // Keyset export: rows after the given id, in id order, with student and course fetched in the same query
+    @EntityGraph(attributePaths = {"student", "course"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Enrollment> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
 }
@@ -0,0 +1,81 @@
+package com.example.attendancemanagement.repository;
+
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.entity.Attendance;
+import com.example.attendancemanagement.entity.Enrollment;
+import com.example.attendancemanagement.entity.User;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Criteria for the list endpoints, built from the shared ListFilter so the filtering happens in SQL
+public final class ListSpecifications {
+
+    private static final Sort BY_ID = Sort.by("id");
+
+    private ListSpecifications() {
+    }
+
+    public static Specification<Attendance> attendance(ListFilter filter) {
+        return attendance(filter.from(), filter.to(), filter.course(), filter.normalizedStatus());
+    }
+
+    // Only the arguments that are set become predicates. The status is compared as is: the column's
+    // collation is case-insensitive, and lower() around it would keep the indexes from being used.
+    public static Specification<Attendance> attendance(LocalDate from, LocalDate to, Long courseId, String status) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("date"), from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("date"), to));
+            }
+            if (courseId != null) {
+                predicates.add(cb.equal(root.get("course").get("id"), courseId));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    public static Specification<Attendance> attendanceOfStudent(Long studentId, ListFilter filter) {
+        return attendanceOfStudent(studentId, filter.from(), filter.to(), filter.course(), filter.normalizedStatus());
+    }
+
+    public static Specification<Attendance> attendanceOfStudent(Long studentId, LocalDate from, LocalDate to, Long courseId,
+                                                                String status) {
+        Specification<Attendance> student = (root, query, cb) -> cb.equal(root.get("student").get("id"), studentId);
+        return student.and(attendance(from, to, courseId, status));
+    }
+
+    public static Specification<Enrollment> enrollments(ListFilter filter) {
+        return (root, query, cb) -> filter.course() == null
+                ? cb.conjunction()
+                : cb.equal(root.get("course").get("id"), filter.course());
+    }
+
+    public static Specification<User> users(ListFilter filter) {
+        return (root, query, cb) -> filter.role() == null
+                ? cb.conjunction()
+                : cb.equal(root.get("role"), filter.role());
+    }
+
+    // One keyset page in id order, with the given associations fetched in the same query. One row
+    // more than the page size is read so the caller can tell whether another page follows.
+    public static <T> List<T> page(JpaSpecificationExecutor<T> repository, Specification<T> specification, ListFilter filter,
+                                   String... fetch) {
+        Long after = filter.after();
+        Specification<T> keyset = after == null
+                ? specification
+                : specification.and((root, query, cb) -> cb.greaterThan(root.get("id"), after));
+        return repository.findBy(keyset, query -> query.sortBy(BY_ID).limit(filter.pageSize() + 1).project(fetch).all());
+    }
+}
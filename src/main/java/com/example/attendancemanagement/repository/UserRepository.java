@@ -1,11 +1,33 @@
 package com.example.attendancemanagement.repository;
 
+import com.example.attendancemanagement.dto.UserSummary;
 import com.example.attendancemanagement.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+    // Every login and most authorization checks; answered from the query cache
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
 
+    // Keyset export: rows after the given id, in id order
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<User> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    // For NameCache: a query, not findById, so a reload after expiry reads the row rather than this
+    // instance's second-level cache, which other instances' writes do not reach
+    @Query("select new com.example.attendancemanagement.dto.UserSummary(u.id, u.username, u.role) from User u where u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") Long id);
+
 }
@@ -0,0 +1,6 @@
+package com.example.attendancemanagement.routing;
+
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA
+}
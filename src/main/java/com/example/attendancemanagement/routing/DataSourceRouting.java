@@ -0,0 +1,37 @@
+package com.example.attendancemanagement.routing;
+
+// Route chosen for the request served by the current thread. Threads without one (startup,
+// background jobs) follow the read-only flag of their transaction.
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<DataSourceRoute> CURRENT = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    public static DataSourceRoute current() {
+        return CURRENT.get();
+    }
+
+    static void bind(DataSourceRoute route) {
+        if (route == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(route);
+        }
+    }
+
+    // Carries the route of the submitting thread over to a task run on another thread
+    public static Runnable propagate(Runnable task) {
+        DataSourceRoute route = current();
+        return () -> {
+            DataSourceRoute previous = current();
+            bind(route);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.attendancemanagement.routing;
+
+import com.example.attendancemanagement.auth.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+// Routes GET handlers to the replica and every other handler to the primary. A user who has just
+// written reads from the primary for a short window so they see their own changes despite replica lag,
+// and handlers marked @ReadsFromPrimary always do.
+class ReadOnlyRoutingInterceptor implements AsyncHandlerInterceptor {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    ReadOnlyRoutingInterceptor(Duration readYourWritesWindow) {
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            boolean replica = isRead(request) && !method.hasMethodAnnotation(ReadsFromPrimary.class) && !wroteRecently(request);
+            DataSourceRouting.bind(replica ? DataSourceRoute.REPLICA : DataSourceRoute.PRIMARY);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        DataSourceRouting.bind(null);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod)) {
+            return;
+        }
+        DataSourceRouting.bind(null);
+        // The window starts once the write has been committed and answered
+        if (!isRead(request) && request.getAttribute(AuthenticatedUser.ATTRIBUTE) instanceof AuthenticatedUser user) {
+            recentWriters.put(user.id(), Boolean.TRUE);
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    private boolean wroteRecently(HttpServletRequest request) {
+        return request.getAttribute(AuthenticatedUser.ATTRIBUTE) instanceof AuthenticatedUser user
+                && recentWriters.getIfPresent(user.id()) != null;
+    }
+}
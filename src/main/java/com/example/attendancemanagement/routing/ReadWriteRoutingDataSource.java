@@ -0,0 +1,68 @@
+package com.example.attendancemanagement.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+// Sends a connection to the replica when the request was routed there, or, outside a request,
+// when it is taken for a read-only transaction. Writes, read-write transactions and everything
+// while the replica is lagging or unreachable go to the primary.
+// It sits behind a LazyConnectionDataSourceProxy: the transaction's read-only flag is only known
+// once the transaction has started, so the physical connection must be chosen at the first statement.
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final DataSource primary;
+    private final ReplicaMonitor replica;
+
+    ReadWriteRoutingDataSource(DataSource primary, ReplicaMonitor replica) {
+        this.primary = primary;
+        this.replica = replica;
+        setTargetDataSources(Map.of(DataSourceRoute.PRIMARY, primary, DataSourceRoute.REPLICA, replica.dataSource()));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!wantsReplica()) {
+            return DataSourceRoute.PRIMARY;
+        }
+        if (!replica.isAvailable()) {
+            replica.fellBack();
+            return DataSourceRoute.PRIMARY;
+        }
+        return DataSourceRoute.REPLICA;
+    }
+
+    private static boolean wantsReplica() {
+        boolean transaction = TransactionSynchronizationManager.isActualTransactionActive();
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        DataSourceRoute route = DataSourceRouting.current();
+        if (route != null) {
+            // A read-write transaction inside a read-only request still has to write to the primary
+            return route == DataSourceRoute.REPLICA && (!transaction || readOnly);
+        }
+        return transaction && readOnly;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return primary.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            // Reads tolerate a missing replica; the monitor keeps it out until a check succeeds again
+            replica.markUnavailable(e);
+            replica.fellBack();
+            return primary.getConnection();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.attendancemanagement.routing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Keeps a GET handler on the primary. For polled lists whose ETag comes from the durable
+// TableVersions: read from the primary like the rows, a tag never stands for rows older than the
+// newest commit, and any client's next poll after a write is answered with the new rows.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadsFromPrimary {
+}
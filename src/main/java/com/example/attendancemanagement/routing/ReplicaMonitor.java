@@ -0,0 +1,141 @@
+package com.example.attendancemanagement.routing;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Owns the replica pool and decides whether reads may use it. The primary stamps the heartbeat
+// row on every check and the replica's copy of the row tells how far behind it is; the replica is
+// used only while that lag is within the limit and the last check or connection attempt succeeded.
+public class ReplicaMonitor implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaMonitor.class);
+
+    private static final String STAMP = "update replication_heartbeat set beat_at = ? where id = 1";
+    private static final String READ = "select beat_at from replication_heartbeat where id = 1";
+
+    private final HikariDataSource replica;
+    private final JdbcTemplate replicaJdbc;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+
+    private JdbcTemplate primaryJdbc;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean available;
+    private volatile long lagMillis = -1;
+    private Counter fallbacks;
+
+    ReplicaMonitor(String url, String username, String password, int maximumPoolSize,
+                   Duration maxLag, Duration checkInterval) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("replica");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setReadOnly(true);
+        // An unreachable replica must not stop the application from starting
+        config.setInitializationFailTimeout(-1);
+        this.replica = new HikariDataSource(config);
+        this.replicaJdbc = new JdbcTemplate(replica);
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+    }
+
+    DataSource dataSource() {
+        return replica;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    // Replica lag measured by the last successful check, or -1 when it is unknown
+    public long lagMillis() {
+        return lagMillis;
+    }
+
+    // Checks once right away and then periodically; the heartbeat table has to exist on the primary by now
+    void start(DataSource primary) {
+        primaryJdbc = new JdbcTemplate(primary);
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        check();
+        scheduler.scheduleWithFixedDelay(this::check, checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        replica.close();
+    }
+
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            primaryJdbc.update(STAMP, now);
+        } catch (RuntimeException e) {
+            // Without a fresh stamp the replica simply looks further behind on the next check
+            log.warn("Could not stamp the replication heartbeat on the primary: {}", e.getMessage());
+        }
+        try {
+            Long beatAt = replicaJdbc.queryForObject(READ, Long.class);
+            lagMillis = beatAt == null ? Long.MAX_VALUE : Math.max(0, now - beatAt);
+            update(lagMillis <= maxLag.toMillis(), "lag " + lagMillis + " ms, limit " + maxLag.toMillis() + " ms");
+        } catch (RuntimeException e) {
+            lagMillis = -1;
+            update(false, e.getMessage());
+        }
+    }
+
+    void markUnavailable(Exception cause) {
+        update(false, cause.getMessage());
+    }
+
+    void fellBack() {
+        if (fallbacks != null) {
+            fallbacks.increment();
+        }
+    }
+
+    private synchronized void update(boolean nowAvailable, String reason) {
+        if (nowAvailable != available) {
+            if (nowAvailable) {
+                log.info("Read replica is in use ({})", reason);
+            } else {
+                log.warn("Read replica is skipped, reads go to the primary ({})", reason);
+            }
+        }
+        available = nowAvailable;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("attendance.datasource.replica.available", this, monitor -> monitor.available ? 1 : 0)
+                .description("Whether read-only work is currently sent to the replica")
+                .register(registry);
+        Gauge.builder("attendance.datasource.replica.lag", this, monitor -> monitor.lagMillis < 0 ? Double.NaN : monitor.lagMillis / 1000.0)
+                .description("Replica lag measured through the heartbeat row")
+                .baseUnit("seconds")
+                .register(registry);
+        fallbacks = Counter.builder("attendance.datasource.replica.fallbacks")
+                .description("Connections for read-only work that went to the primary because the replica was lagging or down")
+                .register(registry);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.attendancemanagement.routing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Read/write splitting, active only when attendance.datasource.replica.url is set
+@Configuration
+@ConditionalOnProperty("attendance.datasource.replica.url")
+public class ReplicaRoutingConfiguration implements WebMvcConfigurer {
+
+    @Value("${attendance.datasource.replica.read-your-writes-window:PT10S}")
+    private Duration readYourWritesWindow;
+
+    @Bean(destroyMethod = "stop")
+    ReplicaMonitor replicaMonitor(
+            @Value("${attendance.datasource.replica.url}") String url,
+            @Value("${attendance.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${attendance.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${attendance.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${attendance.datasource.replica.max-lag:PT5S}") Duration maxLag,
+            @Value("${attendance.datasource.replica.lag-check-interval:PT1S}") Duration checkInterval) {
+        return new ReplicaMonitor(url, username, password, maximumPoolSize, maxLag, checkInterval);
+    }
+
+    // Runs before the monitoring and concurrency limiting wrappers, so those see one data source
+    // and count statements and permits the same way whichever database serves them
+    @Bean
+    static BeanPostProcessor readWriteRoutingDataSourcePostProcessor(ObjectProvider<ReplicaMonitor> replicaMonitor) {
+        return new RoutingPostProcessor(replicaMonitor);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(new ReadOnlyRoutingInterceptor(readYourWritesWindow));
+    }
+
+    // The heartbeat table is created by the migrations, so checks start once the application is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReplicaMonitor(ApplicationReadyEvent event) {
+        event.getApplicationContext().getBean(ReplicaMonitor.class).start(event.getApplicationContext().getBean(DataSource.class));
+    }
+
+    private static final class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReplicaMonitor> replicaMonitor;
+
+        RoutingPostProcessor(ObjectProvider<ReplicaMonitor> replicaMonitor) {
+            this.replicaMonitor = replicaMonitor;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(dataSource, replicaMonitor.getObject()));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.archive.ArchivedAttendance;
+import com.example.attendancemanagement.archive.AttendanceArchive;
+import com.example.attendancemanagement.archive.AttendanceSegment;
+import com.example.attendancemanagement.dto.ArchiveRun;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.ledger.AttendanceTerm;
+import com.example.attendancemanagement.service.TableVersions.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Moves attendance of past terms out of the attendance table into archive segments, oldest term first.
+// A term is written to a new segment in one streaming read, published, and only then deleted from the
+// table in chunk-size transactions. Reads stop looking at the table for a term as soon as its segment
+// is published, so a run that stops half way only leaves rows nobody reads; the next run deletes them.
+// Runs are opt-in (attendance.archive.enabled) because segments live on this instance's disk: every
+// instance that serves reports needs a copy of each catalogued segment in its archive directory.
+@Service
+public class AttendanceArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceArchiveService.class);
+
+    // Ids per "in" list when a chunk is deleted
+    private static final int IN_LIST_SIZE = 1000;
+
+    // Rows without a course or student never show up in a report, so they stay where they are
+    private static final String ARCHIVABLE = "course_id is not null and student_id is not null and date >= ? and date <= ?";
+
+    private static final String FIRST_DATE =
+            "select min(date) from attendance where course_id is not null and student_id is not null and date < ?";
+
+    private static final String TERM_ROWS =
+            "select id, course_id, student_id, date, status from attendance where " + ARCHIVABLE + " order by course_id, date, id";
+
+    private static final String ARCHIVED_CHUNK = "select id from attendance where " + ARCHIVABLE + " and id <= ? limit ?";
+
+    private static final String DELETE_ATTENDANCE = "delete from attendance where id in (:ids)";
+
+    @Autowired
+    private AttendanceArchive attendanceArchive;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Value("${attendance.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${attendance.archive.hot-terms:2}")
+    private int hotTerms;
+
+    @Value("${attendance.archive.chunk-size:5000}")
+    private int chunkSize;
+
+    // Archive runs and cascade deletions both move attendance between the tiers and the derived
+    // tables; one at a time keeps a row from being taken off the counters twice. Rebuilds and
+    // reconciliations of the derived tables read both tiers and take it too, so no run moves rows
+    // from under them.
+    private final ReentrantLock exclusive = new ReentrantLock();
+
+    // Start of the oldest term that stays in the attendance table: the current term and hot-terms - 1 before it
+    public LocalDate defaultCutoff() {
+        return AttendanceTerm.of(LocalDate.now()).start().minusMonths(6L * (Math.max(1, hotTerms) - 1));
+    }
+
+    // Archives every term that ends before the cutoff, which has to be the first day of a term no later than the current one
+    public ArchiveRun archiveBefore(LocalDate before) {
+        if (!AttendanceTerm.of(before).start().equals(before)) {
+            throw new IllegalArgumentException("before must be the first day of a term (January 1 or July 1).");
+        }
+        if (before.isAfter(AttendanceTerm.of(LocalDate.now()).start())) {
+            throw new IllegalArgumentException("The current term cannot be archived.");
+        }
+        return exclusively(() -> {
+            List<LocalDate> terms = new ArrayList<>();
+            long archived = 0;
+            long deleted = 0;
+            Date first = jdbcTemplate.queryForObject(FIRST_DATE, Date.class, Date.valueOf(before));
+            for (AttendanceTerm term = first == null ? null : AttendanceTerm.of(first.toLocalDate());
+                 term != null && term.start().isBefore(before);
+                 term = AttendanceTerm.of(term.end().plusDays(1))) {
+                AttendanceSegment segment = attendanceArchive.segment(term).orElse(null);
+                boolean catalogued = attendanceArchive.isCatalogued(term);
+                if (segment == null && catalogued) {
+                    // Rows of the term may already be gone; writing a segment from what is left would lose them
+                    throw new IllegalStateException("The term starting " + term.start()
+                            + " was archived by another instance and its segment is not in this instance's archive directory.");
+                }
+                if (segment != null && !catalogued) {
+                    // Published by a run that stopped before cataloguing it; its rows are all still in the table
+                    attendanceArchive.catalogue(segment);
+                }
+                if (segment == null) {
+                    segment = writeSegment(term);
+                    if (segment == null) {
+                        continue;
+                    }
+                    terms.add(term.start());
+                    archived += segment.rows();
+                }
+                // Also finishes the deletes of a run that stopped after publishing the segment
+                deleted += deleteArchived(term, segment.maxId());
+            }
+            return new ArchiveRun(before, terms, archived, deleted);
+        });
+    }
+
+    @Scheduled(initialDelayString = "${attendance.archive.interval:P1D}", fixedDelayString = "${attendance.archive.interval:P1D}")
+    public void archivePeriodically() {
+        if (!enabled) {
+            return;
+        }
+        ArchiveRun run = archiveBefore(defaultCutoff());
+        if (run.rowsDeleted() > 0) {
+            log.info("Archived {} attendance rows of the terms {} and deleted {} from the attendance table",
+                    run.rowsArchived(), run.termsArchived(), run.rowsDeleted());
+        }
+    }
+
+    public <T> T exclusively(Supplier<T> work) {
+        exclusive.lock();
+        try {
+            return work.get();
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    // Archived rows of the courses and students that still exist, in the groups of
+    // AttendanceArchive.courseTerms(). Rebuilds of the derived tables add these to what they read
+    // from the attendance table; rows of deleted courses and students were taken off when they went.
+    public void forEachArchived(Consumer<List<MarkedAttendance>> consumer) {
+        if (attendanceArchive.isEmpty()) {
+            return;
+        }
+        Set<Long> courses = new HashSet<>(jdbcTemplate.queryForList("select id from course", Long.class));
+        Set<Long> users = new HashSet<>(jdbcTemplate.queryForList("select id from user", Long.class));
+        try (Stream<List<ArchivedAttendance>> groups = attendanceArchive.courseTerms()) {
+            groups.forEach(group -> {
+                List<MarkedAttendance> rows = group.stream()
+                        .filter(row -> courses.contains(row.courseId()) && users.contains(row.studentId()))
+                        .map(ArchivedAttendance::toMarked)
+                        .toList();
+                if (!rows.isEmpty()) {
+                    consumer.accept(rows);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(attendanceArchive.stats());
+        stats.put("enabled", enabled);
+        stats.put("nextCutoff", defaultCutoff());
+        return stats;
+    }
+
+    // Streams the term's rows into a new segment and publishes it; null when the term has no rows
+    private AttendanceSegment writeSegment(AttendanceTerm term) {
+        Path partial = attendanceArchive.partialFile(term);
+        try {
+            long rows;
+            try (AttendanceSegment.Writer writer = new AttendanceSegment.Writer(partial, term)) {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                    PreparedStatement statement = con.prepareStatement(TERM_ROWS);
+                    statement.setFetchSize(1000);
+                    statement.setDate(1, Date.valueOf(term.start()));
+                    statement.setDate(2, Date.valueOf(term.end()));
+                    return statement;
+                }, rs -> {
+                    try {
+                        writer.add(new ArchivedAttendance(rs.getLong("id"), rs.getLong("course_id"), rs.getLong("student_id"),
+                                rs.getDate("date").toLocalDate(), rs.getString("status")));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+                writer.finish();
+                rows = writer.rows();
+            }
+            if (rows == 0) {
+                Files.delete(partial);
+                return null;
+            }
+            return attendanceArchive.publish(term, partial);
+        } catch (IOException e) {
+            discard(partial, e);
+            throw new UncheckedIOException("Could not archive the term starting " + term.start(), e);
+        } catch (RuntimeException e) {
+            discard(partial, e);
+            throw e;
+        }
+    }
+
+    private static void discard(Path partial, Exception failure) {
+        try {
+            Files.deleteIfExists(partial);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    // Deletes the term's rows up to the segment's highest id, one chunk per transaction that also bumps the version
+    private long deleteArchived(AttendanceTerm term, long maxId) {
+        TransactionTemplate perChunk = new TransactionTemplate(transactionManager);
+        long deleted = 0;
+        int chunk;
+        do {
+            chunk = Objects.requireNonNullElse(perChunk.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(ARCHIVED_CHUNK, Long.class,
+                        Date.valueOf(term.start()), Date.valueOf(term.end()), maxId, chunkSize);
+                for (int i = 0; i < ids.size(); i += IN_LIST_SIZE) {
+                    namedParameterJdbcTemplate.update(DELETE_ATTENDANCE,
+                            Map.of("ids", ids.subList(i, Math.min(ids.size(), i + IN_LIST_SIZE))));
+                }
+                if (!ids.isEmpty()) {
+                    tableVersions.bump(Table.ATTENDANCE);
+                }
+                return ids.size();
+            }), 0);
+            deleted += chunk;
+        } while (chunk > 0);
+        return deleted;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.archive.AttendanceArchive;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.entity.AttendanceCounter;
+import com.example.attendancemanagement.repository.AttendanceCounterRepository;
+import com.example.attendancemanagement.repository.AttendanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+@Service
+public class AttendanceCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceCounterService.class);
+
+    private static final String UPSERT_COUNTER =
+            "insert into attendance_counter (student_id, course_id, conducted, present, absent) values (?, ?, ?, ?, ?) " +
+            "on duplicate key update conducted = conducted + values(conducted), " +
+            "present = present + values(present), absent = absent + values(absent)";
+
+    private static final String SUBTRACT_COUNTER =
+            "update attendance_counter set conducted = conducted - ?, present = present - ?, absent = absent - ? " +
+            "where student_id = ? and course_id = ?";
+
+    private static final String DELETE_EMPTY_COUNTER =
+            "delete from attendance_counter where student_id = ? and course_id = ? and conducted <= 0";
+
+    private static final String AGGREGATE_ATTENDANCE =
+            "select student_id, course_id, count(*) as conducted, " +
+            "sum(case when lower(status) = 'present' then 1 else 0 end) as present, " +
+            "sum(case when lower(status) = 'absent' then 1 else 0 end) as absent " +
+            "from attendance where student_id is not null and course_id is not null " +
+            "group by student_id, course_id";
+
+    private static final String READ_COUNTERS = "select student_id, course_id, conducted, present, absent from attendance_counter";
+
+    @Autowired
+    private AttendanceCounterRepository attendanceCounterRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AttendanceArchive attendanceArchive;
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    public Optional<AttendanceCounter> find(Long studentId, Long courseId) {
+        return attendanceCounterRepository.findByStudentIdAndCourseId(studentId, courseId);
+    }
+
+    // Adds freshly inserted attendance rows to the counters, inside the caller's transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyMarked(List<MarkedAttendance> marked) {
+        Map<List<Long>, long[]> deltas = deltas(marked);
+
+        jdbcTemplate.batchUpdate(UPSERT_COUNTER, new ArrayList<>(deltas.entrySet()), deltas.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getKey().get(0));
+            ps.setLong(2, entry.getKey().get(1));
+            ps.setLong(3, entry.getValue()[0]);
+            ps.setLong(4, entry.getValue()[1]);
+            ps.setLong(5, entry.getValue()[2]);
+        });
+    }
+
+    // Takes deleted attendance rows off the counters, inside the caller's transaction.
+    // A counter left with nothing conducted is removed, as a rebuild would not create it.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDeleted(List<MarkedAttendance> deleted) {
+        List<Map.Entry<List<Long>, long[]>> deltas = new ArrayList<>(deltas(deleted).entrySet());
+
+        jdbcTemplate.batchUpdate(SUBTRACT_COUNTER, deltas, deltas.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getValue()[0]);
+            ps.setLong(2, entry.getValue()[1]);
+            ps.setLong(3, entry.getValue()[2]);
+            ps.setLong(4, entry.getKey().get(0));
+            ps.setLong(5, entry.getKey().get(1));
+        });
+        jdbcTemplate.batchUpdate(DELETE_EMPTY_COUNTER, deltas, deltas.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getKey().get(0));
+            ps.setLong(2, entry.getKey().get(1));
+        });
+    }
+
+    // Conducted, present and absent per (student, course)
+    private static Map<List<Long>, long[]> deltas(List<MarkedAttendance> rows) {
+        Map<List<Long>, long[]> deltas = new LinkedHashMap<>();
+        for (MarkedAttendance attendance : rows) {
+            long[] delta = deltas.computeIfAbsent(List.of(attendance.studentId(), attendance.courseId()), key -> new long[3]);
+            delta[0]++;
+            if ("Present".equalsIgnoreCase(attendance.status())) {
+                delta[1]++;
+            } else if ("Absent".equalsIgnoreCase(attendance.status())) {
+                delta[2]++;
+            }
+        }
+        return deltas;
+    }
+
+    // Recomputes every counter from the raw attendance table and the archive. Under the archive lock,
+    // so an archive run cannot move rows between the two reads and have them counted twice or not at all.
+    public int rebuild() {
+        return attendanceArchiveService.exclusively(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.update("delete from attendance_counter");
+            int counters = jdbcTemplate.update(
+                    "insert into attendance_counter (student_id, course_id, conducted, present, absent) " + AGGREGATE_ATTENDANCE);
+            if (attendanceArchive.isEmpty()) {
+                return counters;
+            }
+            attendanceArchiveService.forEachArchived(this::applyMarked);
+            return jdbcTemplate.queryForObject("select count(*) from attendance_counter", Integer.class);
+        }));
+    }
+
+    // Lists the counters that disagree with the raw attendance table and the archive, without changing
+    // anything. Under the archive lock like rebuild().
+    public List<Map<String, Object>> verify() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return attendanceArchiveService.exclusively(() -> readOnly.execute(status -> mismatches()));
+    }
+
+    private List<Map<String, Object>> mismatches() {
+        Map<List<Long>, long[]> expected = new HashMap<>();
+        jdbcTemplate.query(AGGREGATE_ATTENDANCE, rs -> {
+            expected.put(List.of(rs.getLong("student_id"), rs.getLong("course_id")),
+                    new long[]{rs.getLong("conducted"), rs.getLong("present"), rs.getLong("absent")});
+        });
+        attendanceArchiveService.forEachArchived(rows -> deltas(rows).forEach((key, delta) -> expected.merge(key, delta,
+                (sum, more) -> new long[]{sum[0] + more[0], sum[1] + more[1], sum[2] + more[2]})));
+        Map<List<Long>, long[]> actual = new HashMap<>();
+        jdbcTemplate.query(READ_COUNTERS, rs -> {
+            actual.put(List.of(rs.getLong("student_id"), rs.getLong("course_id")),
+                    new long[]{rs.getLong("conducted"), rs.getLong("present"), rs.getLong("absent")});
+        });
+
+        List<Map<String, Object>> mismatches = new ArrayList<>();
+        expected.forEach((key, counts) -> {
+            long[] counted = actual.get(key);
+            if (!Arrays.equals(counts, counted)) {
+                mismatches.add(mismatch(key, counts, counted));
+            }
+        });
+        actual.forEach((key, counted) -> {
+            if (!expected.containsKey(key)) {
+                mismatches.add(mismatch(key, new long[3], counted));
+            }
+        });
+        return mismatches;
+    }
+
+    private static Map<String, Object> mismatch(List<Long> key, long[] expected, long[] actual) {
+        Map<String, Object> mismatch = new LinkedHashMap<>();
+        mismatch.put("studentId", key.get(0));
+        mismatch.put("courseId", key.get(1));
+        mismatch.put("expected", counts(expected));
+        mismatch.put("actual", actual == null ? null : counts(actual));
+        return mismatch;
+    }
+
+    private static Map<String, Long> counts(long[] counts) {
+        return Map.of("conducted", counts[0], "present", counts[1], "absent", counts[2]);
+    }
+
+    // Fills the counters once for databases that already had attendance before the table existed.
+    // Not transactional itself: rebuild() takes the archive lock before it opens its transaction.
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIfEmpty() {
+        if (attendanceCounterRepository.count() == 0 && attendanceRepository.existsByIdNotNull()) {
+            int counters = rebuild();
+            log.info("Built {} attendance counters from existing attendance records", counters);
+        }
+    }
+}
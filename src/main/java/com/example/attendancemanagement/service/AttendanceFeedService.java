@@ -0,0 +1,227 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.dto.AttendanceFeedUpdate;
+import com.example.attendancemanagement.dto.DailyAttendanceTotals;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Live attendance feeds over Server-Sent Events, per course or across all courses (admin).
+// Committed marking batches are turned into one update per course and queued for every matching
+// subscriber. A subscriber's queue is bounded: when a slow client falls max-pending updates behind,
+// its queue is replaced by a single "resync" event telling it to reload the report. Queues are
+// written out by a small pool owned here, so neither the marking request nor an idle connection
+// holds a servlet thread.
+@Service
+public class AttendanceFeedService {
+
+    static final String UPDATE_EVENT = "attendance";
+    static final String RESYNC_EVENT = "resync";
+
+    // Key of the admin feed, which gets the updates of every course
+    private static final Long ALL_COURSES = 0L;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private ObjectProvider<TaskDecorator> taskDecorator;
+
+    @Value("${attendance.feed.max-subscribers:500}")
+    private int maxSubscribers;
+
+    @Value("${attendance.feed.max-pending:100}")
+    private int maxPending;
+
+    @Value("${attendance.feed.threads:2}")
+    private int threads;
+
+    @Value("${attendance.feed.timeout:PT30M}")
+    private Duration timeout;
+
+    private ThreadPoolTaskExecutor executor;
+
+    // Subscribers by course, the admin feed under ALL_COURSES
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // A subscriber has at most one write task queued at a time
+        executor.setQueueCapacity(maxSubscribers);
+        executor.setThreadNamePrefix("attendance-feed-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(taskDecorator.getIfUnique());
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        executor.shutdown();
+    }
+
+    // Feed of one course, or of every course when courseId is null. Empty when the subscriber limit is reached.
+    public Optional<SseEmitter> subscribe(Long courseId) {
+        if (subscriberCount() >= maxSubscribers) {
+            return Optional.empty();
+        }
+        Long key = courseId == null ? ALL_COURSES : courseId;
+        Subscriber subscriber = new Subscriber(key, new SseEmitter(timeout.toMillis()));
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(error -> remove(subscriber));
+        subscribers.computeIfAbsent(key, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return Optional.of(subscriber.emitter);
+    }
+
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    // Runs on the marking thread once its transaction has committed; the rollup read is skipped
+    // when nobody listens to the courses involved
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMarked(AttendanceMarkedEvent event) {
+        Map<Long, List<AttendanceFeedUpdate.MarkedStudent>> byCourse = new LinkedHashMap<>();
+        for (MarkedAttendance attendance : event.marked()) {
+            byCourse.computeIfAbsent(attendance.courseId(), id -> new ArrayList<>())
+                    .add(new AttendanceFeedUpdate.MarkedStudent(attendance.studentId(), attendance.status()));
+        }
+        boolean anyAdmin = !subscribers.getOrDefault(ALL_COURSES, Set.of()).isEmpty();
+        byCourse.keySet().removeIf(courseId -> !anyAdmin && subscribers.getOrDefault(courseId, Set.of()).isEmpty());
+        if (byCourse.isEmpty()) {
+            return;
+        }
+
+        // Marking only ever writes today, so one read covers the whole batch
+        LocalDate date = event.marked().get(0).date();
+        Map<Long, DailyAttendanceTotals> totals = attendanceRollupService.totalsOn(date, byCourse.keySet());
+        byCourse.forEach((courseId, marked) -> {
+            AttendanceFeedUpdate update = new AttendanceFeedUpdate(courseId, marked,
+                    totals.getOrDefault(courseId, new DailyAttendanceTotals(date, 0, 0, 0)));
+            publish(courseId, update);
+            publish(ALL_COURSES, update);
+        });
+    }
+
+    // Comment lines keep proxies from closing quiet connections and surface clients that went away
+    @Scheduled(initialDelayString = "${attendance.feed.heartbeat-interval:PT20S}",
+            fixedDelayString = "${attendance.feed.heartbeat-interval:PT20S}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(Event.HEARTBEAT)));
+    }
+
+    private void publish(Long key, AttendanceFeedUpdate update) {
+        Event event = new Event(UPDATE_EVENT, update);
+        subscribers.getOrDefault(key, Set.of()).forEach(subscriber -> subscriber.offer(event));
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> set = subscribers.get(subscriber.key);
+        if (set != null) {
+            set.remove(subscriber);
+        }
+    }
+
+    private record Event(String name, Object data) {
+        static final Event HEARTBEAT = new Event(null, null);
+        static final Event RESYNC = new Event(RESYNC_EVENT, Map.of("message", "Updates were dropped; reload the report."));
+    }
+
+    private final class Subscriber {
+        final Long key;
+        final SseEmitter emitter;
+        // Guarded by itself, like closed
+        final ArrayDeque<Event> pending = new ArrayDeque<>();
+        boolean closed;
+        final AtomicBoolean writing = new AtomicBoolean();
+
+        Subscriber(Long key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            synchronized (pending) {
+                if (closed || (event == Event.HEARTBEAT && !pending.isEmpty())) {
+                    return;
+                }
+                if (pending.size() >= maxPending) {
+                    pending.clear();
+                    event = Event.RESYNC;
+                }
+                pending.add(event);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (writing.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::write);
+                } catch (RuntimeException e) {
+                    writing.set(false);
+                }
+            }
+        }
+
+        // Sends everything queued, then lets the next offer schedule another write
+        private void write() {
+            try {
+                Event event;
+                while ((event = next()) != null) {
+                    if (event == Event.HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(event.name()).data(event.data(), MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the emitter has already completed
+                synchronized (pending) {
+                    closed = true;
+                    pending.clear();
+                }
+                remove(this);
+                emitter.completeWithError(e);
+            } finally {
+                writing.set(false);
+            }
+            // An offer that came in after the loop found the queue empty
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+            }
+            schedule();
+        }
+
+        private Event next() {
+            synchronized (pending) {
+                return pending.poll();
+            }
+        }
+    }
+}
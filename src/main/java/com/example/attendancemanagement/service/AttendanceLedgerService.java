@@ -0,0 +1,279 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.archive.AttendanceArchive;
+import com.example.attendancemanagement.dto.AttendanceLedgerSummary;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.entity.AttendanceLedger;
+import com.example.attendancemanagement.ledger.AttendanceStatus;
+import com.example.attendancemanagement.ledger.AttendanceTerm;
+import com.example.attendancemanagement.ledger.StatusLedger;
+import com.example.attendancemanagement.repository.AttendanceLedgerRepository;
+import com.example.attendancemanagement.repository.AttendanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.*;
+
+// Keeps the bit-packed attendance ledger in step with the attendance table and answers
+// percentage and streak questions from it without scanning attendance rows.
+@Service
+public class AttendanceLedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceLedgerService.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_LEDGER =
+            "insert into attendance_ledger (student_id, course_id, term_start, statuses) values (?, ?, ?, ?)";
+
+    // Creates the missing ledgers of a marking batch and leaves existing ones untouched
+    private static final String INSERT_MISSING_LEDGER = INSERT_LEDGER + " on duplicate key update id = id";
+
+    private static final String LOCK_LEDGERS =
+            "select id, student_id, statuses from attendance_ledger " +
+            "where course_id = :courseId and term_start = :termStart and student_id in (:studentIds) for update";
+
+    private static final String UPDATE_STATUSES = "update attendance_ledger set statuses = ? where id = ?";
+
+    private static final String DELETE_LEDGER = "delete from attendance_ledger where id = ?";
+
+    private static final String READ_ATTENDANCE =
+            "select student_id, course_id, date, status from attendance " +
+            "where student_id is not null and course_id is not null and date is not null " +
+            "order by student_id, course_id, date, id";
+
+    private record Key(Long courseId, AttendanceTerm term) {
+    }
+
+    private record LockedLedger(long id, StatusLedger ledger) {
+    }
+
+    @Autowired
+    private AttendanceLedgerRepository attendanceLedgerRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private AttendanceArchive attendanceArchive;
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Writes freshly inserted attendance rows into the ledgers, inside the caller's transaction.
+    // Per (course, term): one batch creating missing ledgers, one locking select and one update batch.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyMarked(List<MarkedAttendance> marked) {
+        Map<Key, List<MarkedAttendance>> byKey = new LinkedHashMap<>();
+        for (MarkedAttendance attendance : marked) {
+            byKey.computeIfAbsent(new Key(attendance.courseId(), AttendanceTerm.of(attendance.date())), key -> new ArrayList<>())
+                    .add(attendance);
+        }
+
+        byKey.forEach((key, attendances) -> {
+            Date termStart = Date.valueOf(key.term().start());
+            Set<Long> studentIds = new LinkedHashSet<>();
+            attendances.forEach(attendance -> studentIds.add(attendance.studentId()));
+
+            byte[] empty = new StatusLedger().encode();
+            jdbcTemplate.batchUpdate(INSERT_MISSING_LEDGER, new ArrayList<>(studentIds), BATCH_SIZE, (ps, studentId) -> {
+                ps.setLong(1, studentId);
+                ps.setLong(2, key.courseId());
+                ps.setDate(3, termStart);
+                ps.setBytes(4, empty);
+            });
+
+            Map<Long, LockedLedger> ledgers = new HashMap<>();
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("courseId", key.courseId())
+                    .addValue("termStart", termStart)
+                    .addValue("studentIds", studentIds);
+            namedParameterJdbcTemplate.query(LOCK_LEDGERS, parameters, rs -> {
+                ledgers.put(rs.getLong("student_id"),
+                        new LockedLedger(rs.getLong("id"), StatusLedger.decode(rs.getBytes("statuses"))));
+            });
+
+            for (MarkedAttendance attendance : attendances) {
+                ledgers.get(attendance.studentId()).ledger()
+                        .set(key.term().dayIndex(attendance.date()), AttendanceStatus.fromLabel(attendance.status()));
+            }
+            jdbcTemplate.batchUpdate(UPDATE_STATUSES, new ArrayList<>(ledgers.values()), BATCH_SIZE, (ps, ledger) -> {
+                ps.setBytes(1, ledger.ledger().encode());
+                ps.setLong(2, ledger.id());
+            });
+        });
+    }
+
+    // Clears the days of deleted attendance rows from the ledgers, inside the caller's transaction.
+    // A ledger left without any marked day is removed, as a rebuild would not create it. Meant for
+    // cascades that delete every row of a student or course: a day is cleared even if it had another row.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDeleted(List<MarkedAttendance> deleted) {
+        Map<Key, Set<Long>> byKey = new LinkedHashMap<>();
+        for (MarkedAttendance attendance : deleted) {
+            byKey.computeIfAbsent(new Key(attendance.courseId(), AttendanceTerm.of(attendance.date())), key -> new LinkedHashSet<>())
+                    .add(attendance.studentId());
+        }
+        Map<Key, Map<Long, LockedLedger>> locked = new HashMap<>();
+        byKey.forEach((key, studentIds) -> {
+            Map<Long, LockedLedger> ledgers = new HashMap<>();
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("courseId", key.courseId())
+                    .addValue("termStart", Date.valueOf(key.term().start()))
+                    .addValue("studentIds", studentIds);
+            namedParameterJdbcTemplate.query(LOCK_LEDGERS, parameters, rs -> {
+                ledgers.put(rs.getLong("student_id"),
+                        new LockedLedger(rs.getLong("id"), StatusLedger.decode(rs.getBytes("statuses"))));
+            });
+            locked.put(key, ledgers);
+        });
+
+        // Keyed by id: the ledgers change while they are collected
+        Map<Long, LockedLedger> changed = new LinkedHashMap<>();
+        for (MarkedAttendance attendance : deleted) {
+            AttendanceTerm term = AttendanceTerm.of(attendance.date());
+            LockedLedger ledger = locked.get(new Key(attendance.courseId(), term)).get(attendance.studentId());
+            if (ledger != null) {
+                ledger.ledger().set(term.dayIndex(attendance.date()), AttendanceStatus.NOT_MARKED);
+                changed.put(ledger.id(), ledger);
+            }
+        }
+        List<LockedLedger> kept = new ArrayList<>();
+        List<LockedLedger> emptied = new ArrayList<>();
+        changed.values().forEach(ledger -> (ledger.ledger().conducted() == 0 ? emptied : kept).add(ledger));
+        jdbcTemplate.batchUpdate(UPDATE_STATUSES, kept, BATCH_SIZE, (ps, ledger) -> {
+            ps.setBytes(1, ledger.ledger().encode());
+            ps.setLong(2, ledger.id());
+        });
+        jdbcTemplate.batchUpdate(DELETE_LEDGER, emptied, BATCH_SIZE, (ps, ledger) -> ps.setLong(1, ledger.id()));
+    }
+
+    // Recomputes every ledger from the raw attendance table in one ordered pass, then the archived
+    // terms from the archive. When a student has several rows for the same day the last one wins.
+    // Under the archive lock, so hotFrom cannot move between the table pass and the archive pass.
+    public int rebuild() {
+        return attendanceArchiveService.exclusively(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.update("delete from attendance_ledger");
+
+            LedgerWriter writer = new LedgerWriter();
+            // Archiving moves whole terms, so no ledger is fed from both tiers; rows an unfinished archive
+            // run left in the table are already in the archive
+            LocalDate hotFrom = attendanceArchive.hotFrom();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(READ_ATTENDANCE);
+                statement.setFetchSize(BATCH_SIZE);
+                return statement;
+            }, rs -> {
+                LocalDate date = rs.getDate("date").toLocalDate();
+                if (hotFrom == null || !date.isBefore(hotFrom)) {
+                    writer.add(rs.getLong("student_id"), rs.getLong("course_id"), date, rs.getString("status"));
+                }
+            });
+            attendanceArchiveService.forEachArchived(rows -> rows.forEach(
+                    row -> writer.add(row.studentId(), row.courseId(), row.date(), row.status())));
+            return writer.finish();
+        }));
+    }
+
+    // Collects the rows of one (student, course, term) at a time and inserts finished ledgers in batches
+    private final class LedgerWriter {
+        private final List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        private long studentId;
+        private long courseId;
+        private AttendanceTerm term;
+        private StatusLedger ledger;
+        private int written;
+
+        void add(long studentId, long courseId, LocalDate date, String status) {
+            AttendanceTerm term = AttendanceTerm.of(date);
+            if (ledger == null || this.studentId != studentId || this.courseId != courseId || !term.equals(this.term)) {
+                close();
+                this.studentId = studentId;
+                this.courseId = courseId;
+                this.term = term;
+                ledger = new StatusLedger();
+            }
+            ledger.set(term.dayIndex(date), AttendanceStatus.fromLabel(status));
+        }
+
+        int finish() {
+            close();
+            flush();
+            return written;
+        }
+
+        private void close() {
+            if (ledger != null) {
+                batch.add(new Object[]{studentId, courseId, Date.valueOf(term.start()), ledger.encode()});
+                written++;
+                ledger = null;
+                if (batch.size() == BATCH_SIZE) {
+                    flush();
+                }
+            }
+        }
+
+        private void flush() {
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_LEDGER, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Totals are bit counts over each term; streaks carry the open Present run from one term into the next
+    @Transactional(readOnly = true)
+    public AttendanceLedgerSummary summarize(Long studentId, Long courseId) {
+        int conducted = 0;
+        int present = 0;
+        int absent = 0;
+        int other = 0;
+        int longest = 0;
+        int run = 0;
+        for (AttendanceLedger row : attendanceLedgerRepository.findByStudentIdAndCourseIdOrderByTermStartAsc(studentId, courseId)) {
+            StatusLedger ledger = row.ledger();
+            conducted += ledger.conducted();
+            present += ledger.count(AttendanceStatus.PRESENT);
+            absent += ledger.count(AttendanceStatus.ABSENT);
+            other += ledger.count(AttendanceStatus.OTHER);
+            StatusLedger.PresentRuns runs = ledger.presentRuns(run);
+            longest = Math.max(longest, runs.longest());
+            run = runs.trailing();
+        }
+        double percentage = conducted == 0 ? 0 : ((double) present / conducted) * 100;
+        return new AttendanceLedgerSummary(studentId, courseId, conducted, present, absent, other, percentage, run, longest);
+    }
+
+    // Fills the ledgers once for databases that already had attendance before the table existed.
+    // Not transactional itself: rebuild() takes the archive lock before it opens its transaction.
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIfEmpty() {
+        if (attendanceLedgerRepository.count() == 0 && attendanceRepository.existsByIdNotNull()) {
+            int ledgers = rebuild();
+            log.info("Built {} attendance ledgers from existing attendance records", ledgers);
+        }
+    }
+}
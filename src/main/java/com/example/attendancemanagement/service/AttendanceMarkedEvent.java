@@ -0,0 +1,10 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.dto.MarkedAttendance;
+
+import java.util.List;
+
+// Published by the marking path for the rows it inserted; listeners that need the rows to be
+// visible use @TransactionalEventListener so they only hear about committed batches
+public record AttendanceMarkedEvent(List<MarkedAttendance> marked) {
+}
@@ -0,0 +1,183 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.dto.CourseSummary;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.dto.MarkingFailure;
+import com.example.attendancemanagement.dto.MarkingResult;
+import com.example.attendancemanagement.repository.EnrollmentRepository;
+import com.example.attendancemanagement.snapshot.RosterSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class AttendanceMarkingService {
+
+    public static final String NOT_AUTHORIZED = "You are not authorized to mark attendance for this course.";
+
+    private static final String INSERT_ATTENDANCE =
+            "insert into attendance (course_id, student_id, date, status) values (?, ?, ?, ?)";
+
+    // Locked in id order: markings of the same course wait for each other, so the already-marked
+    // check below cannot miss rows that a concurrent marking has not committed yet
+    private static final String LOCK_COURSE_TEACHERS =
+            "select id, name, teacher_id from course where id in (:ids) order by id for update";
+
+    // A locking read, so it sees the latest committed rows even under REPEATABLE READ
+    private static final String MARKED_STUDENTS =
+            "select student_id from attendance where course_id = :courseId and date = :date and student_id in (:studentIds) for update";
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private AttendanceCounterService attendanceCounterService;
+
+    @Autowired
+    private AttendanceLedgerService attendanceLedgerService;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private MarkedStudentsIndex markedStudentsIndex;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RosterSnapshotService rosterSnapshotService;
+
+    @Value("${attendance.marking.batch-size:100}")
+    private int batchSize;
+
+    // Validates the whole payload with a fixed number of set queries per course and
+    // inserts the accepted rows as JDBC batches. Rejected entries are reported per student.
+    // The teacher is the authenticated caller; an entry's own teacherId may be omitted but must not differ.
+    // Enrollments come from the roster snapshot while it is current; the courses' teachers are always
+    // read from the database, as the snapshot and the entity cache may still show a replaced teacher.
+    // The unique (course_id, student_id, date) constraint backs the already-marked check: a row that
+    // slipped in anyway fails the insert with a DuplicateKeyException and rolls everything back.
+    @Transactional
+    public MarkingResult markToday(Long teacherId, List<Map<String, Object>> attendanceDataList) {
+        LocalDate today = LocalDate.now();
+        RosterSnapshot snapshot = rosterSnapshotService.current().orElse(null);
+        List<MarkedAttendance> accepted = new ArrayList<>();
+        List<MarkingFailure> failures = new ArrayList<>();
+
+        Map<Long, List<Entry>> entriesByCourse = new LinkedHashMap<>();
+        for (Map<String, Object> attendanceData : attendanceDataList) {
+            Entry entry = Entry.from(attendanceData, teacherId);
+            if (entry.courseId == null || entry.studentId == null) {
+                failures.add(new MarkingFailure(entry.studentId, entry.courseId, "courseId and studentId are required."));
+            } else if (entry.status == null || entry.status.isBlank()) {
+                failures.add(new MarkingFailure(entry.studentId, entry.courseId, "Status is required."));
+            } else {
+                entriesByCourse.computeIfAbsent(entry.courseId, id -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        Map<Long, CourseSummary> courses = new HashMap<>();
+        if (!entriesByCourse.isEmpty()) {
+            namedParameterJdbcTemplate.query(LOCK_COURSE_TEACHERS, Map.of("ids", entriesByCourse.keySet()), rs -> {
+                long teacher = rs.getLong("teacher_id");
+                courses.put(rs.getLong("id"), new CourseSummary(rs.getLong("id"), rs.getString("name"), rs.wasNull() ? null : teacher));
+            });
+        }
+
+        entriesByCourse.forEach((courseId, entries) -> {
+            CourseSummary course = courses.get(courseId);
+            if (course == null) {
+                entries.forEach(entry -> failures.add(entry.failure("Invalid course ID.")));
+                return;
+            }
+
+            Set<Long> studentIds = entries.stream().map(entry -> entry.studentId).collect(Collectors.toSet());
+            Set<Long> enrolled = snapshot != null ? snapshot.enrolled(courseId, studentIds)
+                    : enrollmentRepository.findEnrolledStudentIds(courseId, studentIds);
+            Set<Long> alreadyMarked = new HashSet<>(namedParameterJdbcTemplate.queryForList(MARKED_STUDENTS,
+                    Map.of("courseId", courseId, "date", Date.valueOf(today), "studentIds", studentIds), Long.class));
+
+            for (Entry entry : entries) {
+                if (!teacherId.equals(entry.teacherId) || !teacherId.equals(course.teacherId())) {
+                    failures.add(entry.failure(NOT_AUTHORIZED));
+                } else if (!enrolled.contains(entry.studentId)) {
+                    failures.add(entry.failure("Student is not enrolled in this course."));
+                } else if (!alreadyMarked.add(entry.studentId)) {
+                    failures.add(entry.failure("Attendance has already been marked for this student today."));
+                } else {
+                    accepted.add(new MarkedAttendance(courseId, entry.studentId, today, entry.status));
+                }
+            }
+        });
+
+        jdbcTemplate.batchUpdate(INSERT_ATTENDANCE, accepted, batchSize, (ps, attendance) -> {
+            ps.setLong(1, attendance.courseId());
+            ps.setLong(2, attendance.studentId());
+            ps.setDate(3, Date.valueOf(attendance.date()));
+            ps.setString(4, attendance.status());
+        });
+        attendanceCounterService.applyMarked(accepted);
+        attendanceLedgerService.applyMarked(accepted);
+        attendanceRollupService.applyMarked(accepted);
+        markedStudentsIndex.recordMarked(accepted);
+        if (!accepted.isEmpty()) {
+            tableVersions.bump(TableVersions.Table.ATTENDANCE);
+            eventPublisher.publishEvent(new AttendanceMarkedEvent(accepted));
+        }
+
+        return new MarkingResult(accepted, failures);
+    }
+
+    private static final class Entry {
+        private Long teacherId;
+        private Long courseId;
+        private Long studentId;
+        private String status;
+
+        static Entry from(Map<String, Object> attendanceData, Long callerId) {
+            Entry entry = new Entry();
+            entry.teacherId = attendanceData.get("teacherId") == null ? callerId : toLong(attendanceData.get("teacherId"));
+            entry.courseId = toLong(attendanceData.get("courseId"));
+            entry.studentId = toLong(attendanceData.get("studentId"));
+            entry.status = attendanceData.get("status") instanceof String status ? status : null;
+            return entry;
+        }
+
+        MarkingFailure failure(String message) {
+            return new MarkingFailure(studentId, courseId, message);
+        }
+
+        private static Long toLong(Object value) {
+            if (value instanceof Number number) {
+                return number.longValue();
+            }
+            if (value instanceof String text) {
+                try {
+                    return Long.valueOf(text.trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.dto.AttendanceReportRow;
+import com.example.attendancemanagement.dto.DailyAttendanceTotals;
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.repository.AttendanceHistoryRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Service
+public class AttendanceReportService {
+
+    @Autowired
+    private AttendanceHistoryRepository attendanceHistoryRepository;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public boolean hasAttendance() {
+        return attendanceHistoryRepository.existsByIdNotNull();
+    }
+
+    // Streams the admin "grouped by date" report straight to the output.
+    // Rows arrive ordered by date, so only the group of the current date is held in memory.
+    // The per-date totals come from the daily rollup instead of being counted from the rows; they
+    // follow the date range and course of the filter but count every status.
+    @Transactional(readOnly = true)
+    public void writeGroupedByDate(ListFilter filter, OutputStream out) throws IOException {
+        Map<LocalDate, DailyAttendanceTotals> totals = new HashMap<>();
+        attendanceRollupService.totalsByDate(filter.from(), filter.to(), filter.course())
+                .forEach(dateTotals -> totals.put(dateTotals.date(), dateTotals));
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+             Stream<AttendanceReportRow> rows = attendanceHistoryRepository.streamReportRows(
+                     filter.from(), filter.to(), filter.course(), filter.normalizedStatus())) {
+            generator.writeStartObject();
+
+            DateGroup current = null;
+            Iterator<AttendanceReportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                AttendanceReportRow row = iterator.next();
+                if (current == null || !current.date.equals(row.date())) {
+                    if (current != null) {
+                        current.writeTo(generator);
+                    }
+                    current = new DateGroup(row.date(), totals.get(row.date()));
+                }
+                current.add(row);
+            }
+            if (current != null) {
+                current.writeTo(generator);
+            }
+
+            generator.writeEndObject();
+        }
+    }
+
+    // Accumulates the records of one date, in the same shape the endpoint has always returned
+    private static class DateGroup {
+        private final LocalDate date;
+        private final Map<String, List<Map<String, String>>> courses = new HashMap<>();
+        private final DailyAttendanceTotals totals;
+
+        DateGroup(LocalDate date, DailyAttendanceTotals totals) {
+            this.date = date;
+            this.totals = totals;
+        }
+
+        void add(AttendanceReportRow row) {
+            Map<String, String> attendanceDetails = new HashMap<>();
+            attendanceDetails.put("studentName", row.studentName());
+            attendanceDetails.put("teacherName", teacherName(row));
+            attendanceDetails.put("status", row.status());
+            courses.computeIfAbsent(row.courseName(), name -> new ArrayList<>()).add(attendanceDetails);
+        }
+
+        void writeTo(JsonGenerator generator) throws IOException {
+            Map<String, Object> groupedByCourse = new HashMap<>();
+            groupedByCourse.put("courses", courses);
+            groupedByCourse.put("totalPresent", totals == null ? 0L : totals.present());
+            groupedByCourse.put("totalAbsent", totals == null ? 0L : totals.absent());
+
+            generator.writeFieldName(date.toString());
+            generator.writeObject(groupedByCourse);
+            generator.flush();
+        }
+
+        private static String teacherName(AttendanceReportRow row) {
+            if (row.teacherId() == null) {
+                return "None";
+            }
+            return row.teacherName() != null ? row.teacherName() : "Unknown";
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.archive.AttendanceArchive;
+import com.example.attendancemanagement.dto.CourseAttendanceTotals;
+import com.example.attendancemanagement.dto.DailyAttendanceTotals;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+// Maintains the per-(date, course) rollup of marked attendance and serves date and course totals
+// from it. The marking path adds to the rollup in its own transaction; a periodic reconciliation
+// compares past days with the raw attendance table one bounded date range at a time.
+@Service
+public class AttendanceRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceRollupService.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String ADD_TO_ROLLUP =
+            "insert into attendance_daily_rollup (date, course_id, present, absent, marked) values (?, ?, ?, ?, ?) " +
+            "on duplicate key update present = present + values(present), " +
+            "absent = absent + values(absent), marked = marked + values(marked)";
+
+    private static final String REPLACE_ROLLUP =
+            "insert into attendance_daily_rollup (date, course_id, present, absent, marked) values (?, ?, ?, ?, ?) " +
+            "on duplicate key update present = values(present), absent = values(absent), marked = values(marked)";
+
+    private static final String SUBTRACT_FROM_ROLLUP =
+            "update attendance_daily_rollup set present = present - ?, absent = absent - ?, marked = marked - ? " +
+            "where date = ? and course_id = ?";
+
+    private static final String DELETE_ROLLUP = "delete from attendance_daily_rollup where date = ? and course_id = ?";
+
+    private static final String DELETE_EMPTY_ROLLUP = DELETE_ROLLUP + " and marked <= 0";
+
+    private static final String AGGREGATE_RANGE =
+            "select date, course_id, " +
+            "sum(case when lower(status) = 'present' then 1 else 0 end) as present, " +
+            "sum(case when lower(status) = 'absent' then 1 else 0 end) as absent, " +
+            "count(*) as marked " +
+            "from attendance where course_id is not null and date >= ? and date < ? " +
+            "group by date, course_id";
+
+    // Locks the range's rollup rows (and, on MySQL, the gaps between them in the unique index)
+    private static final String LOCK_ROLLUP_RANGE =
+            "select date, course_id, present, absent, marked from attendance_daily_rollup where date >= ? and date < ? for update";
+
+    // First day on or after the cursor that has attendance or a rollup row
+    private static final String NEXT_DATE =
+            "select min(date) from (" +
+            "select min(date) as date from attendance where course_id is not null and date >= ? and date < ? " +
+            "union all " +
+            "select min(date) as date from attendance_daily_rollup where date >= ? and date < ?) d";
+
+    private static final String FIRST_DATE =
+            "select min(date) from (" +
+            "select min(date) as date from attendance where course_id is not null and date < ? " +
+            "union all " +
+            "select min(date) as date from attendance_daily_rollup where date < ?) d";
+
+    private record Key(LocalDate date, Long courseId) {
+    }
+
+    private record Totals(long present, long absent, long marked) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AttendanceArchive attendanceArchive;
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Value("${attendance.rollup.reconcile-chunk-days:31}")
+    private int chunkDays;
+
+    // Adds freshly inserted attendance rows to the rollup, inside the caller's transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyMarked(List<MarkedAttendance> marked) {
+        Map<Key, long[]> deltas = deltas(marked);
+
+        jdbcTemplate.batchUpdate(ADD_TO_ROLLUP, new ArrayList<>(deltas.entrySet()), BATCH_SIZE, (ps, entry) -> {
+            ps.setDate(1, Date.valueOf(entry.getKey().date()));
+            ps.setLong(2, entry.getKey().courseId());
+            ps.setLong(3, entry.getValue()[0]);
+            ps.setLong(4, entry.getValue()[1]);
+            ps.setLong(5, entry.getValue()[2]);
+        });
+    }
+
+    // Takes deleted attendance rows off the rollup, inside the caller's transaction, and drops the
+    // days left with nothing marked so the rollup keeps matching what reconcile() would compute
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDeleted(List<MarkedAttendance> deleted) {
+        List<Map.Entry<Key, long[]>> deltas = new ArrayList<>(deltas(deleted).entrySet());
+
+        jdbcTemplate.batchUpdate(SUBTRACT_FROM_ROLLUP, deltas, BATCH_SIZE, (ps, entry) -> {
+            ps.setLong(1, entry.getValue()[0]);
+            ps.setLong(2, entry.getValue()[1]);
+            ps.setLong(3, entry.getValue()[2]);
+            ps.setDate(4, Date.valueOf(entry.getKey().date()));
+            ps.setLong(5, entry.getKey().courseId());
+        });
+        jdbcTemplate.batchUpdate(DELETE_EMPTY_ROLLUP, deltas, BATCH_SIZE, (ps, entry) -> {
+            ps.setDate(1, Date.valueOf(entry.getKey().date()));
+            ps.setLong(2, entry.getKey().courseId());
+        });
+    }
+
+    // Present, absent and marked per (date, course)
+    private static Map<Key, long[]> deltas(List<MarkedAttendance> rows) {
+        Map<Key, long[]> deltas = new LinkedHashMap<>();
+        for (MarkedAttendance attendance : rows) {
+            long[] delta = deltas.computeIfAbsent(new Key(attendance.date(), attendance.courseId()), key -> new long[3]);
+            if ("Present".equalsIgnoreCase(attendance.status())) {
+                delta[0]++;
+            } else if ("Absent".equalsIgnoreCase(attendance.status())) {
+                delta[1]++;
+            }
+            delta[2]++;
+        }
+        return deltas;
+    }
+
+    // Totals per date, newest first, within the optional date range and course
+    @Transactional(readOnly = true)
+    public List<DailyAttendanceTotals> totalsByDate(LocalDate from, LocalDate to, Long courseId) {
+        StringBuilder where = new StringBuilder(" where 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            where.append(" and date >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            where.append(" and date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        if (courseId != null) {
+            where.append(" and course_id = ?");
+            args.add(courseId);
+        }
+        return jdbcTemplate.query(
+                "select date, sum(present) as present, sum(absent) as absent, sum(marked) as marked " +
+                "from attendance_daily_rollup" + where + " group by date order by date desc",
+                (rs, rowNum) -> new DailyAttendanceTotals(rs.getDate("date").toLocalDate(),
+                        rs.getLong("present"), rs.getLong("absent"), rs.getLong("marked")),
+                args.toArray());
+    }
+
+    // Totals of the given courses on one date; courses without attendance that day are left out
+    @Transactional(readOnly = true)
+    public Map<Long, DailyAttendanceTotals> totalsOn(LocalDate date, Collection<Long> courseIds) {
+        Map<Long, DailyAttendanceTotals> totals = new HashMap<>();
+        if (courseIds.isEmpty()) {
+            return totals;
+        }
+        namedParameterJdbcTemplate.query(
+                "select course_id, present, absent, marked from attendance_daily_rollup " +
+                "where date = :date and course_id in (:courseIds)",
+                new MapSqlParameterSource().addValue("date", Date.valueOf(date)).addValue("courseIds", courseIds),
+                rs -> {
+                    totals.put(rs.getLong("course_id"), new DailyAttendanceTotals(date,
+                            rs.getLong("present"), rs.getLong("absent"), rs.getLong("marked")));
+                });
+        return totals;
+    }
+
+    // Totals of every course that has attendance
+    @Transactional(readOnly = true)
+    public List<CourseAttendanceTotals> totalsByCourse() {
+        return jdbcTemplate.query(
+                "select r.course_id, c.name, sum(r.present) as present, sum(r.absent) as absent, sum(r.marked) as marked " +
+                "from attendance_daily_rollup r left join course c on c.id = r.course_id " +
+                "group by r.course_id, c.name order by r.course_id",
+                (rs, rowNum) -> new CourseAttendanceTotals(rs.getLong("course_id"), rs.getString("name"),
+                        rs.getLong("present"), rs.getLong("absent"), rs.getLong("marked")));
+    }
+
+    // Totals of one course per date, newest first
+    @Transactional(readOnly = true)
+    public List<DailyAttendanceTotals> courseTotalsByDate(Long courseId) {
+        return jdbcTemplate.query(
+                "select date, present, absent, marked from attendance_daily_rollup where course_id = ? order by date desc",
+                (rs, rowNum) -> new DailyAttendanceTotals(rs.getDate("date").toLocalDate(),
+                        rs.getLong("present"), rs.getLong("absent"), rs.getLong("marked")),
+                courseId);
+    }
+
+    // Repairs the rollup of every day before today, one range of chunk-days per transaction, and
+    // returns the number of rows fixed. Today is left alone: only the marking path writes today's
+    // attendance and it updates the rollup in the same transaction, so racing it could only lose counts.
+    // Archived days are left alone too: their rows are no longer in the attendance table to compare with.
+    // Each range is reconciled under the archive lock and clamped to hotFrom as it is then, so an
+    // archive run cannot delete the range's rows between the aggregate and the write and zero its totals.
+    public int reconcile() {
+        LocalDate today = LocalDate.now();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int repaired = 0;
+        LocalDate hotFrom = attendanceArchive.hotFrom();
+        LocalDate start = hotFrom == null
+                ? toLocalDate(jdbcTemplate.queryForObject(FIRST_DATE, Date.class, Date.valueOf(today), Date.valueOf(today)))
+                : toLocalDate(jdbcTemplate.queryForObject(NEXT_DATE, Date.class,
+                        Date.valueOf(hotFrom), Date.valueOf(today), Date.valueOf(hotFrom), Date.valueOf(today)));
+        while (start != null) {
+            LocalDate end = start.plusDays(chunkDays).isBefore(today) ? start.plusDays(chunkDays) : today;
+            LocalDate chunkStart = start;
+            Integer fixed = attendanceArchiveService.exclusively(() -> transaction.execute(status -> {
+                LocalDate archivedUntil = attendanceArchive.hotFrom();
+                LocalDate from = archivedUntil == null || chunkStart.isAfter(archivedUntil) ? chunkStart : archivedUntil;
+                return from.isBefore(end) ? reconcileRange(from, end) : 0;
+            }));
+            repaired += fixed == null ? 0 : fixed;
+            // Jump over days without any attendance instead of walking through them
+            start = toLocalDate(jdbcTemplate.queryForObject(NEXT_DATE, Date.class,
+                    Date.valueOf(end), Date.valueOf(today), Date.valueOf(end), Date.valueOf(today)));
+        }
+        return repaired;
+    }
+
+    @Scheduled(initialDelayString = "${attendance.rollup.reconcile-interval:PT1H}",
+            fixedDelayString = "${attendance.rollup.reconcile-interval:PT1H}")
+    public void reconcilePeriodically() {
+        int repaired = reconcile();
+        if (repaired > 0) {
+            log.warn("Repaired {} attendance rollup rows that had drifted from the attendance table", repaired);
+        }
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+
+    // The rollup rows are locked before the attendance is aggregated. A deletion that takes rows off
+    // the range subtracts from those rollup rows in its own transaction, so it either committed before
+    // the lock, and the aggregate sees it, or waits for this transaction and subtracts from the
+    // totals written here. Without the lock it could commit in between and be overwritten.
+    private int reconcileRange(LocalDate start, LocalDate end) {
+        Date from = Date.valueOf(start);
+        Date to = Date.valueOf(end);
+        Map<Key, Totals> actual = new HashMap<>();
+        jdbcTemplate.query(LOCK_ROLLUP_RANGE, rs -> {
+            actual.put(new Key(rs.getDate("date").toLocalDate(), rs.getLong("course_id")),
+                    new Totals(rs.getLong("present"), rs.getLong("absent"), rs.getLong("marked")));
+        }, from, to);
+        Map<Key, Totals> expected = new HashMap<>();
+        jdbcTemplate.query(AGGREGATE_RANGE, rs -> {
+            expected.put(new Key(rs.getDate("date").toLocalDate(), rs.getLong("course_id")),
+                    new Totals(rs.getLong("present"), rs.getLong("absent"), rs.getLong("marked")));
+        }, from, to);
+
+        List<Map.Entry<Key, Totals>> replace = expected.entrySet().stream()
+                .filter(entry -> !entry.getValue().equals(actual.get(entry.getKey())))
+                .toList();
+        List<Key> delete = actual.keySet().stream().filter(key -> !expected.containsKey(key)).toList();
+
+        jdbcTemplate.batchUpdate(REPLACE_ROLLUP, replace, BATCH_SIZE, (ps, entry) -> {
+            ps.setDate(1, Date.valueOf(entry.getKey().date()));
+            ps.setLong(2, entry.getKey().courseId());
+            ps.setLong(3, entry.getValue().present());
+            ps.setLong(4, entry.getValue().absent());
+            ps.setLong(5, entry.getValue().marked());
+        });
+        jdbcTemplate.batchUpdate(DELETE_ROLLUP, delete, BATCH_SIZE, (ps, key) -> {
+            ps.setDate(1, Date.valueOf(key.date()));
+            ps.setLong(2, key.courseId());
+        });
+        return replace.size() + delete.size();
+    }
+}
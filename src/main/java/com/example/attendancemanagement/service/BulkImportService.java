@@ -0,0 +1,264 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.dto.ImportLineResult;
+import com.example.attendancemanagement.dto.ImportReport;
+import com.example.attendancemanagement.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+// Bulk import of users and enrollments from a CSV or NDJSON upload.
+// The upload is parsed line by line; duplicates and references are checked against sets loaded once
+// per import (enrollments per course on first use), and accepted rows are inserted in JDBC batches,
+// one transaction per batch that also bumps the table's version. If a batch fails, its rows are retried
+// one at a time so the failure is reported against the right line.
+@Service
+public class BulkImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    private static final String INSERT_USER = "insert into user (username, password, role) values (?, ?, ?)";
+    private static final String INSERT_ENROLLMENT = "insert into enrollment (student_id, course_id) values (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private NameCache nameCache;
+
+    @Value("${attendance.import.batch-size:1000}")
+    private int batchSize;
+
+    private TransactionTemplate perBatch;
+
+    @PostConstruct
+    void init() {
+        perBatch = new TransactionTemplate(transactionManager);
+    }
+
+    // CSV or NDJSON, from the upload's content type
+    private static ImportRecordReader.Format format(MediaType contentType) {
+        if (contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return ImportRecordReader.Format.NDJSON;
+        }
+        if (contentType.isCompatibleWith(TEXT_CSV)) {
+            return ImportRecordReader.Format.CSV;
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + contentType);
+    }
+
+    // Fields: username, password, role (Admin, Teacher or Student)
+    public ImportReport importUsers(InputStream in, MediaType contentType) throws IOException {
+        Set<String> usernames = new HashSet<>(jdbcTemplate.queryForList("select username from user", String.class));
+        long lastId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from user", Long.class);
+        Batch batch = new Batch(INSERT_USER, TableVersions.Table.USERS, "Username is already taken.");
+
+        try (ImportRecordReader reader = new ImportRecordReader(in, format(contentType), objectMapper)) {
+            ImportRecordReader.Line line;
+            while ((line = reader.next()) != null) {
+                if (line.error() != null) {
+                    batch.reject(line.number(), line.error());
+                    continue;
+                }
+                String username = line.fields().get("username");
+                String password = line.fields().get("password");
+                User.Role role = role(line.fields().get("role"));
+                if (isBlank(username) || isBlank(password) || isBlank(line.fields().get("role"))) {
+                    batch.reject(line.number(), "Username, password, and role are required.");
+                } else if (role == null) {
+                    batch.reject(line.number(), "Role must be one of Admin, Teacher or Student.");
+                } else if (!usernames.add(username)) {
+                    batch.reject(line.number(), "Username is already taken.");
+                } else {
+                    batch.add(line.number(), new Object[]{username, password, role.name()});
+                }
+            }
+        }
+        ImportReport report = batch.finish();
+        if (report.created() > 0) {
+            // Cached username lookups may say an imported user does not exist, and the ids may have
+            // been looked up (and belonged to a deleted user) before
+            entityCacheService.evictUsers();
+            nameCache.evictUsers(jdbcTemplate.queryForList("select id from user where id > ?", Long.class, lastId));
+        }
+        return report;
+    }
+
+    // Fields: studentId or studentUsername, and courseId or courseName
+    public ImportReport importEnrollments(InputStream in, MediaType contentType) throws IOException {
+        Map<String, Long> userIds = new HashMap<>();
+        Set<Long> studentIds = new HashSet<>();
+        jdbcTemplate.query("select id, username, role from user", rs -> {
+            userIds.put(rs.getString("username"), rs.getLong("id"));
+            if (User.Role.Student.name().equals(rs.getString("role"))) {
+                studentIds.add(rs.getLong("id"));
+            }
+        });
+        Map<String, Long> courseIds = new HashMap<>();
+        jdbcTemplate.query("select id, name from course", rs -> {
+            courseIds.put(rs.getString("name"), rs.getLong("id"));
+        });
+        Set<Long> knownCourses = new HashSet<>(courseIds.values());
+        Set<Long> knownUsers = new HashSet<>(userIds.values());
+        Map<Long, Roaring64Bitmap> enrolled = new HashMap<>();
+        Batch batch = new Batch(INSERT_ENROLLMENT, TableVersions.Table.ENROLLMENTS, "Student is already enrolled in the course.");
+
+        try (ImportRecordReader reader = new ImportRecordReader(in, format(contentType), objectMapper)) {
+            ImportRecordReader.Line line;
+            while ((line = reader.next()) != null) {
+                if (line.error() != null) {
+                    batch.reject(line.number(), line.error());
+                    continue;
+                }
+                Long studentId = reference(line.fields(), "studentId", "studentUsername", userIds);
+                Long courseId = reference(line.fields(), "courseId", "courseName", courseIds);
+                if (studentId == null || courseId == null || !knownUsers.contains(studentId) || !knownCourses.contains(courseId)) {
+                    batch.reject(line.number(), "Invalid student or course ID.");
+                } else if (!studentIds.contains(studentId)) {
+                    batch.reject(line.number(), "The provided ID does not belong to a Student.");
+                } else if (!enrolled.computeIfAbsent(courseId, this::enrolledStudents).contains(studentId)) {
+                    enrolled.get(courseId).addLong(studentId);
+                    batch.add(line.number(), new Object[]{studentId, courseId});
+                } else {
+                    batch.reject(line.number(), "Student is already enrolled in the course.");
+                }
+            }
+        }
+        return batch.finish();
+    }
+
+    private Roaring64Bitmap enrolledStudents(Long courseId) {
+        Roaring64Bitmap students = new Roaring64Bitmap();
+        jdbcTemplate.query("select student_id from enrollment where course_id = ?",
+                rs -> {
+                    students.addLong(rs.getLong(1));
+                }, courseId);
+        return students;
+    }
+
+    // An id column when present, otherwise the name column resolved through the preloaded map
+    private static Long reference(Map<String, String> fields, String idField, String nameField, Map<String, Long> idsByName) {
+        String id = fields.get(idField);
+        if (!isBlank(id)) {
+            try {
+                return Long.valueOf(id);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        String name = fields.get(nameField);
+        return isBlank(name) ? null : idsByName.get(name);
+    }
+
+    private static User.Role role(String role) {
+        if (role == null) {
+            return null;
+        }
+        for (User.Role value : User.Role.values()) {
+            if (value.name().equalsIgnoreCase(role)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // Accepted rows waiting for their batch insert, plus the results of every line so far
+    private final class Batch {
+        private final String sql;
+        private final TableVersions.Table table;
+        private final String duplicateMessage;
+        private final List<Long> lines = new ArrayList<>();
+        private final List<Object[]> rows = new ArrayList<>();
+        private final List<ImportLineResult> results = new ArrayList<>();
+        private int created;
+        private int rejected;
+
+        Batch(String sql, TableVersions.Table table, String duplicateMessage) {
+            this.sql = sql;
+            this.table = table;
+            this.duplicateMessage = duplicateMessage;
+        }
+
+        void reject(long line, String message) {
+            results.add(ImportLineResult.rejected(line, message));
+            rejected++;
+        }
+
+        void add(long line, Object[] row) {
+            lines.add(line);
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        ImportReport finish() {
+            flush();
+            // Accepted lines are reported when their batch is written, after later rejections
+            results.sort(Comparator.comparingLong(ImportLineResult::line));
+            return new ImportReport(created, rejected, results);
+        }
+
+        private void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                perBatch.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(sql, rows);
+                    tableVersions.bump(table);
+                });
+                lines.forEach(line -> results.add(ImportLineResult.created(line)));
+                created += rows.size();
+            } catch (DataAccessException e) {
+                // Something changed since the sets were loaded; find out which rows are affected
+                for (int i = 0; i < rows.size(); i++) {
+                    Object[] row = rows.get(i);
+                    try {
+                        perBatch.executeWithoutResult(status -> {
+                            jdbcTemplate.update(sql, row);
+                            tableVersions.bump(table);
+                        });
+                        results.add(ImportLineResult.created(lines.get(i)));
+                        created++;
+                    } catch (DuplicateKeyException duplicate) {
+                        reject(lines.get(i), duplicateMessage);
+                    } catch (DataAccessException failed) {
+                        reject(lines.get(i), "Could not be saved.");
+                    }
+                }
+            }
+            lines.clear();
+            rows.clear();
+        }
+    }
+}
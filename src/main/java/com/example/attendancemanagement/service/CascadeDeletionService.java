@@ -0,0 +1,341 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.archive.ArchivedAttendance;
+import com.example.attendancemanagement.archive.AttendanceArchive;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.dto.DeletionJob;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.entity.User;
+import com.example.attendancemanagement.service.TableVersions.Table;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Predicate;
+
+// Deletes courses and users together with the rows that reference them, using set-based statements.
+// Attendance goes first, chunk-size rows per transaction, and every chunk is taken off the counters,
+// ledgers and rollup in the same transaction, so those stay exact while a deletion is under way.
+// Enrollments and the course or user itself go in one last short transaction, which also picks up
+// attendance marked in the meantime. A cascade over more than background-threshold attendance rows
+// runs as a job on a single-thread pool owned here; smaller ones run on the caller's thread.
+@Service
+public class CascadeDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CascadeDeletionService.class);
+
+    // Ids per "in" list when a chunk is deleted
+    private static final int IN_LIST_SIZE = 1000;
+
+    private static final String COURSE_ATTENDANCE_CHUNK =
+            "select id, course_id, student_id, date, status from attendance where course_id = ? limit ? for update";
+
+    private static final String STUDENT_ATTENDANCE_CHUNK =
+            "select id, course_id, student_id, date, status from attendance where student_id = ? limit ? for update";
+
+    // Counts at most limit rows, so a huge course costs no more to size up than a threshold's worth
+    private static final String COUNT_COURSE_ATTENDANCE =
+            "select count(*) from (select 1 from attendance where course_id = ? limit ?) a";
+
+    private static final String COUNT_STUDENT_ATTENDANCE =
+            "select count(*) from (select 1 from attendance where student_id = ? limit ?) a";
+
+    private static final String DELETE_ATTENDANCE = "delete from attendance where id in (:ids)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AttendanceCounterService attendanceCounterService;
+
+    @Autowired
+    private AttendanceLedgerService attendanceLedgerService;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private AttendanceArchive attendanceArchive;
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private NameCache nameCache;
+
+    @Autowired
+    private MarkedStudentsIndex markedStudentsIndex;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private ObjectProvider<TaskDecorator> taskDecorator;
+
+    @Value("${attendance.deletion.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${attendance.deletion.background-threshold:20000}")
+    private int backgroundThreshold;
+
+    @Value("${attendance.deletion.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${attendance.deletion.job-retention:PT24H}")
+    private Duration jobRetention;
+
+    private ThreadPoolTaskExecutor executor;
+    private TransactionTemplate perChunk;
+
+    // Every job by id for the status endpoint, and the unfinished ones by what they delete
+    private Cache<String, Job> jobs;
+    private final Map<String, Job> unfinished = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        // One deletion at a time: a cascade is throughput work and must not crowd out requests
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cascade-deletion-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(taskDecorator.getIfUnique());
+        executor.initialize();
+
+        perChunk = new TransactionTemplate(transactionManager);
+        jobs = Caffeine.newBuilder().expireAfterWrite(jobRetention).build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public Optional<DeletionJob> job(String id) {
+        return Optional.ofNullable(jobs.getIfPresent(id)).map(Job::snapshot);
+    }
+
+    // The caller has checked that the course exists
+    public DeletionJob deleteCourse(Long courseId) {
+        return start(new Job(DeletionJob.Target.course, courseId, COURSE_ATTENDANCE_CHUNK, COUNT_COURSE_ATTENDANCE) {
+            @Override
+            void finish() {
+                List<MarkedAttendance> archived = toMarked(attendanceArchive.courseRows(courseId, null, null));
+                perChunk.executeWithoutResult(status -> {
+                    drain(this);
+                    takeOffDerived(archived);
+                    jdbcTemplate.update("delete from enrollment where course_id = ?", courseId);
+                    jdbcTemplate.update("delete from course where id = ?", courseId);
+                    tableVersions.bump(Table.COURSES, Table.ENROLLMENTS, Table.ATTENDANCE);
+                });
+                nameCache.evictCourse(courseId);
+                markedStudentsIndex.evictCourse(courseId);
+                entityCacheService.evictCourses();
+            }
+        });
+    }
+
+    // Students take their attendance and enrollments with them; teachers are unassigned from their courses
+    public DeletionJob deleteUser(User user) {
+        Long userId = user.getId();
+        // Outstanding tokens must not outlive the account, even while its rows are being deleted
+        tokenService.revoke(userId);
+        if (user.getRole() == User.Role.Student) {
+            return start(new Job(DeletionJob.Target.user, userId, STUDENT_ATTENDANCE_CHUNK, COUNT_STUDENT_ATTENDANCE) {
+                @Override
+                void finish() {
+                    List<MarkedAttendance> archived = toMarked(attendanceArchive.studentRows(userId, null, null, null));
+                    perChunk.executeWithoutResult(status -> {
+                        drain(this);
+                        takeOffDerived(archived);
+                        jdbcTemplate.update("delete from enrollment where student_id = ?", userId);
+                        jdbcTemplate.update("delete from user where id = ?", userId);
+                        tableVersions.bump(Table.USERS, Table.ENROLLMENTS, Table.ATTENDANCE);
+                    });
+                    nameCache.evictUser(userId);
+                    entityCacheService.evictUsers();
+                }
+            });
+        }
+        return start(new Job(DeletionJob.Target.user, userId, null, null) {
+            @Override
+            void finish() {
+                List<Long> courseIds = perChunk.execute(status -> {
+                    List<Long> ids = jdbcTemplate.queryForList("select id from course where teacher_id = ?", Long.class, userId);
+                    jdbcTemplate.update("update course set teacher_id = null where teacher_id = ?", userId);
+                    jdbcTemplate.update("delete from user where id = ?", userId);
+                    tableVersions.bump(Table.USERS, Table.COURSES);
+                    return ids;
+                });
+                nameCache.evictCourses(courseIds);
+                nameCache.evictUser(userId);
+                entityCacheService.evictUsers();
+                entityCacheService.evictCourses();
+            }
+        });
+    }
+
+    // Runs the job here when its attendance is small, otherwise queues it. A second request for a
+    // target that is already being deleted gets the job that is under way.
+    private DeletionJob start(Job job) {
+        Job underWay = unfinished.putIfAbsent(job.key(), job);
+        if (underWay != null) {
+            return underWay.snapshot();
+        }
+        jobs.put(job.id, job);
+        if (job.countSql != null && attendanceRows(job) > backgroundThreshold) {
+            try {
+                executor.execute(job);
+            } catch (RuntimeException e) {
+                unfinished.remove(job.key(), job);
+                jobs.invalidate(job.id);
+                throw e;
+            }
+        } else {
+            job.run();
+        }
+        return job.snapshot();
+    }
+
+    private int attendanceRows(Job job) {
+        Integer rows = jdbcTemplate.queryForObject(job.countSql, Integer.class, job.targetId, backgroundThreshold + 1);
+        return rows == null ? 0 : rows;
+    }
+
+    // Deletes chunks in the current transaction until none are left
+    private void drain(Job job) {
+        int deleted;
+        do {
+            deleted = deleteChunk(job);
+        } while (deleted > 0);
+    }
+
+    // Deletes up to chunk-size attendance rows of the job's target and takes them off the derived tables
+    private int deleteChunk(Job job) {
+        List<Long> ids = new ArrayList<>();
+        List<MarkedAttendance> rows = new ArrayList<>();
+        jdbcTemplate.query(job.chunkSql, rs -> {
+            ids.add(rs.getLong("id"));
+            Date date = rs.getDate("date");
+            rows.add(new MarkedAttendance(rs.getObject("course_id", Long.class), rs.getObject("student_id", Long.class),
+                    date == null ? null : date.toLocalDate(), rs.getString("status")));
+        }, job.targetId, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        for (int i = 0; i < ids.size(); i += IN_LIST_SIZE) {
+            namedParameterJdbcTemplate.update(DELETE_ATTENDANCE,
+                    Map.of("ids", ids.subList(i, Math.min(ids.size(), i + IN_LIST_SIZE))));
+        }
+        takeOffDerived(rows);
+        job.attendanceDeleted += ids.size();
+        return ids.size();
+    }
+
+    private void takeOffDerived(List<MarkedAttendance> rows) {
+        // Each derived table only ever counted the rows that had the columns it is keyed by
+        attendanceCounterService.applyDeleted(having(rows, row -> row.studentId() != null && row.courseId() != null));
+        attendanceLedgerService.applyDeleted(having(rows,
+                row -> row.studentId() != null && row.courseId() != null && row.date() != null));
+        attendanceRollupService.applyDeleted(having(rows, row -> row.courseId() != null && row.date() != null));
+    }
+
+    // Archive segments are immutable and reads skip rows of courses and users that are gone, but the
+    // derived tables still count the archived rows and lose them in the last transaction
+    private static List<MarkedAttendance> toMarked(List<ArchivedAttendance> archived) {
+        return archived.stream().map(ArchivedAttendance::toMarked).toList();
+    }
+
+    private static List<MarkedAttendance> having(List<MarkedAttendance> rows, Predicate<MarkedAttendance> columns) {
+        return rows.stream().filter(columns).toList();
+    }
+
+    // One deletion: attendance chunk by chunk, then finish() removes the rest in one transaction
+    private abstract class Job implements Runnable {
+        final String id = UUID.randomUUID().toString();
+        final DeletionJob.Target target;
+        final Long targetId;
+        final String chunkSql;
+        final String countSql;
+        final Instant startedAt = Instant.now();
+        // Written by the job's thread only
+        volatile long attendanceDeleted;
+        volatile DeletionJob.Status status = DeletionJob.Status.running;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Job(DeletionJob.Target target, Long targetId, String chunkSql, String countSql) {
+            this.target = target;
+            this.targetId = targetId;
+            this.chunkSql = chunkSql;
+            this.countSql = countSql;
+        }
+
+        abstract void finish();
+
+        String key() {
+            return target + ":" + targetId;
+        }
+
+        @Override
+        public void run() {
+            try {
+                // Not while an archive run moves rows of the same target out of the table
+                attendanceArchiveService.exclusively(() -> {
+                    if (chunkSql != null) {
+                        Integer deleted;
+                        do {
+                            deleted = perChunk.execute(transaction -> deleteChunk(this));
+                        } while (deleted != null && deleted > 0);
+                    }
+                    finish();
+                    return null;
+                });
+                status = DeletionJob.Status.completed;
+            } catch (RuntimeException e) {
+                log.error("Deleting {} {} failed after {} attendance rows", target, targetId, attendanceDeleted, e);
+                error = "Deletion failed; the remaining rows can be removed by deleting again.";
+                status = DeletionJob.Status.failed;
+            } finally {
+                finishedAt = Instant.now();
+                unfinished.remove(key(), this);
+            }
+        }
+
+        DeletionJob snapshot() {
+            return new DeletionJob(id, target, targetId, status, attendanceDeleted, startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.entity.Course;
+import com.example.attendancemanagement.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Eviction and statistics for the Hibernate second-level cache of User and Course.
+// Writes through JPA keep the cache current by themselves; the JDBC write paths (bulk import,
+// cascade deletion) bypass Hibernate and have to evict here once they have committed.
+@Service
+public class EntityCacheService {
+
+    // Region names as declared on the entities and in application.conf
+    private static final String USER_REGION = "users";
+    private static final String COURSE_REGION = "courses";
+    private static final String QUERY_REGION = "default-query-results-region";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+
+    @PostConstruct
+    void init() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    // Cached query results hold ids, so a query over users may have to go as well
+    public void evictUsers() {
+        sessionFactory.getCache().evictEntityData(User.class);
+        sessionFactory.getCache().evictQueryRegions();
+    }
+
+    public void evictCourses() {
+        sessionFactory.getCache().evictEntityData(Course.class);
+        sessionFactory.getCache().evictQueryRegions();
+    }
+
+    public Map<String, Object> stats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", describe(statistics.getDomainDataRegionStatistics(USER_REGION)));
+        stats.put("courses", describe(statistics.getDomainDataRegionStatistics(COURSE_REGION)));
+        stats.put("queries", describe(statistics.getQueryRegionStatistics(QUERY_REGION)));
+        // Every statement Hibernate has prepared, to compare against the hits above
+        stats.put("preparedStatements", statistics.getPrepareStatementCount());
+        return stats;
+    }
+
+    private static Map<String, Object> describe(CacheRegionStatistics region) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (region == null) {
+            return data;
+        }
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+        data.put("hits", hits);
+        data.put("misses", misses);
+        data.put("puts", region.getPutCount());
+        data.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return data;
+    }
+}
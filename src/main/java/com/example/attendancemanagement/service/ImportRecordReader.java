@@ -0,0 +1,126 @@
+package com.example.attendancemanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads an upload one line at a time as field maps: CSV with a header line, or one JSON object per line.
+// Blank lines are skipped; line numbers count every physical line, header included.
+final class ImportRecordReader implements AutoCloseable {
+
+    enum Format {
+        CSV, NDJSON
+    }
+
+    // One data line. A line that could not be parsed has no fields and says why.
+    record Line(long number, Map<String, String> fields, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private List<String> header;
+    private long number;
+
+    ImportRecordReader(InputStream in, Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    // Next data line, or null at the end of the upload
+    Line next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            number++;
+            if (text.isBlank()) {
+                continue;
+            }
+            if (format == Format.NDJSON) {
+                return json(text);
+            }
+            List<String> values = csv(text);
+            if (values == null) {
+                return new Line(number, null, "Unbalanced quotes.");
+            }
+            if (header == null) {
+                header = values.stream().map(String::trim).toList();
+                continue;
+            }
+            if (values.size() != header.size()) {
+                return new Line(number, null, "Expected " + header.size() + " fields but found " + values.size() + ".");
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                fields.put(header.get(i), values.get(i).trim());
+            }
+            return new Line(number, fields, null);
+        }
+        return null;
+    }
+
+    private Line json(String text) {
+        try {
+            JsonNode node = objectMapper.readTree(text);
+            if (!node.isObject()) {
+                return new Line(number, null, "Expected a JSON object.");
+            }
+            Map<String, String> fields = new HashMap<>();
+            node.fields().forEachRemaining(field -> {
+                if (!field.getValue().isNull()) {
+                    fields.put(field.getKey(), field.getValue().asText().trim());
+                }
+            });
+            return new Line(number, fields, null);
+        } catch (JsonProcessingException e) {
+            return new Line(number, null, "Malformed JSON.");
+        }
+    }
+
+    // RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes
+    private static List<String> csv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.repository.AttendanceRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Compressed bitmap of the students already marked per (course, date).
+// A bitmap is loaded with one query on first use and is only kept in memory, so after a restart
+// or an eviction the next request simply reloads it from the database. Markings made on other
+// instances are not seen here, so a bitmap is dropped a fixed time after it was loaded, however
+// often it is read or updated.
+@Service
+public class MarkedStudentsIndex {
+
+    private record Key(Long courseId, LocalDate date) {
+    }
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Value("${attendance.marked-index.max-entries:2000}")
+    private long maxEntries;
+
+    @Value("${attendance.marked-index.expire-after-write:PT15S}")
+    private Duration expireAfterWrite;
+
+    // Bitmaps are never modified in place: updates swap in a modified copy
+    private Cache<Key, Roaring64Bitmap> bitmaps;
+
+    @PostConstruct
+    void init() {
+        bitmaps = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<Key, Roaring64Bitmap>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Roaring64Bitmap bitmap, long currentTime) {
+                        return expireAfterWrite.toNanos();
+                    }
+
+                    // Swapping in an updated copy keeps the load time: only a reload resets the clock
+                    @Override
+                    public long expireAfterUpdate(Key key, Roaring64Bitmap bitmap, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Roaring64Bitmap bitmap, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // Students of the roster that have no attendance for the course on that date
+    public Roaring64Bitmap notMarked(Long courseId, LocalDate date, Collection<Long> roster) {
+        Roaring64Bitmap notMarked = new Roaring64Bitmap();
+        roster.forEach(notMarked::addLong);
+        notMarked.andNot(marked(courseId, date));
+        return notMarked;
+    }
+
+    public Roaring64Bitmap marked(Long courseId, LocalDate date) {
+        return bitmaps.get(new Key(courseId, date), key -> {
+            Roaring64Bitmap bitmap = new Roaring64Bitmap();
+            attendanceRepository.findStudentIdsByCourseIdAndDate(key.courseId(), key.date()).forEach(bitmap::addLong);
+            bitmap.runOptimize();
+            return bitmap;
+        });
+    }
+
+    // Adds the rows to the loaded bitmaps once the marking transaction has committed
+    public void recordMarked(List<MarkedAttendance> marked) {
+        if (marked.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(marked);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(marked);
+            }
+        });
+    }
+
+    public void evictCourse(Long courseId) {
+        bitmaps.asMap().keySet().removeIf(key -> key.courseId().equals(courseId));
+    }
+
+    private void apply(List<MarkedAttendance> marked) {
+        Map<Key, List<Long>> studentsByKey = marked.stream().collect(Collectors.groupingBy(
+                attendance -> new Key(attendance.courseId(), attendance.date()),
+                Collectors.mapping(MarkedAttendance::studentId, Collectors.toList())));
+
+        // Only bitmaps that are already loaded are updated, the others will read the rows from the database
+        studentsByKey.forEach((key, studentIds) -> bitmaps.asMap().computeIfPresent(key, (k, bitmap) -> {
+            Roaring64Bitmap copy = bitmap.clone();
+            studentIds.forEach(copy::addLong);
+            return copy;
+        }));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.dto.CourseSummary;
+import com.example.attendancemanagement.dto.UserSummary;
+import com.example.attendancemanagement.entity.User;
+import com.example.attendancemanagement.repository.CourseRepository;
+import com.example.attendancemanagement.repository.UserRepository;
+import com.example.attendancemanagement.snapshot.RosterSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Size-bounded cache of user id -> (username, role) and course id -> (name, teacherId), for display.
+// Entries are evicted by the admin endpoints, cascade deletions and bulk imports that change users or
+// courses on this instance, and expire after expire-after-write so changes made on other instances
+// show up too. Misses are answered from the roster snapshot while it is current, so a fresh instance
+// fills up without queries. Not for authorization: an entry can be that old.
+@Service
+public class NameCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private RosterSnapshotService rosterSnapshotService;
+
+    @Value("${attendance.cache.users.max-size:10000}")
+    private long maxUsers;
+
+    @Value("${attendance.cache.courses.max-size:2000}")
+    private long maxCourses;
+
+    @Value("${attendance.cache.expire-after-write:PT5M}")
+    private Duration expireAfterWrite;
+
+    private Cache<Long, UserSummary> users;
+    private Cache<Long, CourseSummary> courses;
+
+    @PostConstruct
+    void init() {
+        users = Caffeine.newBuilder().maximumSize(maxUsers).expireAfterWrite(expireAfterWrite).recordStats().build();
+        courses = Caffeine.newBuilder().maximumSize(maxCourses).expireAfterWrite(expireAfterWrite).recordStats().build();
+    }
+
+    public Optional<UserSummary> user(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(users.get(userId, id -> {
+            RosterSnapshot snapshot = rosterSnapshotService.current().orElse(null);
+            if (snapshot != null) {
+                return snapshot.user(id).orElse(null);
+            }
+            return userRepository.findSummaryById(id).orElse(null);
+        }));
+    }
+
+    public Optional<CourseSummary> course(Long courseId) {
+        if (courseId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(courses.get(courseId, id -> {
+            RosterSnapshot snapshot = rosterSnapshotService.current().orElse(null);
+            if (snapshot != null) {
+                return snapshot.course(id).orElse(null);
+            }
+            return courseRepository.findSummaryById(id).orElse(null);
+        }));
+    }
+
+    // Username of the teacher, or the fallback when the id is empty, unknown or not a teacher
+    public String teacherName(Long teacherId, String fallback) {
+        return user(teacherId)
+                .filter(user -> user.role() == User.Role.Teacher)
+                .map(UserSummary::username)
+                .orElse(fallback);
+    }
+
+    public void evictUser(Long userId) {
+        users.invalidate(userId);
+    }
+
+    public void evictUsers(Collection<Long> userIds) {
+        users.invalidateAll(userIds);
+    }
+
+    public void evictCourse(Long courseId) {
+        courses.invalidate(courseId);
+    }
+
+    public void evictCourses(Collection<Long> courseIds) {
+        courses.invalidateAll(courseIds);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", describe(users));
+        stats.put("courses", describe(courses));
+        return stats;
+    }
+
+    private static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("size", cache.estimatedSize());
+        data.put("hits", stats.hitCount());
+        data.put("misses", stats.missCount());
+        data.put("evictions", stats.evictionCount());
+        data.put("hitRate", stats.hitRate());
+        return data;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.attendancemanagement.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Service
+public class NdjsonExportService {
+
+    // Rows written between flushes of the response and of the persistence context
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    public static Limit limit(Integer limit) {
+        return limit == null ? Limit.unlimited() : Limit.of(limit);
+    }
+
+    // Writes one JSON document per line while reading the rows through a forward-only cursor.
+    // Entities are detached every chunk so memory stays constant whatever the row count.
+    @Transactional(readOnly = true)
+    public <T> void write(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+             Stream<T> stream = rows.get()) {
+            generator.setRootValueSeparator(null);
+            int written = 0;
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                generator.writeRaw('\n');
+
+                if (++written % CHUNK_SIZE == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+            generator.flush();
+        }
+    }
+}
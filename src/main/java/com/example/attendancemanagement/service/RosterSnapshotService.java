@@ -0,0 +1,215 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.entity.User;
+import com.example.attendancemanagement.service.TableVersions.Table;
+import com.example.attendancemanagement.snapshot.RosterSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Keeps a memory-mapped snapshot of users, courses and rosters on local disk, so the roster,
+// marking and course list reads of a freshly started instance do not all go to the database at once.
+// The snapshot left by the previous run is mapped at startup without touching the database. It is
+// served once its stamp has been checked against the durable table versions: on first use, again
+// every revalidate-interval, and right away after this instance wrote one of the tables. A stale
+// snapshot is dropped and the reads go to the database until the next one is written, which happens
+// every interval when the versions moved, and on shutdown.
+@Service
+public class RosterSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(RosterSnapshotService.class);
+
+    private static final String FILE = "roster.snapshot";
+    private static final String PARTIAL = FILE + ".partial";
+
+    private static final String USERS = "select id, username, role from user order by id";
+    private static final String COURSES = "select id, name, teacher_id from course order by id";
+    private static final String ENROLLMENTS = "select course_id, student_id from enrollment order by course_id, id";
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${attendance.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${attendance.snapshot.directory:data/roster-snapshot}")
+    private Path directory;
+
+    @Value("${attendance.snapshot.revalidate-interval:PT10S}")
+    private Duration revalidateInterval;
+
+    private volatile RosterSnapshot snapshot;
+
+    // Outcome of the last check of the snapshot against the database, and the local versions it saw
+    private record Check(RosterSnapshot snapshot, boolean current, long checkedAt, long users, long courses, long enrollments) {
+    }
+
+    private volatile Check check;
+
+    private final Object writeLock = new Object();
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        // Left behind by a write that did not finish
+        Files.deleteIfExists(directory.resolve(PARTIAL));
+        Path file = directory.resolve(FILE);
+        if (Files.exists(file)) {
+            try {
+                snapshot = RosterSnapshot.map(file);
+                log.info("Mapped the roster snapshot of {} users, {} courses and {} enrollments from {}",
+                        snapshot.userCount(), snapshot.courseCount(), snapshot.enrollmentCount(), file);
+            } catch (IOException e) {
+                log.warn("Ignoring the unreadable roster snapshot {}", file, e);
+                Files.delete(file);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (enabled) {
+            writeIfStale();
+        }
+    }
+
+    // The snapshot when it matches the database, checking it first if that is due
+    public Optional<RosterSnapshot> current() {
+        RosterSnapshot mapped = snapshot;
+        if (mapped == null) {
+            return Optional.empty();
+        }
+        Check last = check;
+        if (last == null || last.snapshot() != mapped || last.users() != tableVersions.version(Table.USERS)
+                || last.courses() != tableVersions.version(Table.COURSES)
+                || last.enrollments() != tableVersions.version(Table.ENROLLMENTS)
+                || System.nanoTime() - last.checkedAt() > revalidateInterval.toNanos()) {
+            last = validate(mapped);
+        }
+        return last.current() ? Optional.of(mapped) : Optional.empty();
+    }
+
+    @Scheduled(initialDelayString = "${attendance.snapshot.interval:PT5M}", fixedDelayString = "${attendance.snapshot.interval:PT5M}")
+    public void writePeriodically() {
+        if (enabled) {
+            writeIfStale();
+        }
+    }
+
+    // Writes a new snapshot unless the mapped one is still current; false when there was nothing to do
+    public boolean writeIfStale() {
+        synchronized (writeLock) {
+            try {
+                // Versions and rows are read on the primary in one transaction. The versions come first,
+                // so rows written meanwhile can only make the stamp look older than the data.
+                RosterSnapshot written = new TransactionTemplate(transactionManager).execute(status -> {
+                    RosterSnapshot.Stamp stamp = stamp(tableVersions.durableVersions());
+                    RosterSnapshot mapped = snapshot;
+                    if (mapped != null && mapped.stamp().equals(stamp)) {
+                        return null;
+                    }
+                    RosterSnapshot.Writer writer = new RosterSnapshot.Writer(stamp);
+                    query(USERS, rs -> writer.user(rs.getLong("id"), rs.getString("username"),
+                            rs.getString("role") == null ? null : User.Role.valueOf(rs.getString("role"))));
+                    query(COURSES, rs -> writer.course(rs.getLong("id"), rs.getString("name"),
+                            rs.getObject("teacher_id", Long.class)));
+                    query(ENROLLMENTS, rs -> writer.enrollment(rs.getLong("course_id"), rs.getLong("student_id")));
+                    try {
+                        Path partial = directory.resolve(PARTIAL);
+                        writer.write(partial);
+                        return RosterSnapshot.map(Files.move(partial, directory.resolve(FILE), StandardCopyOption.ATOMIC_MOVE));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not write the roster snapshot to " + directory, e);
+                    }
+                });
+                if (written == null) {
+                    return false;
+                }
+                snapshot = written;
+                return true;
+            } catch (RuntimeException e) {
+                log.warn("Could not refresh the roster snapshot", e);
+                return false;
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        RosterSnapshot mapped = snapshot;
+        Check last = check;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("mapped", mapped != null);
+        if (mapped != null) {
+            stats.put("stamp", mapped.stamp());
+            stats.put("users", mapped.userCount());
+            stats.put("courses", mapped.courseCount());
+            stats.put("enrollments", mapped.enrollmentCount());
+            stats.put("bytes", mapped.bytes());
+            stats.put("current", last != null && last.snapshot() == mapped && last.current());
+        }
+        return stats;
+    }
+
+    // One query for three rows. A replica that has not caught up with the snapshot yet cannot tell
+    // whether it is current; that read goes to the database and the snapshot is kept.
+    private synchronized Check validate(RosterSnapshot mapped) {
+        long users = tableVersions.version(Table.USERS);
+        long courses = tableVersions.version(Table.COURSES);
+        long enrollments = tableVersions.version(Table.ENROLLMENTS);
+        RosterSnapshot.Stamp stamp = stamp(tableVersions.durableVersions());
+        RosterSnapshot.Stamp built = mapped.stamp();
+        boolean current = stamp.equals(built);
+        boolean behind = stamp.users() < built.users() || stamp.courses() < built.courses()
+                || stamp.enrollments() < built.enrollments();
+        Check result = new Check(mapped, current, System.nanoTime(), users, courses, enrollments);
+        if (!current && !behind && snapshot == mapped) {
+            snapshot = null;
+            log.info("The roster snapshot of {} is stale, reading from the database until it is rewritten", mapped.stamp());
+        }
+        check = result;
+        return result;
+    }
+
+    private void query(String sql, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement(sql);
+            statement.setFetchSize(1000);
+            return statement;
+        }, handler);
+    }
+
+    private static RosterSnapshot.Stamp stamp(Map<Table, Long> versions) {
+        return new RosterSnapshot.Stamp(versions.getOrDefault(Table.USERS, 0L), versions.getOrDefault(Table.COURSES, 0L),
+                versions.getOrDefault(Table.ENROLLMENTS, 0L));
+    }
+}
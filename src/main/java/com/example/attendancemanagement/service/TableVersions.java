@@ -0,0 +1,109 @@
+package com.example.attendancemanagement.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Version per table, bumped by every write path that changes the table, in the writing transaction.
+// The durable versions in the table_version table are shared by all instances: polled endpoints
+// derive their ETag from them, so an unchanged payload is answered with 304 after one small query
+// and a write on any instance changes it. The in-process versions only count this instance's
+// writes; they tell the roster snapshot when to look at the durable ones before it is due.
+// Attendance is counted in several rows (stripes) so concurrent markings do not queue on one.
+@Service
+public class TableVersions {
+
+    public enum Table {
+        USERS(1), COURSES(1), ENROLLMENTS(1), ATTENDANCE(8);
+
+        private final int stripes;
+
+        Table(int stripes) {
+            this.stripes = stripes;
+        }
+
+        // Name of the table_version row to bump
+        String row() {
+            return stripes == 1 ? name() : name() + STRIPE + ThreadLocalRandom.current().nextInt(stripes);
+        }
+    }
+
+    private static final String STRIPE = "#";
+
+    private static final String BUMP_DURABLE = "update table_version set version = version + 1 where name = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<Table, AtomicLong> versions = new EnumMap<>(Table.class);
+
+    public TableVersions() {
+        for (Table table : Table.values()) {
+            versions.put(table, new AtomicLong());
+        }
+    }
+
+    public long version(Table table) {
+        return versions.get(table).get();
+    }
+
+    // Committed durable versions, as seen by the data source this thread is routed to
+    public Map<Table, Long> durableVersions() {
+        Map<Table, Long> durable = new EnumMap<>(Table.class);
+        jdbcTemplate.query("select name, version from table_version", rs -> {
+            String name = rs.getString("name");
+            int stripe = name.indexOf(STRIPE);
+            durable.merge(Table.valueOf(stripe < 0 ? name : name.substring(0, stripe)), rs.getLong("version"), Long::sum);
+        });
+        return durable;
+    }
+
+    // Bumps the durable versions in the current transaction, which has to be the one that writes the
+    // tables: bumped after it, a crash in between would leave data derived from the old rows looking
+    // current for good. The in-process versions follow once the transaction has committed; bumped
+    // before, the roster snapshot could be checked against the old rows and kept.
+    public void bump(Table... tables) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(Arrays.toString(tables) + " must be bumped in the transaction that writes them");
+        }
+        for (Table table : tables) {
+            jdbcTemplate.update(BUMP_DURABLE, table.row());
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(tables);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(tables);
+            }
+        });
+    }
+
+    // Strong ETag over the durable versions of the given tables; read it before querying so a
+    // concurrent write can only make it older
+    public String etag(Table... tables) {
+        Map<Table, Long> durable = durableVersions();
+        StringJoiner etag = new StringJoiner("-", "\"", "\"");
+        for (Table table : tables) {
+            etag.add(Long.toString(durable.getOrDefault(table, 0L)));
+        }
+        return etag.toString();
+    }
+
+    private void apply(Table... tables) {
+        for (Table table : tables) {
+            versions.get(table).incrementAndGet();
+        }
+    }
+}
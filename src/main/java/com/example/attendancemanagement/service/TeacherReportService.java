@@ -0,0 +1,150 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.dto.CourseAttendanceRow;
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.entity.Course;
+import com.example.attendancemanagement.repository.AttendanceHistoryRepository;
+import com.example.attendancemanagement.repository.CourseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.BiFunction;
+
+// Loads the teacher reports on a dedicated bounded pool: one task per course loads and groups
+// that course's rows, and the per-course results are merged by the caller.
+// The pool is owned here rather than exposed as an Executor bean, which would replace the
+// MVC async executor Spring Boot configures.
+@Service
+public class TeacherReportService {
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private AttendanceHistoryRepository attendanceHistoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<TaskDecorator> taskDecorator;
+
+    @Value("${attendance.reports.threads:8}")
+    private int threads;
+
+    @Value("${attendance.reports.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${attendance.reports.timeout:PT30S}")
+    private Duration timeout;
+
+    private ThreadPoolTaskExecutor executor;
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("teacher-report-");
+        // A full queue fails the report right away instead of running it on the request thread
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(taskDecorator.getIfUnique());
+        executor.initialize();
+
+        // Statements of a report task are cut off by the same deadline as the response
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.setTimeout((int) Math.max(1, timeout.toSeconds()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+    public CompletableFuture<List<Course>> courses(Long teacherId, Cancellation cancellation) {
+        return cancellation.track(submit(() -> {
+            cancellation.throwIfCancelled();
+            return readOnly.execute(status -> courseRepository.findAllByTeacherId(teacherId));
+        }));
+    }
+
+    // Loads every course in parallel, with the filter's dates and status applied in the query, and
+    // hands its rows to the grouping function on the same task. Results come back in the order of the courses.
+    public <T> CompletableFuture<List<T>> forEachCourse(List<Course> courses, ListFilter filter, Cancellation cancellation,
+                                                        BiFunction<Course, List<CourseAttendanceRow>, T> grouping) {
+        List<CompletableFuture<T>> tasks = new ArrayList<>(courses.size());
+        for (Course course : courses) {
+            tasks.add(cancellation.track(submit(() -> {
+                cancellation.throwIfCancelled();
+                List<CourseAttendanceRow> rows = readOnly.execute(status -> attendanceHistoryRepository.findCourseAttendanceRows(
+                        course.getId(), filter.from(), filter.to(), filter.normalizedStatus()));
+                cancellation.throwIfCancelled();
+                return grouping.apply(course, rows);
+            })));
+        }
+        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                .thenApply(done -> tasks.stream().map(CompletableFuture::join).toList());
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        try {
+            return executor.submitCompletable(task);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Shared by the tasks of one report. Once cancelled (timeout, error or client gone) queued tasks
+    // skip their queries and running ones stop before grouping.
+    public static final class Cancellation {
+        private final List<CompletableFuture<?>> tasks = new CopyOnWriteArrayList<>();
+        private volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+            tasks.forEach(task -> task.cancel(false));
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private <T> CompletableFuture<T> track(CompletableFuture<T> task) {
+            tasks.add(task);
+            if (cancelled) {
+                task.cancel(false);
+            }
+            return task;
+        }
+
+        private void throwIfCancelled() {
+            if (cancelled) {
+                throw new CancellationException("Report cancelled");
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.attendancemanagement.snapshot;
+
+import com.example.attendancemanagement.dto.CourseSummary;
+import com.example.attendancemanagement.dto.EnrolledStudent;
+import com.example.attendancemanagement.dto.UserSummary;
+import com.example.attendancemanagement.entity.User;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Immutable file holding users, courses and course rosters as fixed-width sorted columns, read
+// straight out of a memory mapping: a lookup is a binary search over the mapped ids, so nothing is
+// decoded when the file is opened.
+//   header   magic, version, stamp (the durable table versions it was built at), user, course and
+//            enrollment counts, byte lengths of the user and of the course names
+//   longs    user ids (ascending), course ids (ascending), teacher ids (0 when none), then the
+//            student ids of every course's roster in enrollment order
+//   ints     offsets of the user names, of the course names and of the rosters (count + 1 each)
+//   bytes    user roles (0 when none, else ordinal + 1), whether each course has a name, then
+//            the user names and the course names in UTF-8
+public final class RosterSnapshot {
+
+    private static final int MAGIC = 0x52535452;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 3 * Long.BYTES + 5 * Integer.BYTES;
+
+    private static final User.Role[] ROLES = User.Role.values();
+
+    // The durable versions of users, courses and enrollments the snapshot was built at
+    public record Stamp(long users, long courses, long enrollments) {
+    }
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final Stamp stamp;
+    private final int users;
+    private final int courses;
+    private final int enrollments;
+
+    // Section offsets
+    private final int userIds;
+    private final int userNameOffsets;
+    private final int userRoles;
+    private final int courseIds;
+    private final int courseTeacherIds;
+    private final int courseNameOffsets;
+    private final int courseNamed;
+    private final int rosterOffsets;
+    private final int rosterStudentIds;
+    private final int userNames;
+    private final int courseNames;
+
+    private RosterSnapshot(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException(path + " is not a roster snapshot");
+        }
+        stamp = new Stamp(buffer.getLong(8), buffer.getLong(16), buffer.getLong(24));
+        users = buffer.getInt(32);
+        courses = buffer.getInt(36);
+        enrollments = buffer.getInt(40);
+        int userNameBytes = buffer.getInt(44);
+        int courseNameBytes = buffer.getInt(48);
+
+        long position = HEADER_BYTES;
+        userIds = (int) position;
+        position += (long) users * Long.BYTES;
+        courseIds = (int) position;
+        position += (long) courses * Long.BYTES;
+        courseTeacherIds = (int) position;
+        position += (long) courses * Long.BYTES;
+        rosterStudentIds = (int) position;
+        position += (long) enrollments * Long.BYTES;
+        userNameOffsets = (int) position;
+        position += (users + 1L) * Integer.BYTES;
+        courseNameOffsets = (int) position;
+        position += (courses + 1L) * Integer.BYTES;
+        rosterOffsets = (int) position;
+        position += (courses + 1L) * Integer.BYTES;
+        userRoles = (int) position;
+        position += users;
+        courseNamed = (int) position;
+        position += courses;
+        userNames = (int) position;
+        position += userNameBytes;
+        courseNames = (int) position;
+        position += courseNameBytes;
+        if (users < 0 || courses < 0 || enrollments < 0 || position != buffer.capacity()) {
+            throw new IOException(path + " was not written to the end");
+        }
+    }
+
+    public static RosterSnapshot map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to map");
+            }
+            // The mapping stays valid after the channel is closed
+            return new RosterSnapshot(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public Stamp stamp() {
+        return stamp;
+    }
+
+    public int userCount() {
+        return users;
+    }
+
+    public int courseCount() {
+        return courses;
+    }
+
+    public int enrollmentCount() {
+        return enrollments;
+    }
+
+    public long bytes() {
+        return buffer.capacity();
+    }
+
+    public Optional<UserSummary> user(long userId) {
+        int index = search(userIds, users, userId);
+        if (index < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new UserSummary(userId, userName(index), role(index)));
+    }
+
+    public Optional<CourseSummary> course(long courseId) {
+        int index = search(courseIds, courses, courseId);
+        return index < 0 ? Optional.empty() : Optional.of(course(index));
+    }
+
+    // Every course in id order
+    public List<CourseSummary> courses() {
+        List<CourseSummary> all = new ArrayList<>(courses);
+        for (int i = 0; i < courses; i++) {
+            all.add(course(i));
+        }
+        return all;
+    }
+
+    // Students of the course in enrollment order, as EnrollmentRepository.findEnrolledStudents
+    public List<EnrolledStudent> roster(long courseId) {
+        int index = search(courseIds, courses, courseId);
+        if (index < 0) {
+            return List.of();
+        }
+        int from = buffer.getInt(rosterOffsets + index * Integer.BYTES);
+        int to = buffer.getInt(rosterOffsets + (index + 1) * Integer.BYTES);
+        List<EnrolledStudent> roster = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            long studentId = buffer.getLong(rosterStudentIds + i * Long.BYTES);
+            int student = search(userIds, users, studentId);
+            roster.add(new EnrolledStudent(studentId, userName(student)));
+        }
+        return roster;
+    }
+
+    // The given students that are enrolled in the course, as EnrollmentRepository.findEnrolledStudentIds
+    public Set<Long> enrolled(long courseId, Collection<Long> studentIds) {
+        int index = search(courseIds, courses, courseId);
+        Set<Long> enrolled = new HashSet<>();
+        if (index < 0) {
+            return enrolled;
+        }
+        int from = buffer.getInt(rosterOffsets + index * Integer.BYTES);
+        int to = buffer.getInt(rosterOffsets + (index + 1) * Integer.BYTES);
+        for (int i = from; i < to; i++) {
+            long studentId = buffer.getLong(rosterStudentIds + i * Long.BYTES);
+            if (studentIds.contains(studentId)) {
+                enrolled.add(studentId);
+            }
+        }
+        return enrolled;
+    }
+
+    private CourseSummary course(int index) {
+        long teacherId = buffer.getLong(courseTeacherIds + index * Long.BYTES);
+        String name = buffer.get(courseNamed + index) == 0 ? null : string(courseNames, courseNameOffsets, index);
+        return new CourseSummary(buffer.getLong(courseIds + index * Long.BYTES), name, teacherId == 0 ? null : teacherId);
+    }
+
+    private String userName(int index) {
+        return string(userNames, userNameOffsets, index);
+    }
+
+    private User.Role role(int index) {
+        int role = buffer.get(userRoles + index);
+        return role == 0 ? null : ROLES[role - 1];
+    }
+
+    private String string(int bytesAt, int offsetsAt, int index) {
+        int from = buffer.getInt(offsetsAt + index * Integer.BYTES);
+        int to = buffer.getInt(offsetsAt + (index + 1) * Integer.BYTES);
+        byte[] bytes = new byte[to - from];
+        buffer.get(bytesAt + from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Index of the id in an ascending long column, or -1
+    private int search(int columnAt, int count, long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = buffer.getLong(columnAt + mid * Long.BYTES);
+            if (value < id) {
+                low = mid + 1;
+            } else if (value > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // Collects a snapshot in memory and writes it in one go. Users and courses have to come in id
+    // order, enrollments ordered by course and enrollment id; enrollments of unknown courses or
+    // students are left out, like the join of the roster query leaves them out.
+    public static final class Writer {
+
+        private final Stamp stamp;
+
+        private long[] userIds = new long[1024];
+        private byte[] userRoles = new byte[1024];
+        private final List<byte[]> userNames = new ArrayList<>();
+        private int users;
+
+        private long[] courseIds = new long[256];
+        private long[] courseTeacherIds = new long[256];
+        private final List<byte[]> courseNames = new ArrayList<>();
+        private int courses;
+
+        // Per course, the end of its roster in rosterStudentIds
+        private int[] rosterEnds = new int[256];
+        private long[] rosterStudentIds = new long[4096];
+        private int enrollments;
+        private int lastCourse = -1;
+
+        public Writer(Stamp stamp) {
+            this.stamp = stamp;
+        }
+
+        public void user(long id, String username, User.Role role) {
+            if (users > 0 && id <= userIds[users - 1]) {
+                throw new IllegalArgumentException("Users have to be added in id order: " + id);
+            }
+            if (users == userIds.length) {
+                userIds = Arrays.copyOf(userIds, users * 2);
+                userRoles = Arrays.copyOf(userRoles, users * 2);
+            }
+            userIds[users] = id;
+            userRoles[users] = (byte) (role == null ? 0 : role.ordinal() + 1);
+            userNames.add(username.getBytes(StandardCharsets.UTF_8));
+            users++;
+        }
+
+        public void course(long id, String name, Long teacherId) {
+            if (courses > 0 && id <= courseIds[courses - 1]) {
+                throw new IllegalArgumentException("Courses have to be added in id order: " + id);
+            }
+            if (enrollments > 0) {
+                throw new IllegalStateException("Courses have to be added before the enrollments");
+            }
+            if (courses == courseIds.length) {
+                courseIds = Arrays.copyOf(courseIds, courses * 2);
+                courseTeacherIds = Arrays.copyOf(courseTeacherIds, courses * 2);
+                rosterEnds = Arrays.copyOf(rosterEnds, courses * 2);
+            }
+            courseIds[courses] = id;
+            courseTeacherIds[courses] = teacherId == null ? 0 : teacherId;
+            courseNames.add(name == null ? null : name.getBytes(StandardCharsets.UTF_8));
+            courses++;
+        }
+
+        public void enrollment(long courseId, long studentId) {
+            int course = Arrays.binarySearch(courseIds, 0, courses, courseId);
+            if (course < 0 || Arrays.binarySearch(userIds, 0, users, studentId) < 0) {
+                return;
+            }
+            if (course < lastCourse) {
+                throw new IllegalArgumentException("Enrollments have to be added in course order: " + courseId);
+            }
+            if (enrollments == rosterStudentIds.length) {
+                rosterStudentIds = Arrays.copyOf(rosterStudentIds, enrollments * 2);
+            }
+            rosterStudentIds[enrollments++] = studentId;
+            lastCourse = course;
+            rosterEnds[course] = enrollments;
+        }
+
+        // Writes the file and syncs it; it can be mapped afterwards
+        public void write(Path path) throws IOException {
+            try (FileOutputStream file = new FileOutputStream(path.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(stamp.users());
+                out.writeLong(stamp.courses());
+                out.writeLong(stamp.enrollments());
+                out.writeInt(users);
+                out.writeInt(courses);
+                out.writeInt(enrollments);
+                out.writeInt(length(userNames));
+                out.writeInt(length(courseNames));
+
+                for (int i = 0; i < users; i++) {
+                    out.writeLong(userIds[i]);
+                }
+                for (int i = 0; i < courses; i++) {
+                    out.writeLong(courseIds[i]);
+                }
+                for (int i = 0; i < courses; i++) {
+                    out.writeLong(courseTeacherIds[i]);
+                }
+                for (int i = 0; i < enrollments; i++) {
+                    out.writeLong(rosterStudentIds[i]);
+                }
+                writeOffsets(out, userNames);
+                writeOffsets(out, courseNames);
+                // Courses without enrollments end where the course before them ended
+                int rosterEnd = 0;
+                out.writeInt(0);
+                for (int i = 0; i < courses; i++) {
+                    rosterEnd = Math.max(rosterEnd, rosterEnds[i]);
+                    out.writeInt(rosterEnd);
+                }
+                out.write(userRoles, 0, users);
+                for (byte[] name : courseNames) {
+                    out.writeByte(name == null ? 0 : 1);
+                }
+                for (byte[] name : userNames) {
+                    out.write(name);
+                }
+                for (byte[] name : courseNames) {
+                    if (name != null) {
+                        out.write(name);
+                    }
+                }
+                out.flush();
+                file.getFD().sync();
+            }
+        }
+
+        private static int length(List<byte[]> names) {
+            long length = 0;
+            for (byte[] name : names) {
+                length += name == null ? 0 : name.length;
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Names do not fit into a roster snapshot");
+            }
+            return (int) length;
+        }
+
+        private static void writeOffsets(DataOutputStream out, List<byte[]> names) throws IOException {
+            int offset = 0;
+            out.writeInt(0);
+            for (byte[] name : names) {
+                offset += name == null ? 0 : name.length;
+                out.writeInt(offset);
+            }
+        }
+    }
+}
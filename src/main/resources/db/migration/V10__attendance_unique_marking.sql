@@ -0,0 +1,42 @@
+-- One attendance row per student, course and date. Rows that a race between the marking check and
+-- its insert let in twice are dropped first, keeping the earliest, and taken off the counters and
+-- rollups they were added to.
+
+create table attendance_duplicate (
+    id bigint not null,
+    course_id bigint not null,
+    student_id bigint not null,
+    date date not null,
+    status varchar(255),
+    primary key (id)
+);
+
+insert into attendance_duplicate (id, course_id, student_id, date, status)
+select a.id, a.course_id, a.student_id, a.date, a.status
+from attendance a
+where exists (select 1 from attendance b
+              where b.course_id = a.course_id and b.student_id = a.student_id and b.date = a.date and b.id < a.id);
+
+update attendance_counter c set
+    conducted = conducted - (select count(*) from attendance_duplicate d
+                             where d.student_id = c.student_id and d.course_id = c.course_id),
+    present = present - (select count(*) from attendance_duplicate d
+                         where d.student_id = c.student_id and d.course_id = c.course_id and lower(d.status) = 'present'),
+    absent = absent - (select count(*) from attendance_duplicate d
+                       where d.student_id = c.student_id and d.course_id = c.course_id and lower(d.status) = 'absent')
+where exists (select 1 from attendance_duplicate d where d.student_id = c.student_id and d.course_id = c.course_id);
+
+update attendance_daily_rollup r set
+    marked = marked - (select count(*) from attendance_duplicate d
+                       where d.date = r.date and d.course_id = r.course_id),
+    present = present - (select count(*) from attendance_duplicate d
+                         where d.date = r.date and d.course_id = r.course_id and lower(d.status) = 'present'),
+    absent = absent - (select count(*) from attendance_duplicate d
+                       where d.date = r.date and d.course_id = r.course_id and lower(d.status) = 'absent')
+where exists (select 1 from attendance_duplicate d where d.date = r.date and d.course_id = r.course_id);
+
+delete from attendance where id in (select id from attendance_duplicate);
+
+drop table attendance_duplicate;
+
+alter table attendance add constraint uk_attendance_course_student_date unique (course_id, student_id, date);
@@ -0,0 +1,38 @@
+-- Schema as previously created by hibernate.ddl-auto=update.
+-- Databases that already have these tables are baselined at this version and skip it.
+
+create table user (
+    id bigint not null auto_increment,
+    password varchar(255) not null,
+    role enum ('Admin', 'Teacher', 'Student'),
+    username varchar(255) not null,
+    primary key (id),
+    constraint uk_user_username unique (username)
+);
+
+create table course (
+    id bigint not null auto_increment,
+    name varchar(255),
+    teacher_id bigint,
+    primary key (id)
+);
+
+create table enrollment (
+    id bigint not null auto_increment,
+    course_id bigint not null,
+    student_id bigint not null,
+    primary key (id),
+    constraint fk_enrollment_course foreign key (course_id) references course (id),
+    constraint fk_enrollment_student foreign key (student_id) references user (id) on delete cascade
+);
+
+create table attendance (
+    id bigint not null auto_increment,
+    date date,
+    status varchar(255),
+    course_id bigint,
+    student_id bigint,
+    primary key (id),
+    constraint fk_attendance_course foreign key (course_id) references course (id),
+    constraint fk_attendance_student foreign key (student_id) references user (id)
+);
@@ -0,0 +1,12 @@
+-- Per-(student, course) running totals. The table may already exist where ddl-auto created it.
+
+create table if not exists attendance_counter (
+    id bigint not null auto_increment,
+    student_id bigint not null,
+    course_id bigint not null,
+    conducted bigint not null,
+    present bigint not null,
+    absent bigint not null,
+    primary key (id),
+    constraint uk_attendance_counter_student_course unique (student_id, course_id)
+);
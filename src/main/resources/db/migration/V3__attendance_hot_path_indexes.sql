@@ -0,0 +1,10 @@
+-- Covering indexes for the marking and report queries.
+
+-- findByCourseIdAndStudentIdAndDate, findMarkedStudentIds, findAllByCourseIdIn, findByCourseId
+create index idx_attendance_course_date_student_status on attendance (course_id, date, student_id, status);
+
+-- findByStudentId and the per-student reports
+create index idx_attendance_student_course on attendance (student_id, course_id);
+
+-- findByStudent_IdAndCourse_Id, findAllByCourseId, findEnrolledStudentIds
+create index idx_enrollment_course_student on enrollment (course_id, student_id);
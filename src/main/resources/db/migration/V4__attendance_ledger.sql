@@ -0,0 +1,12 @@
+-- Daily statuses per (student, course, half-year term), packed as 2-bit codes (see StatusLedger).
+-- Existing attendance is copied in by AttendanceLedgerService on first start.
+
+create table attendance_ledger (
+    id bigint not null auto_increment,
+    student_id bigint not null,
+    course_id bigint not null,
+    term_start date not null,
+    statuses varbinary(48) not null,
+    primary key (id),
+    constraint uk_attendance_ledger_student_course_term unique (student_id, course_id, term_start)
+);
@@ -0,0 +1,10 @@
+-- Single row the primary stamps every few seconds. Reading it back from a read replica tells how
+-- far behind the replica is (see ReplicaMonitor).
+
+create table replication_heartbeat (
+    id int not null,
+    beat_at bigint not null,
+    primary key (id)
+);
+
+insert into replication_heartbeat (id, beat_at) values (1, 0);
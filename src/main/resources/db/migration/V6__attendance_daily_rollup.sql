@@ -0,0 +1,24 @@
+-- Per-(date, course) attendance totals, kept up to date by the marking path and repaired by the
+-- periodic reconciliation in AttendanceRollupService. Existing attendance is copied in here.
+
+create table attendance_daily_rollup (
+    id bigint not null auto_increment,
+    date date not null,
+    course_id bigint not null,
+    present bigint not null,
+    absent bigint not null,
+    marked bigint not null,
+    primary key (id),
+    constraint uk_attendance_daily_rollup_date_course unique (date, course_id)
+);
+
+create index idx_attendance_daily_rollup_course_date on attendance_daily_rollup (course_id, date);
+
+insert into attendance_daily_rollup (date, course_id, present, absent, marked)
+select date, course_id,
+       sum(case when lower(status) = 'present' then 1 else 0 end),
+       sum(case when lower(status) = 'absent' then 1 else 0 end),
+       count(*)
+from attendance
+where date is not null and course_id is not null
+group by date, course_id;
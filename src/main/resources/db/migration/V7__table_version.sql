@@ -0,0 +1,11 @@
+-- Durable write counters of the tables the roster snapshot is built from. Every write path bumps
+-- its tables here in the same transaction (see TableVersions); a snapshot stamped with older
+-- versions than these is stale.
+
+create table table_version (
+    name varchar(32) not null,
+    version bigint not null,
+    primary key (name)
+);
+
+insert into table_version (name, version) values ('USERS', 0), ('COURSES', 0), ('ENROLLMENTS', 0);
@@ -0,0 +1,11 @@
+-- Catalog of the archived attendance terms. The segment files live on each instance's disk, but the
+-- rows are deleted from the shared attendance table, so every instance reads the archive boundary
+-- from here and refuses reads of a catalogued term whose segment it does not have (see AttendanceArchive).
+
+create table attendance_archive_segment (
+    term_start date not null,
+    term_end date not null,
+    max_id bigint not null,
+    row_count bigint not null,
+    primary key (term_start)
+);
@@ -0,0 +1,7 @@
+-- Durable write counter of the attendance table, so ETags over it hold across instances. Marking
+-- bumps it in every transaction, so it is spread over eight rows that are bumped at random and
+-- summed when read (see TableVersions); one row would make every marking wait for the last one.
+
+insert into table_version (name, version) values
+    ('ATTENDANCE#0', 0), ('ATTENDANCE#1', 0), ('ATTENDANCE#2', 0), ('ATTENDANCE#3', 0),
+    ('ATTENDANCE#4', 0), ('ATTENDANCE#5', 0), ('ATTENDANCE#6', 0), ('ATTENDANCE#7', 0);
@@ -1,9 +1,10 @@
 package com.example;
 
+import com.example.attendancemanagement.AttendanceApplication;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(classes = AttendanceApplication.class)
 class AttendanceApplicationTests {
 
 	@Test
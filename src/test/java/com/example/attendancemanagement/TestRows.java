@@ -0,0 +1,53 @@
+package com.example.attendancemanagement;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+// Inserts test rows straight into the tables, behind the services' backs, and returns their ids
+public final class TestRows {
+
+    private TestRows() {
+    }
+
+    public static long user(JdbcTemplate jdbcTemplate, String username, String role) {
+        return insert(jdbcTemplate, "insert into user (username, password, role) values (?, 'password', ?)", username, role);
+    }
+
+    public static long course(JdbcTemplate jdbcTemplate, String name) {
+        return course(jdbcTemplate, name, null);
+    }
+
+    public static long course(JdbcTemplate jdbcTemplate, String name, Long teacherId) {
+        return insert(jdbcTemplate, "insert into course (name, teacher_id) values (?, ?)", name, teacherId);
+    }
+
+    // Does nothing when the student is already enrolled
+    public static void enroll(JdbcTemplate jdbcTemplate, long studentId, long courseId) {
+        jdbcTemplate.update("insert into enrollment (student_id, course_id) select ?, ? from dual " +
+                "where not exists (select 1 from enrollment where student_id = ? and course_id = ?)",
+                studentId, courseId, studentId, courseId);
+    }
+
+    public static long attendance(JdbcTemplate jdbcTemplate, long courseId, Long studentId, LocalDate date, String status) {
+        return insert(jdbcTemplate, "insert into attendance (course_id, student_id, date, status) values (?, ?, ?, ?)",
+                courseId, studentId, Date.valueOf(date), status);
+    }
+
+    private static long insert(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement statement = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+}
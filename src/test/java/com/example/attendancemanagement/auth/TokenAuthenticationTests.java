@@ -0,0 +1,90 @@
+package com.example.attendancemanagement.auth;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.enroll;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+@AutoConfigureMockMvc
+class TokenAuthenticationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void verifiesSignatureRoleAndOwnerWithoutLookingUpTheUser() throws Exception {
+        long studentId = user(jdbcTemplate, "token-student", "Student");
+        String token = tokenService.issue(studentId, User.Role.Student);
+
+        mockMvc.perform(get("/api/student/attendance/" + studentId)).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/student/attendance/" + studentId).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/student/attendance/" + (studentId + 1)).header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/users").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+
+        // Swapping the payload for another user's keeps the old signature, which no longer matches
+        String forged = tokenService.issue(studentId + 1, User.Role.Student).split("\\.")[0] + "." + token.split("\\.")[1];
+        assertThat(tokenService.verify(forged)).isEmpty();
+        mockMvc.perform(get("/api/student/attendance/" + (studentId + 1)).header("Authorization", "Bearer " + forged))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void revokedTokensAreRefusedButLaterLoginsAreNot() throws Exception {
+        String token = tokenService.issue(900L, User.Role.Teacher);
+        assertThat(tokenService.verify(token)).map(AuthenticatedUser::id).contains(900L);
+
+        tokenService.revoke(900L);
+        Thread.sleep(2);
+
+        assertThat(tokenService.verify(token)).isEmpty();
+        assertThat(tokenService.verify(tokenService.issue(900L, User.Role.Teacher))).isPresent();
+        assertThat(tokenService.verify("not-a-token")).isEmpty();
+    }
+
+    @Test
+    void aTeacherTakenOffACourseLosesItAtOnce() throws Exception {
+        long teacherId = user(jdbcTemplate, "owner-teacher", "Teacher");
+        long otherTeacherId = user(jdbcTemplate, "owner-successor", "Teacher");
+        long studentId = user(jdbcTemplate, "owner-student", "Student");
+        long courseId = course(jdbcTemplate, "owner-course", teacherId);
+        enroll(jdbcTemplate, studentId, courseId);
+        String token = "Bearer " + tokenService.issue(teacherId, User.Role.Teacher);
+        mockMvc.perform(get("/api/teacher/courses/" + courseId + "/students").header("Authorization", token))
+                .andExpect(status().isOk());
+
+        // Reassigned on another instance: nothing on this one was evicted
+        jdbcTemplate.update("update course set teacher_id = ? where id = ?", otherTeacherId, courseId);
+
+        mockMvc.perform(get("/api/teacher/courses/" + courseId + "/students").header("Authorization", token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/teacher/courses/" + courseId + "/attendanceTotals").header("Authorization", token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/teacher/markAttendance").header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"courseId\": " + courseId + ", \"studentId\": " + studentId + ", \"status\": \"Present\"}]"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.attendancemanagement.controller;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.entity.User;
+import com.example.attendancemanagement.service.AttendanceMarkingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.enroll;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+@AutoConfigureMockMvc
+class AttendanceFeedTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private AttendanceMarkingService attendanceMarkingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void committedMarkingIsPushedToTheCourseFeed() throws Exception {
+        long teacherId = user(jdbcTemplate, "feed-teacher", "Teacher");
+        long otherTeacherId = user(jdbcTemplate, "feed-other-teacher", "Teacher");
+        long studentId = user(jdbcTemplate, "feed-student", "Student");
+        long courseId = course(jdbcTemplate, "feed-course", teacherId);
+        enroll(jdbcTemplate, studentId, courseId);
+
+        mockMvc.perform(get("/api/teacher/courses/" + courseId + "/attendanceFeed")
+                        .header("Authorization", "Bearer " + tokenService.issue(otherTeacherId, User.Role.Teacher)))
+                .andExpect(status().isForbidden());
+        MvcResult feed = mockMvc.perform(get("/api/teacher/courses/" + courseId + "/attendanceFeed")
+                        .header("Authorization", "Bearer " + tokenService.issue(teacherId, User.Role.Teacher)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        attendanceMarkingService.markToday(teacherId,
+                List.of(Map.of("courseId", courseId, "studentId", studentId, "status", "Present")));
+
+        String body = "";
+        long deadline = System.currentTimeMillis() + 10_000;
+        // An event is complete once the blank line after its data has been written
+        while (!body.matches("(?s).*event:attendance\\ndata:.*\\n\\n") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = feed.getResponse().getContentAsString();
+        }
+        assertThat(body).contains("event:attendance")
+                .contains("\"studentId\":" + studentId + ",\"status\":\"Present\"")
+                .contains("\"present\":1,\"absent\":0,\"marked\":1");
+    }
+
+    // What a browser EventSource does: no Authorization header, a feed token in the URL
+    @Test
+    void feedsOpenWithAFeedTokenInTheQuery() throws Exception {
+        long teacherId = user(jdbcTemplate, "feed-token-teacher", "Teacher");
+        long courseId = course(jdbcTemplate, "feed-token-course", teacherId);
+        String sessionToken = tokenService.issue(teacherId, User.Role.Teacher);
+
+        String body = mockMvc.perform(get("/api/teacher/attendanceFeed/token").header("Authorization", "Bearer " + sessionToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andReturn().getResponse().getContentAsString();
+        String feedToken = body.replaceAll("(?s).*\"feedToken\":\"([^\"]+)\".*", "$1");
+
+        mockMvc.perform(get("/api/teacher/courses/" + courseId + "/attendanceFeed").param("feedToken", feedToken))
+                .andExpect(request().asyncStarted());
+        // Feed tokens open nothing else, and session tokens do not go in URLs
+        mockMvc.perform(get("/api/teacher/courses/" + courseId + "/students").param("feedToken", feedToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/teacher/courses/" + courseId + "/students").header("Authorization", "Bearer " + feedToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/teacher/courses/" + courseId + "/attendanceFeed").param("feedToken", sessionToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/admin/attendanceFeed").param("feedToken", feedToken))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.attendancemanagement.controller;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+@AutoConfigureMockMvc
+class ConditionalGetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void answersUnchangedPollsWithOnlyTheVersionReadUntilACourseIsWritten() throws Exception {
+        long teacherId = user(jdbcTemplate, "etag-teacher", "Teacher");
+        course(jdbcTemplate, "etag-course", teacherId);
+        String teacher = "Bearer " + tokenService.issue(teacherId, User.Role.Teacher);
+        String admin = "Bearer " + tokenService.issue(1L, User.Role.Admin);
+
+        String etag = mockMvc.perform(get("/api/teacher/courses/" + teacherId).header("Authorization", teacher))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).isNotBlank();
+
+        double statements = statements();
+        mockMvc.perform(get("/api/teacher/courses/" + teacherId).header("Authorization", teacher).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        assertThat(statements()).isEqualTo(statements + 1);
+
+        mockMvc.perform(post("/api/admin/courses").header("Authorization", admin)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"etag-course-2\", \"teacherName\": \"etag-teacher\"}"))
+                .andExpect(status().isCreated());
+        String changed = mockMvc.perform(get("/api/teacher/courses/" + teacherId).header("Authorization", teacher).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(changed).isNotEqualTo(etag);
+
+        // A write on another instance bumps the same durable version
+        jdbcTemplate.update("update table_version set version = version + 1 where name = 'COURSES'");
+        mockMvc.perform(get("/api/teacher/courses/" + teacherId).header("Authorization", teacher).header("If-None-Match", changed))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(changed)));
+    }
+
+    private double statements() {
+        return registry.get("attendance.handler.sql.statements").tag("handler", "TeacherController.listCoursesWithIds")
+                .summary().totalAmount();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.attendancemanagement.execution;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitingDataSourceTests {
+
+    private final DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter(1, Duration.ofMillis(50));
+
+    private final ConcurrencyLimitingDataSource dataSource = new ConcurrencyLimitingDataSource(h2(), limiter);
+
+    @Test
+    void waitsForAPermitAndGivesUpAfterTheTimeout() throws Exception {
+        try (Connection first = dataSource.getConnection()) {
+            assertThat(limiter.available()).isZero();
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        }
+        assertThat(limiter.available()).isEqualTo(1);
+
+        try (Connection second = dataSource.getConnection()) {
+            assertThat(second.isValid(1)).isTrue();
+        }
+    }
+
+    @Test
+    void closingTwiceReleasesOnePermit() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertThat(limiter.available()).isEqualTo(1);
+    }
+
+    private static JdbcDataSource h2() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:limiter");
+        return h2;
+    }
+}
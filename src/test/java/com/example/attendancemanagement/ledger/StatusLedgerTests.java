@@ -0,0 +1,99 @@
+package com.example.attendancemanagement.ledger;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatusLedgerTests {
+
+    @Test
+    void encodeAndDecodeRoundTrip() {
+        StatusLedger ledger = new StatusLedger();
+        ledger.set(0, AttendanceStatus.PRESENT);
+        ledger.set(31, AttendanceStatus.ABSENT);
+        ledger.set(32, AttendanceStatus.OTHER);
+        ledger.set(AttendanceTerm.MAX_DAYS - 1, AttendanceStatus.PRESENT);
+
+        byte[] encoded = ledger.encode();
+        StatusLedger decoded = StatusLedger.decode(encoded);
+
+        assertThat(encoded).hasSize(StatusLedger.ENCODED_BYTES);
+        assertThat(decoded).isEqualTo(ledger);
+        assertThat(decoded.get(0)).isEqualTo(AttendanceStatus.PRESENT);
+        assertThat(decoded.get(1)).isEqualTo(AttendanceStatus.NOT_MARKED);
+        assertThat(decoded.get(31)).isEqualTo(AttendanceStatus.ABSENT);
+        assertThat(decoded.get(32)).isEqualTo(AttendanceStatus.OTHER);
+        assertThat(decoded.get(AttendanceTerm.MAX_DAYS - 1)).isEqualTo(AttendanceStatus.PRESENT);
+    }
+
+    @Test
+    void overwritingADayReplacesItsCode() {
+        StatusLedger ledger = new StatusLedger();
+        ledger.set(5, AttendanceStatus.OTHER);
+        ledger.set(5, AttendanceStatus.ABSENT);
+
+        assertThat(ledger.get(5)).isEqualTo(AttendanceStatus.ABSENT);
+        assertThat(ledger.conducted()).isEqualTo(1);
+    }
+
+    @Test
+    void countsStatusesWithBitCounts() {
+        StatusLedger ledger = new StatusLedger();
+        for (int day = 0; day < 100; day += 2) {
+            ledger.set(day, day % 10 == 0 ? AttendanceStatus.ABSENT : AttendanceStatus.PRESENT);
+        }
+        ledger.set(101, AttendanceStatus.OTHER);
+
+        assertThat(ledger.conducted()).isEqualTo(51);
+        assertThat(ledger.count(AttendanceStatus.ABSENT)).isEqualTo(10);
+        assertThat(ledger.count(AttendanceStatus.PRESENT)).isEqualTo(40);
+        assertThat(ledger.count(AttendanceStatus.OTHER)).isEqualTo(1);
+        assertThat(ledger.count(AttendanceStatus.NOT_MARKED)).isEqualTo(AttendanceTerm.MAX_DAYS - 51);
+    }
+
+    @Test
+    void presentRunsSkipDaysWithoutAttendanceAndSpanTerms() {
+        StatusLedger first = new StatusLedger();
+        // Present on days 0..39 every other day (20 lectures), absent on 41, present on 50 and 180
+        for (int day = 0; day < 40; day += 2) {
+            first.set(day, AttendanceStatus.PRESENT);
+        }
+        first.set(41, AttendanceStatus.ABSENT);
+        first.set(50, AttendanceStatus.PRESENT);
+        first.set(180, AttendanceStatus.PRESENT);
+
+        StatusLedger.PresentRuns firstRuns = first.presentRuns(0);
+        assertThat(firstRuns.longest()).isEqualTo(20);
+        assertThat(firstRuns.trailing()).isEqualTo(2);
+
+        StatusLedger second = new StatusLedger();
+        second.set(3, AttendanceStatus.PRESENT);
+        second.set(70, AttendanceStatus.PRESENT);
+        StatusLedger.PresentRuns secondRuns = second.presentRuns(firstRuns.trailing());
+        assertThat(secondRuns.trailing()).isEqualTo(4);
+        assertThat(secondRuns.longest()).isEqualTo(4);
+    }
+
+    @Test
+    void termsAreHalfYears() {
+        AttendanceTerm spring = AttendanceTerm.of(LocalDate.of(2024, 6, 30));
+        AttendanceTerm autumn = AttendanceTerm.of(LocalDate.of(2024, 12, 31));
+
+        assertThat(spring.start()).isEqualTo(LocalDate.of(2024, 1, 1));
+        assertThat(spring.dayIndex(LocalDate.of(2024, 6, 30))).isEqualTo(181);
+        assertThat(autumn.start()).isEqualTo(LocalDate.of(2024, 7, 1));
+        assertThat(autumn.dayIndex(LocalDate.of(2024, 12, 31))).isEqualTo(AttendanceTerm.MAX_DAYS - 1);
+        assertThatThrownBy(() -> spring.dayIndex(LocalDate.of(2024, 7, 1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void labelsMapToStatusesCaseInsensitively() {
+        assertThat(AttendanceStatus.fromLabel("present")).isEqualTo(AttendanceStatus.PRESENT);
+        assertThat(AttendanceStatus.fromLabel("ABSENT ")).isEqualTo(AttendanceStatus.ABSENT);
+        assertThat(AttendanceStatus.fromLabel("Late")).isEqualTo(AttendanceStatus.OTHER);
+        assertThat(AttendanceStatus.fromLabel(null)).isEqualTo(AttendanceStatus.NOT_MARKED);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.attendancemanagement.monitoring;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = AttendanceApplication.class, properties = "attendance.monitoring.repeated-statement-threshold=2")
+@AutoConfigureMockMvc
+class HandlerMetricsInterceptorTests {
+
+    private static final String HANDLER = "AdminController.viewCourses";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Test
+    void recordsStatementsRowsAndRepeatedTeacherLookups() throws Exception {
+        // Three courses with three different teachers: listing them looks up each teacher by id
+        for (int i = 0; i < 3; i++) {
+            long teacherId = user(jdbcTemplate, "metrics-teacher-" + i, "Teacher");
+            course(jdbcTemplate, "metrics-course-" + i, teacherId);
+        }
+
+        mockMvc.perform(get("/api/admin/courses").header("Authorization", "Bearer " + tokenService.issue(1L, User.Role.Admin)))
+                .andExpect(status().isOk());
+
+        DistributionSummary statements = registry.get("attendance.handler.sql.statements").tag("handler", HANDLER).summary();
+        DistributionSummary rows = registry.get("attendance.handler.sql.rows").tag("handler", HANDLER).summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(4);
+        assertThat(rows.totalAmount()).isGreaterThanOrEqualTo(6);
+        assertThat(registry.get("attendance.handler.latency").tag("handler", HANDLER).timer().count()).isEqualTo(1);
+
+        Counter repeated = registry.get("attendance.handler.sql.repeated").tag("handler", HANDLER).counter();
+        assertThat(repeated.count()).isEqualTo(1);
+    }
+
+    @Test
+    void foldsLiteralsAndParameterListsIntoOneShape() {
+        assertThat(RequestSqlStats.shape("select * from user where id in (?, ?, ?)"))
+                .isEqualTo(RequestSqlStats.shape("select *  from user\nwhere id in (?)"));
+        assertThat(RequestSqlStats.shape("select * from course where name = 'Math' and teacher_id = 12"))
+                .isEqualTo("select * from course where name = ? and teacher_id = ?");
+    }
+}
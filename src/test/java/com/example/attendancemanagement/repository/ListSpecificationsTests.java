@@ -0,0 +1,81 @@
+package com.example.attendancemanagement.repository;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.dto.CourseAttendanceRow;
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.entity.Attendance;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.attendancemanagement.TestRows.attendance;
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+class ListSpecificationsTests {
+
+    private static final LocalDate DATE = LocalDate.of(2023, 3, 1);
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pagesThroughFilteredAttendanceWithTokens() {
+        long studentId = user(jdbcTemplate, "list-filter-student", "Student");
+        long courseId = course(jdbcTemplate, "list-filter-course");
+        long otherCourseId = course(jdbcTemplate, "list-filter-other");
+        List<Long> expected = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            long id = attendance(jdbcTemplate, courseId, studentId, DATE.plusDays(day), day % 3 == 0 ? "Absent" : "Present");
+            if (day >= 2 && day <= 8 && day % 3 != 0) {
+                expected.add(id);
+            }
+            attendance(jdbcTemplate, otherCourseId, studentId, DATE.plusDays(day), "Present");
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            ListFilter filter = new ListFilter(DATE.plusDays(2), DATE.plusDays(8), courseId, "PRESENT", null, 2, token);
+            List<Attendance> rows = ListSpecifications.page(attendanceRepository,
+                    ListSpecifications.attendanceOfStudent(studentId, filter), filter, "course", "student");
+            List<Attendance> page = rows.subList(0, Math.min(rows.size(), filter.pageSize()));
+            page.forEach(row -> seen.add(row.getId()));
+            // Read outside any transaction, so this only works if the fetch plan loaded the associations
+            assertThat(page).allSatisfy(row -> {
+                assertThat(row.getCourse().getName()).isEqualTo("list-filter-course");
+                assertThat(row.getStudent().getUsername()).isEqualTo("list-filter-student");
+            });
+            token = rows.size() > filter.pageSize() ? ListFilter.pageToken(page.get(page.size() - 1).getId()) : null;
+            pages++;
+        } while (token != null);
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void reportRowsSkipFiltersThatAreNotGiven() {
+        long studentId = user(jdbcTemplate, "list-filter-report", "Student");
+        long courseId = course(jdbcTemplate, "list-filter-report");
+        attendance(jdbcTemplate, courseId, studentId, DATE, "Present");
+        attendance(jdbcTemplate, courseId, studentId, DATE.plusDays(1), "Absent");
+
+        assertThat(attendanceRepository.findCourseAttendanceRows(courseId, null, null, null)).hasSize(2);
+        assertThat(attendanceRepository.findCourseAttendanceRows(courseId, DATE.plusDays(1), null, null))
+                .extracting(CourseAttendanceRow::status).containsExactly("Absent");
+        assertThat(attendanceRepository.findCourseAttendanceRows(courseId, null, null, "present"))
+                .extracting(CourseAttendanceRow::date).containsExactly(DATE);
+    }
+}
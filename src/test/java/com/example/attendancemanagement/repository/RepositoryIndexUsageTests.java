@@ -0,0 +1,135 @@
+package com.example.attendancemanagement.repository;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs EXPLAIN on the SQL behind each hot repository query and checks that the migration indexes are used
+@SpringBootTest(classes = AttendanceApplication.class, properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.attendancemanagement.repository.RecordingStatementInspector")
+class RepositoryIndexUsageTests {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 15);
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private AttendanceCounterRepository attendanceCounterRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearStatements() {
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void findByCourseIdAndStudentIdAndDateUsesCourseDateIndex() {
+        attendanceRepository.findByCourseIdAndStudentIdAndDate(1L, 2L, DATE);
+        assertUsesIndex("attendance", "idx_attendance_course_date_student_status", 1L, 2L, DATE);
+    }
+
+    @Test
+    void findMarkedStudentIdsUsesCourseDateIndex() {
+        attendanceRepository.findMarkedStudentIds(1L, DATE, List.of(2L, 3L));
+        // The unique (course, student, date) index answers the same equalities, so the planner may pick either
+        assertUsesIndex("attendance", List.of("idx_attendance_course_date_student_status", "uk_attendance_course_student_date"),
+                1L, DATE, 2L, 3L);
+    }
+
+    @Test
+    void findAllByCourseIdInUsesCourseDateIndex() {
+        attendanceRepository.findAllByCourseIdIn(List.of(1L, 2L));
+        assertUsesIndex("attendance", "idx_attendance_course_date_student_status", 1L, 2L);
+    }
+
+    @Test
+    void findCourseAttendanceRowsUsesCourseDateIndex() {
+        attendanceRepository.findCourseAttendanceRows(1L, DATE, DATE, "present");
+        assertUsesIndex("attendance", "idx_attendance_course_date_student_status", DATE, DATE, 1L, "present");
+    }
+
+    @Test
+    void findByStudentIdUsesStudentCourseIndex() {
+        attendanceRepository.findByStudentId(2L);
+        // The foreign key index has the same leading column, so the planner may pick either
+        assertUsesIndex("attendance", List.of("idx_attendance_student_course", "fk_attendance_student"), 2L);
+    }
+
+    @Test
+    void findStudentAttendanceRowsUsesStudentCourseIndex() {
+        attendanceRepository.findStudentAttendanceRows(2L, DATE, DATE, null, "present");
+        assertUsesIndex("attendance", List.of("idx_attendance_student_course", "fk_attendance_student"),
+                2L, DATE, DATE, "present");
+    }
+
+    @Test
+    void findStudentAttendanceRowsOfOneCourseUsesCourseDateIndex() {
+        attendanceRepository.findStudentAttendanceRows(2L, DATE, DATE, 1L, "present");
+        // With the course set as a plain predicate, every filter falls in the covering index
+        assertUsesIndex("attendance", "idx_attendance_course_date_student_status", 2L, DATE, DATE, 1L, "present");
+    }
+
+    @Test
+    void reportQueriesCarryOnlyTheFiltersThatAreSet() {
+        attendanceRepository.findStudentAttendanceRows(2L, null, null, null, null);
+        attendanceRepository.findCourseAttendanceRows(1L, null, DATE, "present");
+        assertThat(RecordingStatementInspector.STATEMENTS).hasSize(2)
+                .allSatisfy(sql -> assertThat(sql.toLowerCase()).doesNotContain("is null", "lower(", "date>="));
+    }
+
+    @Test
+    void findEnrolledStudentsUsesEnrollmentIndex() {
+        enrollmentRepository.findEnrolledStudents(1L);
+        assertUsesIndex("enrollment", "idx_enrollment_course_student", 1L);
+    }
+
+    @Test
+    void findByStudentAndCourseUsesEnrollmentIndex() {
+        enrollmentRepository.findByStudent_IdAndCourse_Id(2L, 1L);
+        assertUsesIndex("enrollment", "idx_enrollment_course_student", 2L, 1L);
+    }
+
+    @Test
+    void findEnrolledStudentIdsUsesEnrollmentIndex() {
+        enrollmentRepository.findEnrolledStudentIds(1L, List.of(2L, 3L));
+        assertUsesIndex("enrollment", "idx_enrollment_course_student", 1L, 2L, 3L);
+    }
+
+    @Test
+    void findCounterUsesUniqueKey() {
+        attendanceCounterRepository.findByStudentIdAndCourseId(2L, 1L);
+        assertUsesIndex("attendance_counter", "uk_attendance_counter_student_course", 2L, 1L);
+    }
+
+    private void assertUsesIndex(String table, String index, Object... args) {
+        assertUsesIndex(table, List.of(index), args);
+    }
+
+    // Explains the first recorded statement that reads the table, bound with the same arguments
+    private void assertUsesIndex(String table, List<String> indexes, Object... args) {
+        String sql = RecordingStatementInspector.STATEMENTS.stream()
+                .filter(statement -> statement.matches("(?is).*\\bfrom\\s+" + table + "\\b.*"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statement read " + table + ": " + RecordingStatementInspector.STATEMENTS));
+
+        String plan = jdbcTemplate.queryForList("explain " + sql, String.class, args).stream()
+                .collect(Collectors.joining("\n"));
+
+        assertThat(plan.toLowerCase()).as("plan of %s", sql).containsAnyOf(indexes.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.attendancemanagement.routing;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.entity.User;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Two separate embedded databases stand in for the primary and the replica; nothing replicates
+// between them, so which rows a response contains shows which database served it.
+@SpringBootTest(classes = AttendanceApplication.class, properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTests.PRIMARY_URL,
+        "attendance.datasource.replica.url=" + ReadReplicaRoutingTests.REPLICA_URL,
+        "attendance.datasource.replica.lag-check-interval=PT1H"})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    @Autowired
+    private ReplicaMonitor replicaMonitor;
+
+    @Autowired
+    private TokenService tokenService;
+
+    // A real replica receives the schema through replication
+    @BeforeAll
+    static void createReplicaSchema() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+        user(replica, "replica-only", "Student");
+        course(replica, "replica-course");
+    }
+
+    @BeforeEach
+    void replicaIsCurrent() {
+        replica.update("update replication_heartbeat set beat_at = ? where id = 1", System.currentTimeMillis());
+        replicaMonitor.check();
+        assertThat(replicaMonitor.isAvailable()).isTrue();
+    }
+
+    @Test
+    void readsUseTheReplicaAndWritesThenReadsOfTheWriterUseThePrimary() throws Exception {
+        assertThat(listCourses(7001L)).contains("replica-course");
+
+        mockMvc.perform(post("/api/admin/courses").header("Authorization", bearer(7002L))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"primary-course\"}"))
+                .andExpect(status().isCreated());
+        assertThat(primary.queryForObject("select count(*) from course where name = 'primary-course'", Integer.class)).isOne();
+        assertThat(replica.queryForObject("select count(*) from course where name = 'primary-course'", Integer.class)).isZero();
+
+        // The writer sees their own change; everybody else keeps reading the replica
+        assertThat(listCourses(7002L)).contains("primary-course").doesNotContain("replica-course");
+        assertThat(listCourses(7001L)).contains("replica-course").doesNotContain("primary-course");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaLags() throws Exception {
+        replica.update("update replication_heartbeat set beat_at = ? where id = 1", System.currentTimeMillis() - 60_000);
+        replicaMonitor.check();
+
+        assertThat(replicaMonitor.isAvailable()).isFalse();
+        assertThat(listCourses(7003L)).doesNotContain("replica-course");
+    }
+
+    // The replica is in use but has not received the write: a poller must not get the old rows under the new ETag
+    @Test
+    void polledListsWithETagsReadThePrimaryWhileTheReplicaIsBehind() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/admin/users").header("Authorization", bearer(7004L)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(first.getResponse().getContentAsString()).doesNotContain("replica-only");
+
+        mockMvc.perform(post("/api/admin/users").header("Authorization", bearer(7005L))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"polled-user\",\"password\":\"password\",\"role\":\"Student\"}"))
+                .andExpect(status().isCreated());
+        assertThat(replicaMonitor.isAvailable()).isTrue();
+
+        MvcResult changed = mockMvc.perform(get("/api/admin/users").header("Authorization", bearer(7004L))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn();
+        String newEtag = changed.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newEtag).isNotEqualTo(etag);
+        assertThat(changed.getResponse().getContentAsString()).contains("polled-user");
+        mockMvc.perform(get("/api/admin/users").header("Authorization", bearer(7004L))
+                        .header(HttpHeaders.IF_NONE_MATCH, newEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String listCourses(Long adminId) throws Exception {
+        return mockMvc.perform(get("/api/admin/courses_database").header("Authorization", bearer(adminId)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private String bearer(Long adminId) {
+        return "Bearer " + tokenService.issue(adminId, User.Role.Admin);
+    }
+}
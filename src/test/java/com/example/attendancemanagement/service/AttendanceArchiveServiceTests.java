@@ -0,0 +1,243 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.TestRows;
+import com.example.attendancemanagement.archive.AttendanceArchive;
+import com.example.attendancemanagement.dto.ArchiveRun;
+import com.example.attendancemanagement.dto.AttendanceReportRow;
+import com.example.attendancemanagement.dto.CourseAttendanceRow;
+import com.example.attendancemanagement.dto.ListFilter;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.dto.StudentAttendanceRow;
+import com.example.attendancemanagement.entity.Attendance;
+import com.example.attendancemanagement.repository.AttendanceHistoryRepository;
+import com.example.attendancemanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.enroll;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+class AttendanceArchiveServiceTests {
+
+    // Two archived terms before the cutoff and one that stays in the table
+    private static final LocalDate SPRING = LocalDate.of(2001, 3, 5);
+    private static final LocalDate AUTUMN = LocalDate.of(2001, 9, 10);
+    private static final LocalDate CUTOFF = LocalDate.of(2002, 1, 1);
+    private static final LocalDate HOT = LocalDate.of(2002, 2, 4);
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private AttendanceHistoryRepository attendanceHistoryRepository;
+
+    @Autowired
+    private AttendanceCounterService attendanceCounterService;
+
+    @Autowired
+    private AttendanceLedgerService attendanceLedgerService;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private CascadeDeletionService cascadeDeletionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AttendanceArchive attendanceArchive;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // The database outlives this context's archive directory: other contexts would find the terms
+    // catalogued without their segments
+    @AfterEach
+    void forgetArchivedTerms() {
+        jdbcTemplate.update("delete from attendance_archive_segment");
+    }
+
+    @Test
+    void pastTermsAreMovedToSegmentsAndStillReported() {
+        long teacher = user(jdbcTemplate, "archive-teacher", "Teacher");
+        long ada = user(jdbcTemplate, "archive-ada", "Student");
+        long bob = user(jdbcTemplate, "archive-bob", "Student");
+        long courseId = course(jdbcTemplate, "archive-course", teacher);
+        mark(List.of(
+                new MarkedAttendance(courseId, ada, SPRING, "Present"),
+                new MarkedAttendance(courseId, bob, SPRING, "Absent"),
+                new MarkedAttendance(courseId, ada, AUTUMN, "Late"),
+                new MarkedAttendance(courseId, bob, AUTUMN, "Present"),
+                new MarkedAttendance(courseId, ada, HOT, "Absent")));
+        List<CourseAttendanceRow> before = attendanceHistoryRepository.findCourseAttendanceRows(courseId, null, null, null);
+        List<Long> adaIds = jdbcTemplate.queryForList("select id from attendance where student_id = ? order by id", Long.class, ada);
+
+        ArchiveRun run = attendanceArchiveService.archiveBefore(CUTOFF);
+
+        assertThat(run.termsArchived()).containsExactly(LocalDate.of(2001, 1, 1), LocalDate.of(2001, 7, 1));
+        assertThat(run.rowsArchived()).isEqualTo(4);
+        assertThat(run.rowsDeleted()).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from attendance where course_id = ?", Long.class, courseId))
+                .isEqualTo(1);
+
+        // Same rows in the same order as before, from both tiers
+        assertThat(attendanceHistoryRepository.findCourseAttendanceRows(courseId, null, null, null)).isEqualTo(before);
+        assertThat(attendanceHistoryRepository.findCourseAttendanceRows(courseId, AUTUMN, HOT, "present"))
+                .containsExactly(new CourseAttendanceRow(AUTUMN, "archive-bob", "Present"));
+        assertThat(attendanceHistoryRepository.findStudentAttendanceRows(ada, null, null, null, null))
+                .extracting(StudentAttendanceRow::date).containsExactly(HOT, AUTUMN, SPRING);
+        // The student's paged list walks from the archive into the table without skipping a row
+        assertThat(studentPages(ada, new ListFilter(null, null, null, null, null, 1, null))).isEqualTo(adaIds);
+        assertThat(studentPages(ada, new ListFilter(AUTUMN, null, courseId, null, null, 2, null)))
+                .isEqualTo(adaIds.subList(1, 3));
+        assertThat(studentPages(ada, new ListFilter(null, null, null, "absent", null, 5, null))).containsExactly(adaIds.get(2));
+        List<AttendanceReportRow> reportRows = new TransactionTemplate(transactionManager).execute(status -> {
+            try (Stream<AttendanceReportRow> rows = attendanceHistoryRepository.streamReportRows(null, null, courseId, null)) {
+                return rows.toList();
+            }
+        });
+        assertThat(reportRows).extracting(AttendanceReportRow::date, AttendanceReportRow::studentName,
+                        AttendanceReportRow::teacherName, AttendanceReportRow::status)
+                .containsExactly(
+                        tuple(SPRING, "archive-ada", "archive-teacher", "Present"),
+                        tuple(SPRING, "archive-bob", "archive-teacher", "Absent"),
+                        tuple(AUTUMN, "archive-ada", "archive-teacher", "Late"),
+                        tuple(AUTUMN, "archive-bob", "archive-teacher", "Present"),
+                        tuple(HOT, "archive-ada", "archive-teacher", "Absent"));
+
+        // Derived tables keep counting archived rows and rebuild them from the archive
+        attendanceRollupService.reconcile();
+        assertThat(attendanceRollupService.totalsByDate(SPRING, SPRING, courseId)).singleElement()
+                .satisfies(totals -> assertThat(totals.marked()).isEqualTo(2));
+        attendanceCounterService.rebuild();
+        attendanceLedgerService.rebuild();
+        assertThat(attendanceCounterService.verify()).isEmpty();
+        assertThat(attendanceCounterService.find(ada, courseId)).hasValueSatisfying(
+                counter -> assertThat(counter.getConducted()).isEqualTo(3));
+        assertThat(attendanceLedgerService.summarize(ada, courseId).conducted()).isEqualTo(3);
+
+        // A second run has nothing left to move
+        assertThat(attendanceArchiveService.archiveBefore(CUTOFF).rowsDeleted()).isZero();
+
+        // A deleted student's archived rows leave the reports and the derived tables
+        cascadeDeletionService.deleteUser(userRepository.findById(bob).orElseThrow());
+        assertThat(attendanceHistoryRepository.findCourseAttendanceRows(courseId, null, null, null))
+                .extracting(CourseAttendanceRow::studentName).containsOnly("archive-ada");
+        assertThat(attendanceCounterService.find(bob, courseId)).isEmpty();
+        assertThat(attendanceRollupService.totalsByDate(SPRING, SPRING, courseId)).singleElement()
+                .satisfies(totals -> assertThat(totals.marked()).isEqualTo(1));
+        assertThat(attendanceCounterService.verify()).isEmpty();
+    }
+
+    @Test
+    void termsArchivedByAnotherInstanceAreNotReadAsIfTheyWereEmpty() {
+        long ada = user(jdbcTemplate, "elsewhere-ada", "Student");
+        long courseId = course(jdbcTemplate, "elsewhere-course");
+        enroll(jdbcTemplate, ada, courseId);
+        // Another instance archived the first term of 1999 and has not finished deleting it
+        LocalDate archivedElsewhere = LocalDate.of(1999, 3, 1);
+        long leftOver = TestRows.attendance(jdbcTemplate, courseId, ada, archivedElsewhere, "Present");
+        jdbcTemplate.update("insert into attendance_archive_segment (term_start, term_end, max_id, row_count) values (?, ?, ?, ?)",
+                Date.valueOf(LocalDate.of(1999, 1, 1)), Date.valueOf(LocalDate.of(1999, 6, 30)), leftOver, 10);
+        try {
+            assertThat(attendanceArchive.hotFrom()).isEqualTo(LocalDate.of(1999, 7, 1));
+            assertThatThrownBy(() -> attendanceHistoryRepository.findStudentAttendanceRows(ada, null, null, null, null))
+                    .hasRootCauseInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("1999-01-01");
+            assertThatThrownBy(() -> attendanceArchiveService.archiveBefore(LocalDate.of(2000, 1, 1)))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(jdbcTemplate.queryForObject("select count(*) from attendance where id = ?", Long.class, leftOver)).isEqualTo(1);
+            // Reads that do not reach back to the term do not need its segment
+            assertThat(attendanceHistoryRepository.findStudentAttendanceRows(ada, LocalDate.of(2000, 1, 1), null, null, null)).isEmpty();
+        } finally {
+            jdbcTemplate.update("delete from attendance where id = ?", leftOver);
+        }
+    }
+
+    @Test
+    void derivedTablesWaitForAnArchiveRunBeforeReadingBothTiers() throws Exception {
+        // An archive run that is between publishing a segment and deleting its rows
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            Future<?> archiveRun = executor.submit(() -> attendanceArchiveService.exclusively(() -> {
+                running.countDown();
+                try {
+                    finish.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            running.await();
+            List<Future<?>> readers = List.of(
+                    executor.submit(attendanceRollupService::reconcile),
+                    executor.submit(attendanceCounterService::rebuild),
+                    executor.submit(attendanceCounterService::verify),
+                    executor.submit(attendanceLedgerService::rebuild));
+            Thread.sleep(200);
+            assertThat(readers).noneMatch(Future::isDone);
+            finish.countDown();
+            archiveRun.get(10, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Ids of every page of the student's attendance list, following the page tokens
+    private List<Long> studentPages(long studentId, ListFilter filter) {
+        List<Long> ids = new ArrayList<>();
+        String pageToken = null;
+        do {
+            List<Attendance> page = attendanceHistoryRepository.findStudentAttendancePage(studentId, new ListFilter(
+                    filter.from(), filter.to(), filter.course(), filter.status(), null, filter.limit(), pageToken));
+            page.stream().limit(filter.pageSize()).forEach(attendance -> ids.add(attendance.getId()));
+            pageToken = page.size() > filter.pageSize() ? ListFilter.pageToken(ids.get(ids.size() - 1)) : null;
+        } while (pageToken != null);
+        return ids;
+    }
+
+    // Inserts the rows and applies them to the derived tables the way the marking path does
+    private void mark(List<MarkedAttendance> marked) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (MarkedAttendance attendance : marked) {
+                enroll(jdbcTemplate, attendance.studentId(), attendance.courseId());
+                TestRows.attendance(jdbcTemplate, attendance.courseId(), attendance.studentId(), attendance.date(), attendance.status());
+            }
+            attendanceCounterService.applyMarked(marked);
+            attendanceLedgerService.applyMarked(marked);
+            attendanceRollupService.applyMarked(marked);
+        });
+    }
+}
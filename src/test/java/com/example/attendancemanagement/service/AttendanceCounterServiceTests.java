@@ -0,0 +1,63 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.entity.AttendanceCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.enroll;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+class AttendanceCounterServiceTests {
+
+    @Autowired
+    private AttendanceCounterService attendanceCounterService;
+
+    @Autowired
+    private AttendanceMarkingService attendanceMarkingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countersKeptByMarkingMatchARebuild() {
+        long teacher = user(jdbcTemplate, "counter-teacher", "Teacher");
+        long ada = user(jdbcTemplate, "counter-ada", "Student");
+        long bob = user(jdbcTemplate, "counter-bob", "Student");
+        long cy = user(jdbcTemplate, "counter-cy", "Student");
+        long courseId = course(jdbcTemplate, "counter-course", teacher);
+        enroll(jdbcTemplate, ada, courseId);
+        enroll(jdbcTemplate, bob, courseId);
+
+        // Rejected entries (not enrolled, marked twice) must not be counted
+        attendanceMarkingService.markToday(teacher, List.of(
+                Map.of("courseId", courseId, "studentId", ada, "status", "Present"),
+                Map.of("courseId", courseId, "studentId", bob, "status", "Absent"),
+                Map.of("courseId", courseId, "studentId", cy, "status", "Present"),
+                Map.of("courseId", courseId, "studentId", ada, "status", "Absent")));
+
+        assertCounter(ada, courseId, 1, 1, 0);
+        assertCounter(bob, courseId, 1, 0, 1);
+        assertThat(attendanceCounterService.find(cy, courseId)).isEmpty();
+        // verify() recomputes the counters the way rebuild() does, without writing them
+        assertThat(attendanceCounterService.verify()).noneMatch(mismatch -> mismatch.get("courseId").equals(courseId));
+
+        attendanceCounterService.rebuild();
+        assertCounter(ada, courseId, 1, 1, 0);
+        assertCounter(bob, courseId, 1, 0, 1);
+    }
+
+    private void assertCounter(long studentId, long courseId, long conducted, long present, long absent) {
+        AttendanceCounter counter = attendanceCounterService.find(studentId, courseId).orElseThrow();
+        assertThat(new long[]{counter.getConducted(), counter.getPresent(), counter.getAbsent()})
+                .containsExactly(conducted, present, absent);
+    }
+}
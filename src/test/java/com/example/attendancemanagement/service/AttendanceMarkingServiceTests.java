@@ -0,0 +1,130 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.dto.MarkingFailure;
+import com.example.attendancemanagement.dto.MarkingResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.attendancemanagement.TestRows.attendance;
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.enroll;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+class AttendanceMarkingServiceTests {
+
+    @Autowired
+    private AttendanceMarkingService attendanceMarkingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void savesTheValidEntriesAndReportsEveryRejectedStudent() {
+        LocalDate today = LocalDate.now();
+        long teacher = user(jdbcTemplate, "marking-teacher", "Teacher");
+        long otherTeacher = user(jdbcTemplate, "marking-other-teacher", "Teacher");
+        long ada = user(jdbcTemplate, "marking-ada", "Student");
+        long bob = user(jdbcTemplate, "marking-bob", "Student");
+        long cy = user(jdbcTemplate, "marking-cy", "Student");
+        long dee = user(jdbcTemplate, "marking-dee", "Student");
+        long courseId = course(jdbcTemplate, "marking-course", teacher);
+        long otherCourseId = course(jdbcTemplate, "marking-other-course", otherTeacher);
+        enroll(jdbcTemplate, ada, courseId);
+        enroll(jdbcTemplate, bob, courseId);
+        enroll(jdbcTemplate, dee, courseId);
+        enroll(jdbcTemplate, ada, otherCourseId);
+        attendance(jdbcTemplate, courseId, bob, today, "Present");
+
+        Map<String, Object> missingStatus = new HashMap<>(Map.of("courseId", courseId, "studentId", dee));
+        MarkingResult result = attendanceMarkingService.markToday(teacher, List.of(
+                Map.of("courseId", courseId, "studentId", ada, "status", "Present"),
+                Map.of("courseId", courseId, "studentId", bob, "status", "Absent"),
+                Map.of("courseId", courseId, "studentId", cy, "status", "Present"),
+                missingStatus,
+                Map.of("courseId", courseId, "studentId", dee, "status", "Absent"),
+                Map.of("courseId", courseId, "studentId", dee, "status", "Present"),
+                Map.of("courseId", otherCourseId, "studentId", ada, "status", "Present"),
+                Map.of("courseId", Long.MAX_VALUE, "studentId", ada, "status", "Present")));
+
+        assertThat(result.marked()).containsExactly(
+                new MarkedAttendance(courseId, ada, today, "Present"),
+                new MarkedAttendance(courseId, dee, today, "Absent"));
+        assertThat(result.failures()).containsExactlyInAnyOrder(
+                new MarkingFailure(dee, courseId, "Status is required."),
+                new MarkingFailure(bob, courseId, "Attendance has already been marked for this student today."),
+                new MarkingFailure(cy, courseId, "Student is not enrolled in this course."),
+                new MarkingFailure(dee, courseId, "Attendance has already been marked for this student today."),
+                new MarkingFailure(ada, otherCourseId, AttendanceMarkingService.NOT_AUTHORIZED),
+                new MarkingFailure(ada, Long.MAX_VALUE, "Invalid course ID."));
+        assertThat(jdbcTemplate.queryForList(
+                "select student_id from attendance where course_id = ? order by student_id", Long.class, courseId))
+                .containsExactly(ada, bob, dee);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from attendance where course_id = ?", Integer.class, otherCourseId)).isZero();
+    }
+
+    @Test
+    void concurrentMarkingsOfTheSameStudentSaveOneRow() throws Exception {
+        long teacher = user(jdbcTemplate, "marking-race-teacher", "Teacher");
+        long ada = user(jdbcTemplate, "marking-race-ada", "Student");
+        long courseId = course(jdbcTemplate, "marking-race-course", teacher);
+        enroll(jdbcTemplate, ada, courseId);
+        List<Map<String, Object>> payload = List.of(Map.of("courseId", courseId, "studentId", ada, "status", "Present"));
+
+        int markers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(markers);
+        List<MarkingResult> results = new ArrayList<>();
+        try {
+            List<Future<MarkingResult>> futures = new ArrayList<>();
+            for (int i = 0; i < markers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return attendanceMarkingService.markToday(teacher, payload);
+                }));
+            }
+            start.countDown();
+            for (Future<MarkingResult> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(results).filteredOn(result -> !result.marked().isEmpty()).hasSize(1);
+        assertThat(results).flatMap(MarkingResult::failures).hasSize(markers - 1)
+                .allSatisfy(failure -> assertThat(failure.message())
+                        .isEqualTo("Attendance has already been marked for this student today."));
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from attendance where course_id = ?", Integer.class, courseId)).isEqualTo(1);
+    }
+
+    @Test
+    void theDatabaseRejectsASecondRowForTheSameDay() {
+        long ada = user(jdbcTemplate, "marking-unique-ada", "Student");
+        long courseId = course(jdbcTemplate, "marking-unique-course");
+        LocalDate date = LocalDate.of(2023, 3, 1);
+        attendance(jdbcTemplate, courseId, ada, date, "Present");
+
+        assertThatThrownBy(() -> attendance(jdbcTemplate, courseId, ada, date, "Absent"))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.dto.DailyAttendanceTotals;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.attendancemanagement.TestRows.attendance;
+import static com.example.attendancemanagement.TestRows.course;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+class AttendanceRollupServiceTests {
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void markingAddsToTheRollupOfItsDateAndCourse() {
+        long courseId = course(jdbcTemplate, "rollup-marking");
+        LocalDate today = LocalDate.now();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> attendanceRollupService.applyMarked(List.of(
+                new MarkedAttendance(courseId, 1L, today, "Present"),
+                new MarkedAttendance(courseId, 2L, today, "absent"),
+                new MarkedAttendance(courseId, 3L, today, "Late"))));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> attendanceRollupService.applyMarked(List.of(
+                new MarkedAttendance(courseId, 4L, today, "Present"))));
+
+        assertThat(attendanceRollupService.courseTotalsByDate(courseId))
+                .containsExactly(new DailyAttendanceTotals(today, 2, 1, 4));
+    }
+
+    @Test
+    void reconciliationRepairsDriftedAndStrayRowsOfPastDays() {
+        long courseId = course(jdbcTemplate, "rollup-reconcile");
+        LocalDate monthsAgo = LocalDate.now().minusDays(90);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        // Written behind the marking path's back, so the rollup has not seen them
+        attendance(jdbcTemplate, courseId, null, monthsAgo, "Present");
+        attendance(jdbcTemplate, courseId, null, monthsAgo, "Absent");
+        attendance(jdbcTemplate, courseId, null, yesterday, "Present");
+        // A rollup row for a day without attendance
+        jdbcTemplate.update("insert into attendance_daily_rollup (date, course_id, present, absent, marked) values (?, ?, 5, 0, 5)",
+                Date.valueOf(yesterday.minusDays(1)), courseId);
+
+        assertThat(attendanceRollupService.reconcile()).isGreaterThanOrEqualTo(3);
+
+        assertThat(attendanceRollupService.courseTotalsByDate(courseId)).containsExactly(
+                new DailyAttendanceTotals(yesterday, 1, 0, 1),
+                new DailyAttendanceTotals(monthsAgo, 1, 1, 2));
+        assertThat(attendanceRollupService.totalsByCourse())
+                .anySatisfy(totals -> {
+                    assertThat(totals.courseId()).isEqualTo(courseId);
+                    assertThat(totals.courseName()).isEqualTo("rollup-reconcile");
+                    assertThat(totals.marked()).isEqualTo(3);
+                });
+        assertThat(attendanceRollupService.reconcile()).isZero();
+    }
+
+    @Test
+    void reconciliationWaitsForADeletionThatIsTakingRowsOff() throws Exception {
+        long courseId = course(jdbcTemplate, "rollup-deletion");
+        LocalDate day = LocalDate.now().minusDays(10);
+        long leaving = attendance(jdbcTemplate, courseId, null, day, "Present");
+        attendance(jdbcTemplate, courseId, null, day, "Present");
+        attendanceRollupService.reconcile();
+
+        // A deletion chunk that has taken its row off but not committed yet
+        CountDownLatch subtracted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> deletion = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.update("delete from attendance where id = ?", leaving);
+                attendanceRollupService.applyDeleted(List.of(new MarkedAttendance(courseId, null, day, "Present")));
+                subtracted.countDown();
+                try {
+                    commit.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            subtracted.await();
+            Future<Integer> reconcile = executor.submit(attendanceRollupService::reconcile);
+            Thread.sleep(200);
+            assertThat(reconcile).isNotDone();
+            commit.countDown();
+            deletion.get(10, TimeUnit.SECONDS);
+            reconcile.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(attendanceRollupService.courseTotalsByDate(courseId))
+                .containsExactly(new DailyAttendanceTotals(day, 1, 0, 1));
+    }
+}
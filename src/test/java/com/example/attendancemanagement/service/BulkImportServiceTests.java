@@ -0,0 +1,91 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.dto.ImportLineResult;
+import com.example.attendancemanagement.dto.ImportReport;
+import com.example.attendancemanagement.service.TableVersions.Table;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+class BulkImportServiceTests {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importsUsersAndReportsEveryLine() throws Exception {
+        user(jdbcTemplate, "import-existing", "Student");
+        long durable = tableVersions.durableVersions().get(Table.USERS);
+        long local = tableVersions.version(Table.USERS);
+
+        ImportReport report = bulkImportService.importUsers(upload("""
+                username,password,role
+                import-a,secret,Student
+                import-existing,secret,Student
+
+                import-a,other,Teacher
+                import-b,"with, comma",teacher
+                import-c,secret,Janitor
+                import-d,,Student
+                "import-e,secret,Student
+                """), BulkImportService.TEXT_CSV);
+
+        assertThat(report.created()).isEqualTo(2);
+        assertThat(report.rejected()).isEqualTo(5);
+        assertThat(report.lines()).extracting(ImportLineResult::line).containsExactly(2L, 3L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(report.lines()).extracting(ImportLineResult::message).containsExactly(
+                null, "Username is already taken.", "Username is already taken.", null,
+                "Role must be one of Admin, Teacher or Student.", "Username, password, and role are required.", "Unbalanced quotes.");
+        assertThat(jdbcTemplate.queryForObject("select password from user where username = 'import-b'", String.class))
+                .isEqualTo("with, comma");
+        assertThat(jdbcTemplate.queryForObject("select role from user where username = 'import-b'", String.class))
+                .isEqualTo("Teacher");
+        // One batch, bumped in its own transaction
+        assertThat(tableVersions.durableVersions().get(Table.USERS)).isEqualTo(durable + 1);
+        assertThat(tableVersions.version(Table.USERS)).isEqualTo(local + 1);
+    }
+
+    @Test
+    void importsEnrollmentsByIdOrName() throws Exception {
+        long studentId = user(jdbcTemplate, "enroll-student", "Student");
+        user(jdbcTemplate, "enroll-teacher", "Teacher");
+        long courseId = course(jdbcTemplate, "enroll-course");
+
+        ImportReport report = bulkImportService.importEnrollments(upload("""
+                {"studentUsername": "enroll-student", "courseName": "enroll-course"}
+                {"studentId": %d, "courseId": %d}
+                {"studentUsername": "enroll-teacher", "courseName": "enroll-course"}
+                {"studentUsername": "nobody", "courseId": %d}
+                not json
+                """.formatted(studentId, courseId, courseId)), MediaType.APPLICATION_NDJSON);
+
+        assertThat(report.created()).isEqualTo(1);
+        assertThat(report.lines()).extracting(ImportLineResult::message).containsExactly(
+                null, "Student is already enrolled in the course.", "The provided ID does not belong to a Student.",
+                "Invalid student or course ID.", "Malformed JSON.");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from enrollment where student_id = ? and course_id = ?",
+                Integer.class, studentId, courseId)).isEqualTo(1);
+    }
+
+    private static InputStream upload(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
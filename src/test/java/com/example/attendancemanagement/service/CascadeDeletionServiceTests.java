@@ -0,0 +1,132 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.TestRows;
+import com.example.attendancemanagement.dto.DeletionJob;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.entity.User;
+import com.example.attendancemanagement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.enroll;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = AttendanceApplication.class, properties = {
+        "attendance.deletion.chunk-size=3",
+        "attendance.deletion.background-threshold=5"})
+class CascadeDeletionServiceTests {
+
+    private static final LocalDate DATE = LocalDate.of(2023, 5, 2);
+
+    @Autowired
+    private CascadeDeletionService cascadeDeletionService;
+
+    @Autowired
+    private AttendanceCounterService attendanceCounterService;
+
+    @Autowired
+    private AttendanceLedgerService attendanceLedgerService;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void largeCourseIsDeletedInTheBackgroundInChunks() throws Exception {
+        long first = user(jdbcTemplate, "cascade-course-a", "Student");
+        long second = user(jdbcTemplate, "cascade-course-b", "Student");
+        long courseId = course(jdbcTemplate, "cascade-course");
+        long otherCourseId = course(jdbcTemplate, "cascade-course-other");
+        List<MarkedAttendance> marked = new ArrayList<>();
+        for (int day = 0; day < 4; day++) {
+            marked.add(new MarkedAttendance(courseId, first, DATE.plusDays(day), "Present"));
+            marked.add(new MarkedAttendance(courseId, second, DATE.plusDays(day), day == 0 ? "Absent" : "Present"));
+        }
+        marked.add(new MarkedAttendance(otherCourseId, first, DATE, "Present"));
+        mark(marked);
+
+        DeletionJob job = cascadeDeletionService.deleteCourse(courseId);
+        assertThat(job.status()).isEqualTo(DeletionJob.Status.running);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (job.status() == DeletionJob.Status.running && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = cascadeDeletionService.job(job.id()).orElseThrow();
+        }
+
+        assertThat(job.status()).isEqualTo(DeletionJob.Status.completed);
+        assertThat(job.attendanceDeleted()).isEqualTo(8);
+        assertThat(count("select count(*) from course where id = ?", courseId)).isZero();
+        assertThat(count("select count(*) from enrollment where course_id = ?", courseId)).isZero();
+        assertThat(count("select count(*) from attendance where course_id = ?", courseId)).isZero();
+        assertThat(count("select count(*) from attendance_counter where course_id = ?", courseId)).isZero();
+        assertThat(count("select count(*) from attendance_ledger where course_id = ?", courseId)).isZero();
+        assertThat(count("select count(*) from attendance_daily_rollup where course_id = ?", courseId)).isZero();
+        // The other course of the same student is untouched
+        assertThat(count("select marked from attendance_daily_rollup where course_id = ?", otherCourseId)).isEqualTo(1);
+        assertThat(attendanceCounterService.find(first, otherCourseId)).hasValueSatisfying(
+                counter -> assertThat(counter.getConducted()).isEqualTo(1));
+    }
+
+    @Test
+    void smallStudentIsDeletedRightAwayAndLeavesClassmatesCounted() {
+        long leaving = user(jdbcTemplate, "cascade-student-leaving", "Student");
+        long staying = user(jdbcTemplate, "cascade-student-staying", "Student");
+        long courseId = course(jdbcTemplate, "cascade-student-course");
+        mark(List.of(
+                new MarkedAttendance(courseId, leaving, DATE, "Absent"),
+                new MarkedAttendance(courseId, leaving, DATE.plusDays(1), "Present"),
+                new MarkedAttendance(courseId, staying, DATE, "Present")));
+
+        User student = userRepository.findById(leaving).orElseThrow();
+        DeletionJob job = cascadeDeletionService.deleteUser(student);
+
+        assertThat(job.status()).isEqualTo(DeletionJob.Status.completed);
+        assertThat(job.attendanceDeleted()).isEqualTo(2);
+        assertThat(count("select count(*) from user where id = ?", leaving)).isZero();
+        assertThat(count("select count(*) from enrollment where student_id = ?", leaving)).isZero();
+        assertThat(count("select count(*) from attendance_ledger where student_id = ?", leaving)).isZero();
+        assertThat(attendanceCounterService.find(leaving, courseId)).isEmpty();
+        assertThat(attendanceLedgerService.summarize(staying, courseId).conducted()).isEqualTo(1);
+        assertThat(attendanceRollupService.totalsByDate(DATE, DATE.plusDays(1), courseId))
+                .singleElement().satisfies(totals -> {
+                    assertThat(totals.present()).isEqualTo(1);
+                    assertThat(totals.absent()).isZero();
+                });
+    }
+
+    // Inserts the rows and applies them to the derived tables the way the marking path does
+    private void mark(List<MarkedAttendance> marked) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (MarkedAttendance attendance : marked) {
+                enroll(jdbcTemplate, attendance.studentId(), attendance.courseId());
+                TestRows.attendance(jdbcTemplate, attendance.courseId(), attendance.studentId(), attendance.date(), attendance.status());
+            }
+            attendanceCounterService.applyMarked(marked);
+            attendanceLedgerService.applyMarked(marked);
+            attendanceRollupService.applyMarked(marked);
+        });
+    }
+
+    private long count(String sql, long id) {
+        return jdbcTemplate.queryForObject(sql, Long.class, id);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.repository.CourseRepository;
+import com.example.attendancemanagement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = AttendanceApplication.class)
+class EntityCacheServiceTests {
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void repeatedLookupsAreServedWithoutStatements() {
+        long teacherId = user(jdbcTemplate, "cached-teacher", "Teacher");
+        long courseId = course(jdbcTemplate, "cached-course", teacherId);
+
+        userRepository.findById(teacherId);
+        courseRepository.findById(courseId);
+        userRepository.findByUsername("cached-teacher");
+        courseRepository.findAllByTeacherId(teacherId);
+        long prepared = preparedStatements();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(userRepository.findById(teacherId)).isPresent();
+            assertThat(courseRepository.findById(courseId)).isPresent();
+            assertThat(userRepository.findByUsername("cached-teacher")).isPresent();
+            assertThat(courseRepository.findAllByTeacherId(teacherId)).hasSize(1);
+        }
+
+        assertThat(preparedStatements()).isEqualTo(prepared);
+        assertThat(region("users").get("hits")).isInstanceOf(Long.class).matches(hits -> (Long) hits >= 3);
+        assertThat(region("queries").get("hits")).isInstanceOf(Long.class).matches(hits -> (Long) hits >= 6);
+    }
+
+    @Test
+    void importedUsersAreNotHiddenByACachedMiss() throws Exception {
+        assertThat(userRepository.findByUsername("cached-import")).isEmpty();
+
+        bulkImportService.importUsers(new ByteArrayInputStream(
+                "username,password,role\ncached-import,secret,Student\n".getBytes(StandardCharsets.UTF_8)),
+                BulkImportService.TEXT_CSV);
+
+        assertThat(userRepository.findByUsername("cached-import")).isPresent();
+    }
+
+    private long preparedStatements() {
+        return (Long) entityCacheService.stats().get("preparedStatements");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> region(String name) {
+        return (Map<String, Object>) entityCacheService.stats().get(name);
+    }
+}
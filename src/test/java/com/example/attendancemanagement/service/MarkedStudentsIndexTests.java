@@ -0,0 +1,75 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.dto.MarkedAttendance;
+import com.example.attendancemanagement.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.example.attendancemanagement.TestRows.attendance;
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = AttendanceApplication.class, properties = "attendance.marked-index.expire-after-write=PT1S")
+@AutoConfigureMockMvc
+class MarkedStudentsIndexTests {
+
+    private static final LocalDate DATE = LocalDate.of(2023, 6, 5);
+
+    @Autowired
+    private MarkedStudentsIndex markedStudentsIndex;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void polledBitmapsStillExpireAndPickUpRowsWrittenElsewhere() throws Exception {
+        long ada = user(jdbcTemplate, "index-ada", "Student");
+        long bob = user(jdbcTemplate, "index-bob", "Student");
+        long courseId = course(jdbcTemplate, "index-course");
+
+        assertThat(markedStudentsIndex.marked(courseId, DATE).isEmpty()).isTrue();
+        markedStudentsIndex.recordMarked(List.of(new MarkedAttendance(courseId, ada, DATE, "Present")));
+        // Written by another instance: this one only finds out by reloading
+        attendance(jdbcTemplate, courseId, bob, DATE, "Present");
+
+        // Reads and local updates in the meantime don't keep the bitmap alive
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!markedStudentsIndex.marked(courseId, DATE).contains(bob) && System.currentTimeMillis() < deadline) {
+            markedStudentsIndex.recordMarked(List.of(new MarkedAttendance(courseId, ada, DATE, "Present")));
+            Thread.sleep(50);
+        }
+        assertThat(markedStudentsIndex.marked(courseId, DATE).contains(bob)).isTrue();
+    }
+
+    @Test
+    void deletingACourseThroughTheAdminApiDropsItsBitmaps() throws Exception {
+        long ada = user(jdbcTemplate, "index-delete-ada", "Student");
+        long courseId = course(jdbcTemplate, "index-delete-course");
+        attendance(jdbcTemplate, courseId, ada, DATE, "Present");
+        assertThat(markedStudentsIndex.marked(courseId, DATE).contains(ada)).isTrue();
+
+        mockMvc.perform(delete("/api/admin/courses/" + courseId)
+                        .header("Authorization", "Bearer " + tokenService.issue(1L, User.Role.Admin)))
+                .andExpect(status().isOk());
+
+        assertThat(markedStudentsIndex.marked(courseId, DATE).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.dto.CourseSummary;
+import com.example.attendancemanagement.dto.UserSummary;
+import com.example.attendancemanagement.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = AttendanceApplication.class, properties = "attendance.cache.expire-after-write=PT1S")
+@AutoConfigureMockMvc
+class NameCacheTests {
+
+    @Autowired
+    private NameCache nameCache;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void adminWritesEvictTheNamesTheyChange() throws Exception {
+        long ada = user(jdbcTemplate, "names-ada", "Student");
+        long teacher = user(jdbcTemplate, "names-teacher", "Teacher");
+        long courseId = course(jdbcTemplate, "names-course");
+        assertThat(nameCache.user(ada)).map(UserSummary::username).hasValue("names-ada");
+        assertThat(nameCache.course(courseId)).map(CourseSummary::name).hasValue("names-course");
+
+        mockMvc.perform(put("/api/admin/users/" + ada).header("Authorization", admin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"names-ada-renamed\", \"password\": \"secret\", \"role\": \"Student\"}"))
+                .andExpect(status().isOk());
+        assertThat(nameCache.user(ada)).map(UserSummary::username).hasValue("names-ada-renamed");
+
+        mockMvc.perform(put("/api/admin/courses/" + courseId).header("Authorization", admin())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"names-course-renamed\"}"))
+                .andExpect(status().isOk());
+        assertThat(nameCache.course(courseId)).map(CourseSummary::name).hasValue("names-course-renamed");
+
+        mockMvc.perform(put("/api/admin/assign-teacher/" + courseId).header("Authorization", admin())
+                        .contentType(MediaType.APPLICATION_JSON).content(String.valueOf(teacher)))
+                .andExpect(status().isOk());
+        assertThat(nameCache.course(courseId)).map(CourseSummary::teacherId).hasValue(teacher);
+
+        mockMvc.perform(delete("/api/admin/users/" + ada).header("Authorization", admin()))
+                .andExpect(status().isOk());
+        assertThat(nameCache.user(ada)).isEmpty();
+    }
+
+    @Test
+    void namesChangedOnAnotherInstanceExpire() throws Exception {
+        long bob = user(jdbcTemplate, "names-bob", "Student");
+        assertThat(nameCache.user(bob)).map(UserSummary::username).hasValue("names-bob");
+
+        // No eviction reaches this instance; the entry has to expire
+        jdbcTemplate.update("update user set username = ? where id = ?", "names-bob-renamed", bob);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!nameCache.user(bob).map(UserSummary::username).orElseThrow().equals("names-bob-renamed")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(nameCache.user(bob)).map(UserSummary::username).hasValue("names-bob-renamed");
+    }
+
+    private String admin() {
+        return "Bearer " + tokenService.issue(1L, User.Role.Admin);
+    }
+}
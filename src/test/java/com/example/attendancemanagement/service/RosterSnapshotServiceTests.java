@@ -0,0 +1,104 @@
+package com.example.attendancemanagement.service;
+
+import com.example.attendancemanagement.AttendanceApplication;
+import com.example.attendancemanagement.auth.TokenService;
+import com.example.attendancemanagement.dto.EnrolledStudent;
+import com.example.attendancemanagement.dto.MarkingResult;
+import com.example.attendancemanagement.entity.User;
+import com.example.attendancemanagement.repository.EnrollmentRepository;
+import com.example.attendancemanagement.snapshot.RosterSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.example.attendancemanagement.TestRows.course;
+import static com.example.attendancemanagement.TestRows.enroll;
+import static com.example.attendancemanagement.TestRows.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Own context: the snapshot it writes must not be served to tests that insert rows without bumping versions
+@SpringBootTest(classes = AttendanceApplication.class, properties = "attendance.snapshot.revalidate-interval=PT1H")
+@AutoConfigureMockMvc
+class RosterSnapshotServiceTests {
+
+    private static final String ROSTER_HANDLER = "TeacherController.listEnrolledStudents";
+
+    @Autowired
+    private RosterSnapshotService rosterSnapshotService;
+
+    @Autowired
+    private AttendanceMarkingService attendanceMarkingService;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void servesRostersFromTheSnapshotUntilAnEnrollmentIsWritten() throws Exception {
+        long teacher = user(jdbcTemplate, "snapshot-teacher", "Teacher");
+        long ada = user(jdbcTemplate, "snapshot-ada", "Student");
+        long bob = user(jdbcTemplate, "snapshot-bob", "Student");
+        long cy = user(jdbcTemplate, "snapshot-cy", "Student");
+        long courseId = course(jdbcTemplate, "snapshot-course", teacher);
+        enroll(jdbcTemplate, bob, courseId);
+        enroll(jdbcTemplate, ada, courseId);
+
+        assertThat(rosterSnapshotService.writeIfStale()).isTrue();
+        assertThat(rosterSnapshotService.writeIfStale()).isFalse();
+        RosterSnapshot snapshot = rosterSnapshotService.current().orElseThrow();
+        assertThat(snapshot.roster(courseId)).isEqualTo(enrollmentRepository.findEnrolledStudents(courseId))
+                .extracting(EnrolledStudent::studentName).containsExactly("snapshot-bob", "snapshot-ada");
+        assertThat(snapshot.course(courseId)).hasValueSatisfying(course -> assertThat(course.teacherId()).isEqualTo(teacher));
+        assertThat(snapshot.user(cy)).hasValueSatisfying(user -> assertThat(user.role()).isEqualTo(User.Role.Student));
+
+        // The roster comes from the snapshot; the only statement is the ownership check
+        String teacherToken = "Bearer " + tokenService.issue(teacher, User.Role.Teacher);
+        mockMvc.perform(get("/api/teacher/courses/" + courseId + "/students").header("Authorization", teacherToken))
+                .andExpect(status().isOk());
+        assertThat(registry.get("attendance.handler.sql.statements").tag("handler", ROSTER_HANDLER).summary().totalAmount())
+                .isEqualTo(1);
+
+        MarkingResult marked = attendanceMarkingService.markToday(teacher, List.of(
+                Map.of("courseId", courseId, "studentId", ada, "status", "Present"),
+                Map.of("courseId", courseId, "studentId", cy, "status", "Present")));
+        assertThat(marked.marked()).hasSize(1);
+        assertThat(marked.failures()).singleElement()
+                .satisfies(failure -> assertThat(failure.message()).isEqualTo("Student is not enrolled in this course."));
+
+        // An enrollment through the admin API makes the snapshot stale right away
+        mockMvc.perform(post("/api/admin/enroll").header("Authorization", "Bearer " + tokenService.issue(1L, User.Role.Admin))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"studentId\": " + cy + ", \"courseId\": " + courseId + "}"))
+                .andExpect(status().isOk());
+        assertThat(rosterSnapshotService.current()).isEmpty();
+        String roster = mockMvc.perform(get("/api/teacher/courses/" + courseId + "/students").header("Authorization", teacherToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(roster).contains("snapshot-cy");
+
+        assertThat(rosterSnapshotService.writeIfStale()).isTrue();
+        assertThat(rosterSnapshotService.current().orElseThrow().roster(courseId))
+                .extracting(EnrolledStudent::studentId).containsExactly(bob, ada, cy);
+    }
+}